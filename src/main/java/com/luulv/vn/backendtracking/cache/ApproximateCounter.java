@@ -0,0 +1,62 @@
+package com.luulv.vn.backendtracking.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Tổng số dòng gần đúng cho phân trang, thay cho COUNT(*) ở mỗi request.
+ * Không có filter: lấy reltuples trong thống kê planner của Postgres (cập nhật bởi ANALYZE/autovacuum).
+ * Có filter: COUNT thật được cache theo (bảng, giá trị filter), cũ tối đa ttl.
+ */
+@Slf4j
+public class ApproximateCounter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<List<Object>, Long> counts;
+
+    public ApproximateCounter(JdbcTemplate jdbcTemplate, long maximumSize, Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Tổng gần đúng của bảng với các giá trị filter (null = không lọc), exactCount chỉ được gọi khi cache hết hạn
+     */
+    public long count(String table, LongSupplier exactCount, Object... filters) {
+        List<Object> key = new ArrayList<>(filters.length + 1);
+        key.add(table);
+        Collections.addAll(key, filters);
+        boolean unfiltered = Arrays.stream(filters).allMatch(Objects::isNull);
+        return counts.get(key, k -> unfiltered ? plannerEstimate(table, exactCount) : exactCount.getAsLong());
+    }
+
+    public Cache<List<Object>, Long> getNativeCache() {
+        return counts;
+    }
+
+    // reltuples = -1 khi bảng chưa từng được ANALYZE, lúc đó đếm thật
+    private long plannerEstimate(String table, LongSupplier exactCount) {
+        Long estimate = jdbcTemplate.query(
+                "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass(?)",
+                rs -> rs.next() ? rs.getLong(1) : null, table);
+        if (estimate == null || estimate < 0) {
+            log.debug("No planner statistics for table {}, falling back to exact count", table);
+            return exactCount.getAsLong();
+        }
+        return estimate;
+    }
+}
@@ -0,0 +1,276 @@
+package com.luulv.vn.backendtracking.cache;
+
+import com.luulv.vn.backendtracking.config.CacheProperties;
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import com.luulv.vn.backendtracking.dto.UserResponseDTO;
+import com.luulv.vn.backendtracking.event.RemoteProductChangeEvent;
+import com.luulv.vn.backendtracking.statistics.ProductStatisticsEngine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Nhận tin NOTIFY do InvalidationPublisher của các node khác gửi và xóa cache cục bộ tương ứng:
+ * near cache product/user, ETag (TableVersionTracker) và bộ đếm thống kê (kéo theo danh sách type).
+ * Dùng một connection riêng ngoài pool (LISTEN giữ connection suốt đời tiến trình) trên một thread nền;
+ * mất kết nối thì kết nối lại và xóa toàn bộ cache vì có thể đã lỡ tin trong lúc mất kết nối; áp dụng một lô tin lỗi
+ * cũng xóa toàn bộ cache rồi nghe tiếp.
+ * Thay đổi sản phẩm còn được phát lại thành RemoteProductChangeEvent cho client SSE của node này.
+ */
+@Component
+@ConditionalOnProperty(prefix = "tracking.cache.invalidation", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class InvalidationListener {
+
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+    private static final int POLL_TIMEOUT_MILLIS = 1000;
+
+    private final DataSourceProperties dataSourceProperties;
+
+    private final CacheProperties properties;
+
+    private final NearCache<Integer, ProductResponseDto> productCache;
+
+    private final NearCache<Integer, UserResponseDTO> userCache;
+
+    private final TableVersionTracker tableVersionTracker;
+
+    private final ProductStatisticsEngine statisticsEngine;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicLong received = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    // Chỉ thread listener đọc/ghi
+    private boolean statisticsStale;
+    private long statisticsRefreshedAt;
+
+    @PostConstruct
+    public void start() {
+        String channel = properties.getInvalidation().getChannel();
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Tên channel không hợp lệ: " + channel);
+        }
+        running = true;
+        thread = Thread.ofPlatform().name("cache-invalidation-listener").daemon().start(this::run);
+        log.info("Cache invalidation listener started on channel '{}' (node {})", channel, InvalidationMessage.LOCAL_NODE);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    private void run() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = connect()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + properties.getInvalidation().getChannel());
+                }
+                if (reconnecting) {
+                    log.info("Cache invalidation listener reconnected, clearing local caches");
+                    invalidateEverything(connection);
+                }
+                listen(connection);
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cache invalidation listener lost its connection, retrying in {}: {}",
+                        properties.getInvalidation().getReconnectDelay(), e.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(properties.getInvalidation().getReconnectDelay());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void listen(Connection connection) throws SQLException {
+        PGConnection notifications = connection.unwrap(PGConnection.class);
+        long batchWindowMillis = properties.getInvalidation().getBatchWindow().toMillis();
+        while (running) {
+            PGNotification[] first = notifications.getNotifications(POLL_TIMEOUT_MILLIS);
+            if (first != null && first.length > 0) {
+                List<PGNotification> batch = new ArrayList<>();
+                Collections.addAll(batch, first);
+                long deadline = System.currentTimeMillis() + batchWindowMillis;
+                long remaining;
+                // getNotifications(0) chờ vô hạn nên chỉ gọi khi còn ít nhất 1ms
+                while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+                    PGNotification[] more = notifications.getNotifications((int) remaining);
+                    if (more != null) {
+                        Collections.addAll(batch, more);
+                    }
+                }
+                try {
+                    apply(batch, connection);
+                } catch (RuntimeException e) {
+                    // Lỗi giữa chừng (vd. listener của RemoteProductChangeEvent ném lỗi) không được làm chết thread;
+                    // không biết phần nào của lô đã áp dụng nên xóa toàn bộ cache
+                    log.warn("Could not apply {} cache invalidations, clearing local caches", batch.size(), e);
+                    invalidateEverything(connection);
+                }
+            }
+            refreshStatisticsIfDue();
+        }
+    }
+
+    private void apply(List<PGNotification> batch, Connection connection) throws SQLException {
+        Set<Integer> products = new HashSet<>();
+        Set<Integer> users = new HashSet<>();
+        boolean allProducts = false;
+        boolean allUsers = false;
+        int applied = 0;
+        for (PGNotification notification : batch) {
+            InvalidationMessage message = InvalidationMessage.parse(notification.getParameter());
+            if (message == null) {
+                log.warn("Ignoring malformed cache invalidation payload: {}", notification.getParameter());
+                continue;
+            }
+            if (message.isLocal()) {
+                continue;
+            }
+            applied++;
+            switch (message.table()) {
+                case TableVersionTracker.PRODUCT -> {
+                    allProducts |= message.isAll();
+                    if (!message.isAll()) {
+                        products.addAll(message.ids());
+                    }
+                }
+                case TableVersionTracker.USER -> {
+                    allUsers |= message.isAll();
+                    if (!message.isAll()) {
+                        users.addAll(message.ids());
+                    }
+                }
+                default -> log.debug("Ignoring cache invalidation for unknown table {}", message.table());
+            }
+        }
+        received.addAndGet(applied);
+
+        // Áp phiên bản trước khi xóa cache: lần nạp lại ngay sau đó phải đọc primary, replica có thể chưa replay
+        if (applied > 0) {
+            Map<String, Long> versions = readVersions(connection);
+            if (allProducts || !products.isEmpty()) {
+                tableVersionTracker.advance(TableVersionTracker.PRODUCT, versions.getOrDefault(TableVersionTracker.PRODUCT, 0L));
+                statisticsStale = true;
+            }
+            if (allUsers || !users.isEmpty()) {
+                tableVersionTracker.advance(TableVersionTracker.USER, versions.getOrDefault(TableVersionTracker.USER, 0L));
+            }
+        }
+        if (allProducts) {
+            productCache.invalidateAll();
+        } else {
+            products.forEach(productCache::invalidate);
+        }
+        if (allUsers) {
+            userCache.invalidateAll();
+        } else {
+            users.forEach(userCache::invalidate);
+        }
+        if (allProducts || !products.isEmpty()) {
+            eventPublisher.publishEvent(new RemoteProductChangeEvent(allProducts ? null : Set.copyOf(products)));
+        }
+        log.debug("Applied {} remote cache invalidations ({} products, {} users)", applied, products.size(), users.size());
+    }
+
+    // Bộ đếm thống kê không cập nhật được từ tin rút gọn nên tải lại, tối đa một lần mỗi statistics-refresh-interval
+    private void refreshStatisticsIfDue() {
+        long now = System.currentTimeMillis();
+        if (!statisticsStale
+                || now - statisticsRefreshedAt < properties.getInvalidation().getStatisticsRefreshInterval().toMillis()) {
+            return;
+        }
+        statisticsStale = false;
+        statisticsRefreshedAt = now;
+        try {
+            statisticsEngine.refresh();
+        } catch (Exception e) {
+            statisticsStale = true;
+            log.warn("Could not refresh product statistics after remote change: {}", e.getMessage());
+        }
+    }
+
+    private void invalidateEverything(Connection connection) throws SQLException {
+        Map<String, Long> versions = readVersions(connection);
+        tableVersionTracker.advance(TableVersionTracker.PRODUCT, versions.getOrDefault(TableVersionTracker.PRODUCT, 0L));
+        tableVersionTracker.advance(TableVersionTracker.USER, versions.getOrDefault(TableVersionTracker.USER, 0L));
+        productCache.invalidateAll();
+        userCache.invalidateAll();
+        statisticsStale = true;
+        // Cache đã xóa xong; lỗi của listener SSE ở đây không được làm chết thread
+        try {
+            eventPublisher.publishEvent(new RemoteProductChangeEvent(null));
+        } catch (RuntimeException e) {
+            log.warn("Could not notify local clients after clearing caches: {}", e.getMessage());
+        }
+    }
+
+    // Phiên bản đã commit của các bảng, đọc trên connection LISTEN (primary) nên đã gồm thay đổi vừa được báo
+    private static Map<String, Long> readVersions(Connection connection) throws SQLException {
+        Map<String, Long> versions = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT table_name, version FROM table_version")) {
+            while (rs.next()) {
+                versions.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        return versions;
+    }
+
+    private Connection connect() throws SQLException {
+        Properties info = new Properties();
+        if (dataSourceProperties.determineUsername() != null) {
+            info.setProperty("user", dataSourceProperties.determineUsername());
+        }
+        if (dataSourceProperties.determinePassword() != null) {
+            info.setProperty("password", dataSourceProperties.determinePassword());
+        }
+        // Phát hiện connection chết khi không có tin nào (kết nối nửa vời qua NAT/load balancer)
+        info.setProperty("tcpKeepAlive", "true");
+        info.setProperty("ApplicationName", "tracking-invalidation-listener");
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(), info);
+    }
+}
@@ -0,0 +1,54 @@
+package com.luulv.vn.backendtracking.cache;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Payload NOTIFY báo cache các node khác cần xóa: "bảng:id1,id2|*:node:version".
+ * version là txid của transaction ghi (tăng dần), node là định danh tiến trình gửi để tự bỏ qua tin của mình.
+ *
+ * @param ids null nghĩa là xóa toàn bộ cache của bảng
+ */
+public record InvalidationMessage(String table, Set<Integer> ids, String node, long version) {
+
+    // Định danh node hiện tại, sinh lại mỗi lần khởi động
+    public static final String LOCAL_NODE = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    private static final String ALL = "*";
+
+    public boolean isAll() {
+        return ids == null;
+    }
+
+    public boolean isLocal() {
+        return LOCAL_NODE.equals(node);
+    }
+
+    /**
+     * Phần payload trước version; version (txid_current()) được nối thêm trong câu pg_notify
+     */
+    public static String prefix(String table, Set<Integer> ids) {
+        String idPart = ids == null ? ALL : ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return table + ":" + idPart + ":" + LOCAL_NODE + ":";
+    }
+
+    /**
+     * Parse payload, trả về null nếu sai định dạng (ví dụ tin từ phiên bản khác)
+     */
+    public static InvalidationMessage parse(String payload) {
+        String[] parts = payload == null ? new String[0] : payload.split(":");
+        if (parts.length != 4) {
+            return null;
+        }
+        try {
+            Set<Integer> ids = ALL.equals(parts[1]) ? null : Arrays.stream(parts[1].split(","))
+                    .map(Integer::valueOf)
+                    .collect(Collectors.toUnmodifiableSet());
+            return new InvalidationMessage(parts[0], ids, parts[2], Long.parseLong(parts[3]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
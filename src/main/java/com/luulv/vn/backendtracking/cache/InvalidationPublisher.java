@@ -0,0 +1,107 @@
+package com.luulv.vn.backendtracking.cache;
+
+import com.luulv.vn.backendtracking.config.CacheProperties;
+import com.luulv.vn.backendtracking.event.ProductChangeEvent;
+import com.luulv.vn.backendtracking.event.ProductsImportedEvent;
+import com.luulv.vn.backendtracking.event.UserChangeEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Gửi thay đổi sang các node khác qua PostgreSQL NOTIFY (InvalidationListener nhận).
+ * Thay đổi trong một transaction được gom lại và gửi một lần mỗi bảng ngay trước commit, trên chính connection
+ * của transaction: NOTIFY chỉ được phát khi commit thành công, rollback thì không node nào nhận.
+ */
+@Component
+@ConditionalOnProperty(prefix = "tracking.cache.invalidation", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class InvalidationPublisher {
+
+    private static final String NOTIFY_SQL = "SELECT pg_notify(?, ? || txid_current())";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final CacheProperties properties;
+
+    @EventListener
+    public void onProductWrite(ProductChangeEvent event) {
+        record(changes -> changes.add(TableVersionTracker.PRODUCT, event.getProductId()));
+    }
+
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        record(changes -> event.getProducts()
+                .forEach(product -> changes.add(TableVersionTracker.PRODUCT, product.getId())));
+    }
+
+    // userId null là thay đổi hàng loạt
+    @EventListener
+    public void onUserWrite(UserChangeEvent event) {
+        record(changes -> changes.add(TableVersionTracker.USER, event.getUserId()));
+    }
+
+    private void record(Consumer<Changes> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Changes changes = new Changes();
+            change.accept(changes);
+            send(changes);
+            return;
+        }
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            Changes pending = new Changes();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    send(pending);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(InvalidationPublisher.this);
+                }
+            });
+            changes = pending;
+        }
+        change.accept(changes);
+    }
+
+    private void send(Changes changes) {
+        String channel = properties.getInvalidation().getChannel();
+        int maxIds = properties.getInvalidation().getMaxIdsPerMessage();
+        changes.ids.forEach((table, ids) -> {
+            // Quá nhiều id (ví dụ bulk import) thì báo xóa toàn bộ, payload NOTIFY giới hạn 8000 byte
+            Set<Integer> sent = ids == null || ids.size() > maxIds ? null : ids;
+            jdbcTemplate.query(NOTIFY_SQL, rs -> null, channel, InvalidationMessage.prefix(table, sent));
+        });
+        log.debug("Published cache invalidation for tables {}", changes.ids.keySet());
+    }
+
+    // Id thay đổi theo bảng, giá trị null = cả bảng
+    private static final class Changes {
+
+        private final Map<String, Set<Integer>> ids = new LinkedHashMap<>();
+
+        void add(String table, Integer id) {
+            if (id == null) {
+                ids.put(table, null);
+            } else if (!ids.containsKey(table) || ids.get(table) != null) {
+                ids.computeIfAbsent(table, key -> new LinkedHashSet<>()).add(id);
+            }
+        }
+    }
+}
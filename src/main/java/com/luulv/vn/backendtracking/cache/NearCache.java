@@ -0,0 +1,78 @@
+package com.luulv.vn.backendtracking.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.luulv.vn.backendtracking.datasource.VersionedReads;
+import com.luulv.vn.backendtracking.dto.CacheStatsDto;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Cache read-through trong bộ nhớ, giới hạn theo số phần tử và thời gian sống.
+ * Key không tồn tại trong DB được cache âm (Optional.empty) với TTL ngắn hơn.
+ */
+public class NearCache<K, V> {
+
+    private final String name;
+    private final Cache<K, Optional<V>> cache;
+
+    public NearCache(String name, long maximumSize, Duration ttl, Duration negativeTtl) {
+        this.name = name;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<K, Optional<V>>() {
+                    @Override
+                    public long expireAfterCreate(K key, Optional<V> value, long currentTime) {
+                        return (value.isPresent() ? ttl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(K key, Optional<V> value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(K key, Optional<V> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Lấy từ cache, nếu chưa có thì gọi loader (mỗi key chỉ load một lần dù có nhiều request đồng thời)
+     */
+    public Optional<V> get(K key, Function<? super K, Optional<V>> loader) {
+        // Giá trị được giữ lại sau khi trả về nên không nạp từ replica còn trễ (VersionedReads)
+        return cache.get(key, missing -> VersionedReads.call(() -> loader.apply(missing)));
+    }
+
+    public void invalidate(K key) {
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Dùng cho việc đăng ký metrics
+    public Cache<K, Optional<V>> getNativeCache() {
+        return cache;
+    }
+
+    public CacheStatsDto stats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDto(name, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount(), stats.loadSuccessCount(), stats.loadFailureCount(),
+                Duration.ofNanos(stats.totalLoadTime()).toMillis());
+    }
+}
@@ -0,0 +1,69 @@
+package com.luulv.vn.backendtracking.cache;
+
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import com.luulv.vn.backendtracking.dto.UserResponseDTO;
+import com.luulv.vn.backendtracking.event.ProductChangeEvent;
+import com.luulv.vn.backendtracking.event.ProductsImportedEvent;
+import com.luulv.vn.backendtracking.event.UserChangeEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Xóa phần tử cache khi có ghi dữ liệu.
+ * Xóa ngay khi ghi và xóa lại sau commit, để request đọc song song trong lúc transaction
+ * chưa commit không giữ lại giá trị cũ trong cache.
+ */
+@Component
+@RequiredArgsConstructor
+public class NearCacheInvalidator {
+
+    private final NearCache<Integer, ProductResponseDto> productCache;
+
+    private final NearCache<Integer, UserResponseDTO> userCache;
+
+    @EventListener
+    public void onProductWrite(ProductChangeEvent event) {
+        productCache.invalidate(event.getProductId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductCommitted(ProductChangeEvent event) {
+        productCache.invalidate(event.getProductId());
+    }
+
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        invalidateImported(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImportedCommitted(ProductsImportedEvent event) {
+        invalidateImported(event);
+    }
+
+    // Id mới có thể đang được cache âm (Optional.empty) từ lần đọc trước khi tạo
+    private void invalidateImported(ProductsImportedEvent event) {
+        event.getProducts().forEach(product -> productCache.invalidate(product.getId()));
+    }
+
+    @EventListener
+    public void onUserWrite(UserChangeEvent event) {
+        invalidateUser(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserCommitted(UserChangeEvent event) {
+        invalidateUser(event);
+    }
+
+    // userId null là thay đổi hàng loạt (ví dụ job hết hạn), xóa toàn bộ
+    private void invalidateUser(UserChangeEvent event) {
+        if (event.getUserId() == null) {
+            userCache.invalidateAll();
+        } else {
+            userCache.invalidate(event.getUserId());
+        }
+    }
+}
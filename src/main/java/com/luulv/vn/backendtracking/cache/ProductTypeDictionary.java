@@ -0,0 +1,82 @@
+package com.luulv.vn.backendtracking.cache;
+
+import com.luulv.vn.backendtracking.entity.ProductType;
+import com.luulv.vn.backendtracking.repository.ProductTypeRepository;
+import com.luulv.vn.backendtracking.statistics.ProductStatisticsEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Từ điển type sản phẩm giữ trong bộ nhớ.
+ * <ul>
+ *     <li>Mã số nguyên của từng type (bảng product_type), để lọc theo type so sánh product.type_id thay vì chuỗi.
+ *     Mã của một type không bao giờ đổi nên được cache vĩnh viễn; type chưa có trong bộ nhớ (vừa được ghi lần đầu,
+ *     có thể từ node khác) được tra lại trong DB.</li>
+ *     <li>Danh sách type đang có sản phẩm cho /api/products/types, dẫn xuất từ bộ đếm theo type của
+ *     ProductStatisticsEngine thay cho SELECT DISTINCT trên cả bảng. Chỉ dùng để hiển thị: bộ đếm có thể trễ so với DB
+ *     (ghi từ node khác, sửa trực tiếp trong DB) nên không dùng để quyết định bỏ qua truy vấn.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductTypeDictionary {
+
+    // Không sản phẩm nào mang mã này (SERIAL bắt đầu từ 1): type chưa từng được ghi vẫn chạy truy vấn và trả về rỗng
+    public static final int UNKNOWN_TYPE_ID = 0;
+
+    private final ProductStatisticsEngine statisticsEngine;
+
+    private final ProductTypeRepository productTypeRepository;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    private volatile Snapshot snapshot = new Snapshot(-1, List.of());
+
+    /**
+     * Các type đang có sản phẩm, sắp xếp tăng dần
+     */
+    public List<String> types() {
+        Snapshot current = snapshot;
+        long version = statisticsEngine.typeSetVersion();
+        if (current.version != version) {
+            List<String> sorted = statisticsEngine.activeTypes().stream().sorted().toList();
+            current = new Snapshot(version, sorted);
+            snapshot = current;
+        }
+        return current.types;
+    }
+
+    /**
+     * Mã của type để lọc theo product.type_id: null khi không lọc theo type,
+     * UNKNOWN_TYPE_ID khi type chưa từng được ghi (không cache, type có thể được tạo ngay sau đó)
+     */
+    public Integer idOf(String type) {
+        if (type == null) {
+            return null;
+        }
+        if (!loaded) {
+            productTypeRepository.findAll().forEach(productType -> ids.put(productType.getName(), productType.getId()));
+            loaded = true;
+        }
+        Integer id = ids.get(type);
+        if (id != null) {
+            return id;
+        }
+        return productTypeRepository.findByName(type)
+                .map(ProductType::getId)
+                .map(found -> {
+                    ids.put(type, found);
+                    return found;
+                })
+                .orElse(UNKNOWN_TYPE_ID);
+    }
+
+    private record Snapshot(long version, List<String> types) {
+    }
+}
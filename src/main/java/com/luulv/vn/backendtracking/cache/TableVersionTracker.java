@@ -0,0 +1,155 @@
+package com.luulv.vn.backendtracking.cache;
+
+import com.luulv.vn.backendtracking.datasource.VersionedReads;
+import com.luulv.vn.backendtracking.event.ProductChangeEvent;
+import com.luulv.vn.backendtracking.event.ProductsImportedEvent;
+import com.luulv.vn.backendtracking.event.UserChangeEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Phiên bản dữ liệu của từng bảng, lưu trong bảng table_version nên giống nhau trên mọi node và qua các lần restart.
+ * Các endpoint đọc dùng nó làm ETag để trả 304 mà không cần truy vấn DB hay serialize JSON, kể cả khi client
+ * được load balancer chuyển sang node khác.
+ * <p>
+ * Mỗi transaction ghi tăng phiên bản ngay trước commit (UPDATE giữ khóa dòng tới commit nên các phiên bản nối tiếp
+ * theo đúng thứ tự commit) và node ghi áp phiên bản mới sau commit; node khác đọc lại khi nhận tin NOTIFY
+ * (InvalidationListener). Phiên bản trong bộ nhớ chỉ tăng, được nạp từ DB ở lần dùng đầu tiên.
+ * <p>
+ * ETag là weak (W/"..."): Tomcat không nén response có ETag mạnh, và phiên bản bảng chỉ nói dữ liệu tương đương,
+ * không đảm bảo từng byte giống nhau (bản nén và không nén, thứ tự field).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TableVersionTracker {
+
+    public static final String PRODUCT = "product";
+    public static final String USER = "users";
+
+    static final String LOAD_SQL = "SELECT COALESCE(MAX(version), 0) FROM table_version WHERE table_name = ?";
+
+    static final String BUMP_SQL = "INSERT INTO table_version (table_name, version) VALUES (?, 1) " +
+            "ON CONFLICT (table_name) DO UPDATE SET version = table_version.version + 1 RETURNING version";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    // System.nanoTime() của lần đổi phiên bản gần nhất (bảng bất kỳ), Long.MIN_VALUE nếu chưa có
+    private volatile long lastBumpNanos = Long.MIN_VALUE;
+
+    public long version(String table) {
+        return counter(table).get();
+    }
+
+    /**
+     * Áp phiên bản đã commit của bảng (ghi trên node này hoặc đọc lại sau tin từ node khác), bỏ qua nếu cũ hơn
+     */
+    public void advance(String table, long version) {
+        lastBumpNanos = System.nanoTime();
+        counter(table).accumulateAndGet(version, Math::max);
+    }
+
+    /**
+     * Có bảng nào thay đổi (trên node này hoặc báo từ node khác) trong khoảng window vừa qua không
+     */
+    public boolean changedWithin(Duration window) {
+        long last = lastBumpNanos;
+        return last != Long.MIN_VALUE && System.nanoTime() - last < window.toNanos();
+    }
+
+    /**
+     * ETag (weak) cho dữ liệu của bảng. Phần đọc còn lại của request được đánh dấu để không đọc từ replica
+     * còn trễ hơn phiên bản này (VersionedReads)
+     */
+    public String etag(String table) {
+        VersionedReads.markRequest();
+        return "W/\"" + table + "-" + version(table) + "\"";
+    }
+
+    /**
+     * ETag khi cùng dữ liệu có nhiều biểu diễn (ví dụ JSON và NDJSON, hoặc phụ thuộc ngày hiện tại)
+     */
+    public String etag(String table, String variant) {
+        VersionedReads.markRequest();
+        return "W/\"" + table + "-" + version(table) + "-" + variant + "\"";
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangeEvent event) {
+        record(PRODUCT);
+    }
+
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        record(PRODUCT);
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangeEvent event) {
+        record(USER);
+    }
+
+    private void record(String table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            advance(table, bump(table));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<String> tables = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (tables == null) {
+            // Sắp xếp theo tên để hai transaction ghi cùng hai bảng luôn khóa các dòng table_version theo cùng thứ tự
+            Set<String> pending = new TreeSet<>();
+            Map<String, Long> bumped = new TreeMap<>();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    pending.forEach(name -> bumped.put(name, bump(name)));
+                }
+
+                // Áp sau commit: nếu áp trước, request đọc xen giữa sẽ gắn ETag mới cho dữ liệu cũ.
+                // Chạy trước lần xóa cache sau commit của NearCacheInvalidator để lần nạp lại ngay sau đó đã đọc primary
+                @Override
+                public void afterCommit() {
+                    bumped.forEach(TableVersionTracker.this::advance);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TableVersionTracker.this);
+                }
+
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+            });
+            tables = pending;
+        }
+        tables.add(table);
+    }
+
+    private long bump(String table) {
+        return jdbcTemplate.queryForObject(BUMP_SQL, Long.class, table);
+    }
+
+    private AtomicLong counter(String table) {
+        return versions.computeIfAbsent(table, key -> new AtomicLong(jdbcTemplate.queryForObject(LOAD_SQL, Long.class, key)));
+    }
+}
@@ -0,0 +1,34 @@
+package com.luulv.vn.backendtracking.config;
+
+import com.luulv.vn.backendtracking.cache.ApproximateCounter;
+import com.luulv.vn.backendtracking.cache.NearCache;
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import com.luulv.vn.backendtracking.dto.UserResponseDTO;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    @Bean
+    public NearCache<Integer, ProductResponseDto> productCache(CacheProperties properties) {
+        return create("product", properties.getProduct());
+    }
+
+    @Bean
+    public NearCache<Integer, UserResponseDTO> userCache(CacheProperties properties) {
+        return create("user", properties.getUser());
+    }
+
+    @Bean
+    public ApproximateCounter approximateCounter(JdbcTemplate jdbcTemplate, CacheProperties properties) {
+        return new ApproximateCounter(jdbcTemplate, properties.getCount().getMaximumSize(), properties.getCount().getTtl());
+    }
+
+    private static <V> NearCache<Integer, V> create(String name, CacheProperties.Spec spec) {
+        return new NearCache<>(name, spec.getMaximumSize(), spec.getTtl(), spec.getNegativeTtl());
+    }
+}
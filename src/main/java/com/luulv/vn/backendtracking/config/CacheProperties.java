@@ -0,0 +1,41 @@
+package com.luulv.vn.backendtracking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "tracking.cache")
+public class CacheProperties {
+
+    private Spec product = new Spec();
+    private Spec user = new Spec();
+    // Tổng số dòng gần đúng cho phân trang (CountMode.APPROXIMATE), ttl là độ cũ tối đa của tổng
+    private Spec count = new Spec();
+    private Invalidation invalidation = new Invalidation();
+
+    @Data
+    public static class Spec {
+        // Số phần tử tối đa, vượt quá sẽ bị evict
+        private long maximumSize = 10_000;
+        // Thời gian sống của phần tử có dữ liệu
+        private Duration ttl = Duration.ofMinutes(5);
+        // Thời gian sống của kết quả "không tìm thấy"
+        private Duration negativeTtl = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Invalidation {
+        // Bật khi chạy nhiều node: đồng bộ xóa cache qua PostgreSQL LISTEN/NOTIFY
+        private boolean enabled = false;
+        private String channel = "tracking_invalidation";
+        // Sau tin đầu tiên, chờ thêm tối đa khoảng này để gom tin trước khi xóa cache
+        private Duration batchWindow = Duration.ofMillis(50);
+        // Transaction đổi nhiều id hơn thì gửi một tin xóa toàn bộ bảng
+        private int maxIdsPerMessage = 500;
+        // Khoảng cách tối thiểu giữa hai lần tải lại bộ đếm thống kê do node khác ghi
+        private Duration statisticsRefreshInterval = Duration.ofSeconds(2);
+        private Duration reconnectDelay = Duration.ofSeconds(5);
+    }
+}
@@ -0,0 +1,134 @@
+package com.luulv.vn.backendtracking.config;
+
+import com.luulv.vn.backendtracking.cache.TableVersionTracker;
+import com.luulv.vn.backendtracking.datasource.ReadReplicaDataSource;
+import com.luulv.vn.backendtracking.datasource.ReadYourWritesFilter;
+import com.luulv.vn.backendtracking.datasource.ReadYourWritesTracker;
+import com.luulv.vn.backendtracking.datasource.ReplicaSet;
+import com.luulv.vn.backendtracking.datasource.WriteTrackingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.function.SingletonSupplier;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Tách đọc/ghi: transaction @Transactional(readOnly = true) (kể cả các method đọc của Spring Data repository)
+ * lấy connection từ replica, còn lại đi primary.
+ * DataSource primary được bọc bằng LazyConnectionDataSourceProxy để connection chỉ được lấy khi chạy câu SQL đầu tiên,
+ * lúc đó cờ readOnly của transaction đã được đặt nên mới chọn đúng nguồn.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+@ConditionalOnProperty(prefix = "tracking.datasource.routing", name = "enabled", havingValue = "true")
+@Slf4j
+public class DataSourceRoutingConfig {
+
+    private static final long MAX_TRACKED_CLIENTS = 100_000;
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(DataSourceRoutingProperties properties) {
+        return new ReadYourWritesTracker(MAX_TRACKED_CLIENTS, properties.getReadYourWritesWindow());
+    }
+
+    @Bean
+    public ReplicaSet replicaSet(DataSourceRoutingProperties properties, DataSourceProperties primary,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        List<ReplicaSet.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            DataSourceRoutingProperties.Replica replica = properties.getReplicas().get(i);
+            String name = replica.getName() != null ? replica.getName() : "replica-" + (i + 1);
+
+            HikariConfig config = new HikariConfig();
+            config.setPoolName(name);
+            config.setJdbcUrl(replica.getUrl());
+            config.setUsername(replica.getUsername() != null ? replica.getUsername() : primary.getUsername());
+            config.setPassword(replica.getPassword() != null ? replica.getPassword() : primary.getPassword());
+            config.setDriverClassName(primary.getDriverClassName());
+            config.setMaximumPoolSize(replica.getMaximumPoolSize());
+            config.setMinimumIdle(replica.getMinimumIdle());
+            config.setConnectionTimeout(replica.getConnectionTimeout().toMillis());
+            config.setReadOnly(true);
+            // Replica chưa lên thì app vẫn khởi động, đọc tạm từ primary
+            config.setInitializationFailTimeout(-1);
+            meterRegistry.ifAvailable(registry -> config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(new ReplicaSet.Replica(name, new HikariDataSource(config)));
+        }
+        log.info("Read/write routing enabled with {} replicas, read-your-writes window {}",
+                replicas.size(), properties.getReadYourWritesWindow());
+        return new ReplicaSet(replicas, properties.getMaxReplicationLag(), properties.getValidationTimeout());
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(DataSourceRoutingProperties properties) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(properties.getClientHeader()));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Bean
+    public static BeanPostProcessor readWriteRoutingPostProcessor(ObjectProvider<ReplicaSet> replicaSet,
+                                                                  ObjectProvider<ReadYourWritesTracker> tracker,
+                                                                  ObjectProvider<TableVersionTracker> tableVersions,
+                                                                  ObjectProvider<DataSourceRoutingProperties> properties) {
+        return new RoutingPostProcessor(replicaSet, tracker, tableVersions, properties);
+    }
+
+    // Order 5: sau bộ giới hạn connection (0, chỉ áp cho primary) và trước lớp đếm SQL (10) để đếm cả câu chạy trên replica
+    private static final class RoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<ReplicaSet> replicaSet;
+        private final ObjectProvider<ReadYourWritesTracker> tracker;
+        private final ObjectProvider<TableVersionTracker> tableVersions;
+        private final ObjectProvider<DataSourceRoutingProperties> properties;
+
+        private RoutingPostProcessor(ObjectProvider<ReplicaSet> replicaSet, ObjectProvider<ReadYourWritesTracker> tracker,
+                                     ObjectProvider<TableVersionTracker> tableVersions,
+                                     ObjectProvider<DataSourceRoutingProperties> properties) {
+            this.replicaSet = replicaSet;
+            this.tracker = tracker;
+            this.tableVersions = tableVersions;
+            this.properties = properties;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource primary) || bean instanceof LazyConnectionDataSourceProxy) {
+                return bean;
+            }
+            ReadYourWritesTracker writes = tracker.getObject();
+            LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(
+                    new WriteTrackingDataSource(primary, writes));
+            // Replica khỏe trễ tối đa maxReplicationLag: thay đổi cũ hơn chắc chắn đã được replay.
+            // TableVersionTracker được lấy khi có lần đọc đầu tiên, không ép khởi tạo sớm lúc đang tạo DataSource
+            Duration window = properties.getObject().getMaxReplicationLag();
+            Supplier<TableVersionTracker> versions = SingletonSupplier.of(tableVersions::getObject);
+            routing.setReadOnlyDataSource(new ReadReplicaDataSource(primary, replicaSet.getObject(), writes,
+                    () -> versions.get().changedWithin(window)));
+            return routing;
+        }
+
+        @Override
+        public int getOrder() {
+            return 5;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.luulv.vn.backendtracking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "tracking.datasource.routing")
+public class DataSourceRoutingProperties {
+
+    // Bật để transaction readOnly đọc từ replica
+    private boolean enabled = false;
+    private List<Replica> replicas = new ArrayList<>();
+    // Sau khi một client ghi, các lần đọc của client đó trong khoảng này vẫn đi primary (0 = tắt)
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+    // Header định danh client, không có thì dùng địa chỉ IP
+    private String clientHeader = "X-Client-Id";
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    // Replica trễ hơn ngưỡng này bị coi như down cho tới lần kiểm tra sau
+    private Duration maxReplicationLag = Duration.ofSeconds(10);
+    private Duration validationTimeout = Duration.ofSeconds(1);
+
+    @Data
+    public static class Replica {
+        private String name;
+        private String url;
+        // Bỏ trống thì dùng spring.datasource.username/password
+        private String username;
+        private String password;
+        private int maximumPoolSize = 20;
+        private int minimumIdle = 5;
+        // Ngắn để chuyển sang replica khác / primary nhanh khi replica không phản hồi
+        private Duration connectionTimeout = Duration.ofSeconds(2);
+    }
+}
@@ -0,0 +1,118 @@
+package com.luulv.vn.backendtracking.config;
+
+import com.luulv.vn.backendtracking.cache.ApproximateCounter;
+import com.luulv.vn.backendtracking.cache.InvalidationListener;
+import com.luulv.vn.backendtracking.cache.NearCache;
+import com.luulv.vn.backendtracking.datasource.ConnectionLimitingDataSource;
+import com.luulv.vn.backendtracking.datasource.ReplicaSet;
+import com.luulv.vn.backendtracking.event.ProductEventBroadcaster;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Metrics bổ sung ngoài phần Spring Boot tự cấu hình (HTTP, JVM/GC, Hikari, Spring Data repository):
+ * timer cho các class gắn @Timed, near cache, bộ giới hạn connection, tách đọc/ghi replica,
+ * đồng bộ cache giữa các node và SSE sự kiện sản phẩm.
+ */
+@Configuration
+@Slf4j
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder nearCacheMetrics(List<NearCache<?, ?>> caches) {
+        return registry -> caches.forEach(cache ->
+                CaffeineCacheMetrics.monitor(registry, cache.getNativeCache(), cache.getName()));
+    }
+
+    @Bean
+    public MeterBinder approximateCountMetrics(ApproximateCounter counter) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, counter.getNativeCache(), "approximate-count");
+    }
+
+    @Bean
+    public MeterBinder connectionLimiterMetrics(DataSource dataSource) {
+        return registry -> {
+            ConnectionLimitingDataSource limiter;
+            try {
+                if (!dataSource.isWrapperFor(ConnectionLimitingDataSource.class)) {
+                    return;
+                }
+                limiter = dataSource.unwrap(ConnectionLimitingDataSource.class);
+            } catch (SQLException e) {
+                log.warn("Could not inspect DataSource for connection limiter metrics: {}", e.getMessage());
+                return;
+            }
+            Gauge.builder("tracking.datasource.limiter.available", limiter, ConnectionLimitingDataSource::getAvailablePermits)
+                    .description("Số connection còn được phép lấy")
+                    .register(registry);
+            Gauge.builder("tracking.datasource.limiter.waiting", limiter, ConnectionLimitingDataSource::getWaiting)
+                    .description("Số thread đang xếp hàng chờ connection")
+                    .register(registry);
+            Gauge.builder("tracking.datasource.limiter.rejected", limiter, ConnectionLimitingDataSource::getRejected)
+                    .description("Tổng số lần lấy connection bị từ chối")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder readReplicaMetrics(ObjectProvider<ReplicaSet> replicaSet) {
+        return registry -> replicaSet.ifAvailable(replicas -> {
+            Gauge.builder("tracking.datasource.replicas.healthy", replicas, ReplicaSet::getHealthyCount)
+                    .description("Số replica đang nhận đọc")
+                    .register(registry);
+            FunctionCounter.builder("tracking.datasource.reads", replicas, ReplicaSet::getReplicaReads)
+                    .tag("target", "replica")
+                    .description("Số connection readOnly theo nơi được lấy")
+                    .register(registry);
+            FunctionCounter.builder("tracking.datasource.reads", replicas, ReplicaSet::getStickyReads)
+                    .tag("target", "primary-read-your-writes")
+                    .description("Số connection readOnly theo nơi được lấy")
+                    .register(registry);
+            FunctionCounter.builder("tracking.datasource.reads", replicas, ReplicaSet::getVersionedReads)
+                    .tag("target", "primary-versioned")
+                    .description("Số connection readOnly theo nơi được lấy")
+                    .register(registry);
+            FunctionCounter.builder("tracking.datasource.reads", replicas, ReplicaSet::getFallbackReads)
+                    .tag("target", "primary-fallback")
+                    .description("Số connection readOnly theo nơi được lấy")
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder cacheInvalidationMetrics(ObjectProvider<InvalidationListener> listener) {
+        return registry -> listener.ifAvailable(invalidations ->
+                FunctionCounter.builder("tracking.cache.invalidation.received", invalidations, InvalidationListener::getReceived)
+                        .description("Số tin xóa cache nhận từ node khác")
+                        .register(registry));
+    }
+
+    @Bean
+    public MeterBinder productEventMetrics(ProductEventBroadcaster broadcaster) {
+        return registry -> {
+            Gauge.builder("tracking.product-events.subscribers", broadcaster, ProductEventBroadcaster::getSubscriberCount)
+                    .description("Số client SSE đang kết nối")
+                    .register(registry);
+            FunctionCounter.builder("tracking.product-events.dropped", broadcaster, ProductEventBroadcaster::getDropped)
+                    .description("Số client SSE bị ngắt vì đọc chậm")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package com.luulv.vn.backendtracking.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luulv.vn.backendtracking.event.ProductEventBroadcaster;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ProductEventProperties.class)
+public class ProductEventConfig {
+
+    @Bean
+    public ProductEventBroadcaster productEventBroadcaster(ProductEventProperties properties, ObjectMapper objectMapper) {
+        return new ProductEventBroadcaster(properties, objectMapper);
+    }
+}
@@ -0,0 +1,25 @@
+package com.luulv.vn.backendtracking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "tracking.product-events")
+public class ProductEventProperties {
+
+    // Số sự kiện gần nhất giữ lại để client kết nối lại với Last-Event-ID nhận bù
+    private int replaySize = 1000;
+    // Hàng đợi riêng của mỗi subscriber, đầy thì ngắt kết nối subscriber đó (client tự kết nối lại và nhận bù)
+    private int queueSize = 256;
+    private int maxSubscribers = 10_000;
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+    // Hết hạn thì đóng stream, EventSource tự kết nối lại
+    private Duration timeout = Duration.ofMinutes(30);
+    // Thời gian client chờ trước khi kết nối lại (trường retry của SSE)
+    private Duration reconnectDelay = Duration.ofSeconds(3);
+    private int senderThreads = 16;
+    // Transaction thay đổi nhiều sản phẩm hơn số này (ví dụ bulk import) phát một sự kiện "reset" thay cho từng sản phẩm
+    private int bulkThreshold = 100;
+}
@@ -0,0 +1,10 @@
+package com.luulv.vn.backendtracking.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    // Bật @Scheduled cho các job nền (đối soát thống kê, ...)
+}
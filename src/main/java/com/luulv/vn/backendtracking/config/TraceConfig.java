@@ -0,0 +1,51 @@
+package com.luulv.vn.backendtracking.config;
+
+import com.luulv.vn.backendtracking.trace.SqlTraceListener;
+import com.luulv.vn.backendtracking.trace.TraceTaskDecorator;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.TaskDecorator;
+
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(TraceProperties.class)
+public class TraceConfig {
+
+    // Boot tự gắn TaskDecorator này vào executor mặc định (MVC async, @Async)
+    @Bean
+    public TaskDecorator traceTaskDecorator() {
+        return new TraceTaskDecorator();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tracking.trace", name = "sql-enabled", havingValue = "true", matchIfMissing = true)
+    public static BeanPostProcessor sqlTracePostProcessor() {
+        return new SqlTracePostProcessor();
+    }
+
+    // Chạy sau bộ giới hạn connection (order 0) để bọc ngoài cùng
+    private static final class SqlTracePostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+                return bean;
+            }
+            return ProxyDataSourceBuilder.create(beanName, dataSource)
+                    .listener(new SqlTraceListener())
+                    .build();
+        }
+
+        @Override
+        public int getOrder() {
+            return 10;
+        }
+    }
+}
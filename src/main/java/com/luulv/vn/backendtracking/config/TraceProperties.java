@@ -0,0 +1,23 @@
+package com.luulv.vn.backendtracking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "tracking.trace")
+public class TraceProperties {
+
+    // Bật đếm câu SQL theo request (bọc DataSource bằng datasource-proxy)
+    private boolean sqlEnabled = true;
+    // Header nhận/trả trace ID
+    private String header = "X-Trace-Id";
+    // Request chậm hơn ngưỡng này bị log kèm SQL
+    private Duration slowRequestThreshold = Duration.ofSeconds(1);
+    // Request chạy nhiều câu SQL hơn ngưỡng này bị log kèm SQL (dấu hiệu N+1)
+    private int maxStatements = 20;
+    // Số câu SQL tối đa giữ lại cho mỗi request để in log
+    private int maxCapturedStatements = 50;
+    private int maxSqlLength = 1000;
+}
@@ -0,0 +1,23 @@
+package com.luulv.vn.backendtracking.config;
+
+import com.luulv.vn.backendtracking.tracking.HostThrottle;
+import com.luulv.vn.backendtracking.tracking.UrlFetcher;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(TrackingProperties.class)
+public class TrackingConfig {
+
+    @Bean
+    public UrlFetcher urlFetcher(TrackingProperties properties) {
+        return new UrlFetcher(properties.getConnectTimeout(), properties.getRequestTimeout(),
+                properties.getUserAgent(), properties.getMaxBodyBytes());
+    }
+
+    @Bean
+    public HostThrottle hostThrottle(TrackingProperties properties) {
+        return new HostThrottle(properties.getMaxConcurrentPerHost(), properties.getMaxRequestsPerSecondPerHost());
+    }
+}
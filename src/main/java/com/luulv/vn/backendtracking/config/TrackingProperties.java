@@ -0,0 +1,37 @@
+package com.luulv.vn.backendtracking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "tracking.engine")
+public class TrackingProperties {
+
+    // Tắt mặc định, chạy thủ công được qua POST /api/tracking/run
+    private boolean enabled = false;
+    private Duration interval = Duration.ofMinutes(1);
+    private Duration initialDelay = Duration.ofSeconds(30);
+    // Tổng số request đang chạy đồng thời trên toàn node
+    private int maxConcurrent = 500;
+    // Giới hạn riêng cho từng host để không dồn tải vào một website
+    private int maxConcurrentPerHost = 4;
+    private double maxRequestsPerSecondPerHost = 5.0;
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private Duration requestTimeout = Duration.ofSeconds(15);
+    // Chỉ đọc tối đa chừng này byte của body để tính hash nội dung
+    private int maxBodyBytes = 2 * 1024 * 1024;
+    private String userAgent = "backend-tracking/1.0";
+    // Số bản ghi trạng thái ghi xuống DB mỗi lần batch
+    private int stateBatchSize = 500;
+    private Snapshot snapshot = new Snapshot();
+
+    @Data
+    public static class Snapshot {
+        // Lưu lịch sử nội dung khi trang thay đổi
+        private boolean enabled = true;
+        // Số phiên bản tối đa giữa hai keyframe (bản đầy đủ)
+        private int keyframeInterval = 20;
+    }
+}
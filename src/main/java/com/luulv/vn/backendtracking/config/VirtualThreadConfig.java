@@ -0,0 +1,61 @@
+package com.luulv.vn.backendtracking.config;
+
+import com.luulv.vn.backendtracking.datasource.ConnectionLimitingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+/**
+ * Cấu hình cho chế độ virtual thread (profile "vthreads", xem application.yml).
+ * Tomcat/@Async/@Scheduled chạy trên virtual thread nhờ spring.threads.virtual.enabled;
+ * class này bổ sung bộ giới hạn connection đặt trước Hikari.
+ */
+@Configuration
+@EnableConfigurationProperties(VirtualThreadProperties.class)
+@Slf4j
+public class VirtualThreadConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tracking.virtual-threads.connection-limiter", name = "enabled", havingValue = "true")
+    public static BeanPostProcessor connectionLimiterPostProcessor(Environment environment) {
+        return new ConnectionLimiterPostProcessor(environment);
+    }
+
+    // Order 0: bọc trực tiếp HikariDataSource, trước các lớp bọc khác (ví dụ đếm SQL)
+    private static final class ConnectionLimiterPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final Environment environment;
+
+        private ConnectionLimiterPostProcessor(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof HikariDataSource hikari)) {
+                return bean;
+            }
+            VirtualThreadProperties.ConnectionLimiter limiter = Binder.get(environment)
+                    .bind("tracking.virtual-threads.connection-limiter", VirtualThreadProperties.ConnectionLimiter.class)
+                    .orElseGet(VirtualThreadProperties.ConnectionLimiter::new);
+            int maxConcurrent = limiter.getMaxConcurrent() > 0
+                    ? limiter.getMaxConcurrent() : hikari.getMaximumPoolSize();
+            log.info("Connection limiter enabled for '{}': maxConcurrent={}, maxWaiting={}, acquireTimeout={}",
+                    beanName, maxConcurrent, limiter.getMaxWaiting(), limiter.getAcquireTimeout());
+            return new ConnectionLimitingDataSource(hikari, maxConcurrent,
+                    limiter.getMaxWaiting(), limiter.getAcquireTimeout());
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+    }
+}
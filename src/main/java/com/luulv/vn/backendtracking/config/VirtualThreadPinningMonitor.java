@@ -0,0 +1,67 @@
+package com.luulv.vn.backendtracking.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Theo dõi sự kiện JFR jdk.VirtualThreadPinned (virtual thread bị giữ chặt carrier thread,
+ * thường do synchronized quanh I/O) và log vài frame đầu của stack để tìm nguyên nhân.
+ */
+@Component
+@ConditionalOnProperty(prefix = "tracking.virtual-threads.pinning-monitor", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final int LOGGED_FRAMES = 8;
+
+    private final VirtualThreadProperties properties;
+
+    private final AtomicLong pinnedCount = new AtomicLong();
+
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned")
+                .withThreshold(properties.getPinningMonitor().getThreshold())
+                .withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        stream.startAsync();
+        log.info("Virtual thread pinning monitor started (threshold {})", properties.getPinningMonitor().getThreshold());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    public long getPinnedCount() {
+        return pinnedCount.get();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCount.incrementAndGet();
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        String stack = frames.stream()
+                .limit(LOGGED_FRAMES)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber())
+                .collect(Collectors.joining(" <- "));
+        log.warn("Virtual thread pinned for {} ms: {}", event.getDuration().toMillis(), stack);
+    }
+}
@@ -0,0 +1,32 @@
+package com.luulv.vn.backendtracking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "tracking.virtual-threads")
+public class VirtualThreadProperties {
+
+    private ConnectionLimiter connectionLimiter = new ConnectionLimiter();
+    private PinningMonitor pinningMonitor = new PinningMonitor();
+
+    @Data
+    public static class ConnectionLimiter {
+        private boolean enabled = false;
+        // Số connection giữ đồng thời tối đa, 0 = bằng maximum-pool-size của Hikari
+        private int maxConcurrent = 0;
+        // Số thread được phép xếp hàng chờ, vượt quá thì trả lỗi ngay
+        private int maxWaiting = 2000;
+        // Nên ngắn hơn hikari.connection-timeout để request quá tải thất bại sớm
+        private Duration acquireTimeout = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class PinningMonitor {
+        private boolean enabled = false;
+        // Chỉ ghi nhận các lần virtual thread bị pin lâu hơn ngưỡng này
+        private Duration threshold = Duration.ofMillis(20);
+    }
+}
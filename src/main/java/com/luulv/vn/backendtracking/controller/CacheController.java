@@ -0,0 +1,29 @@
+package com.luulv.vn.backendtracking.controller;
+
+import com.luulv.vn.backendtracking.cache.NearCache;
+import com.luulv.vn.backendtracking.dto.ApiResponse;
+import com.luulv.vn.backendtracking.dto.CacheStatsDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final List<NearCache<?, ?>> caches;
+
+    /**
+     * Thống kê hit/miss/eviction của các cache
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<List<CacheStatsDto>>> stats() {
+        List<CacheStatsDto> stats = caches.stream().map(NearCache::stats).toList();
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+}
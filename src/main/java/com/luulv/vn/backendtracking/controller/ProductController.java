@@ -1,22 +1,44 @@
 package com.luulv.vn.backendtracking.controller;
 
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.luulv.vn.backendtracking.cache.TableVersionTracker;
 import com.luulv.vn.backendtracking.dto.ApiResponse;
+import com.luulv.vn.backendtracking.dto.BulkImportResultDto;
+import com.luulv.vn.backendtracking.dto.CountMode;
+import com.luulv.vn.backendtracking.dto.CursorPage;
 import com.luulv.vn.backendtracking.dto.ProductRequestDto;
 import com.luulv.vn.backendtracking.dto.ProductResponseDto;
 import com.luulv.vn.backendtracking.dto.ProductSearchRequestDto;
+import com.luulv.vn.backendtracking.dto.UrlSearchResultDto;
 import com.luulv.vn.backendtracking.dto.UserResponseDTO;
 import com.luulv.vn.backendtracking.dto.UserSearchRequest;
+import com.luulv.vn.backendtracking.event.ProductEventBroadcaster;
+import com.luulv.vn.backendtracking.search.UrlSearchMode;
+import com.luulv.vn.backendtracking.service.ProductBulkImportService;
 import com.luulv.vn.backendtracking.service.ProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 @RestController
 @RequestMapping("/api/products")
@@ -24,8 +46,18 @@ import java.util.List;
 @Slf4j
 public class ProductController {
 
+    private static final int STREAM_FLUSH_EVERY = 1000;
+
     private final ProductService productService;
 
+    private final ProductBulkImportService bulkImportService;
+
+    private final ObjectMapper objectMapper;
+
+    private final TableVersionTracker tableVersions;
+
+    private final ProductEventBroadcaster eventBroadcaster;
+
     /**
      * Tạo sản phẩm mới
      */
@@ -33,7 +65,7 @@ public class ProductController {
     public ResponseEntity<ApiResponse<ProductResponseDto>> createProduct(
             @Valid @RequestBody ProductRequestDto requestDto) {
 
-        log.info("Received request to create product: {}", requestDto);
+        log.info("Received request to create product with URL: {}", requestDto.getUrl());
 
         try {
             ProductResponseDto product = productService.createProduct(requestDto);
@@ -46,13 +78,58 @@ public class ProductController {
         }
     }
 
+    /**
+     * Import nhiều sản phẩm từ JSON array
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<BulkImportResultDto>> bulkImport(
+            @RequestBody List<ProductRequestDto> requests) {
+
+        log.info("Received request to bulk import {} products", requests.size());
+        return doBulkImport(requests);
+    }
+
+    /**
+     * Import nhiều sản phẩm từ NDJSON, mỗi dòng một sản phẩm
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ApiResponse<BulkImportResultDto>> bulkImportNdjson(InputStream body) {
+        List<ProductRequestDto> requests;
+        try (MappingIterator<ProductRequestDto> rows = objectMapper.readerFor(ProductRequestDto.class).readValues(body)) {
+            requests = rows.readAll();
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Dữ liệu NDJSON không hợp lệ", e.getMessage()));
+        }
+
+        log.info("Received request to bulk import {} products (NDJSON)", requests.size());
+        return doBulkImport(requests);
+    }
+
+    private ResponseEntity<ApiResponse<BulkImportResultDto>> doBulkImport(List<ProductRequestDto> requests) {
+        try {
+            BulkImportResultDto result = bulkImportService.importProducts(requests);
+            return ResponseEntity.ok(ApiResponse.success("Import sản phẩm hoàn tất", result));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Import sản phẩm thất bại", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error bulk importing products: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Import sản phẩm thất bại", e.getMessage()));
+        }
+    }
+
     /**
      * Lấy tất cả sản phẩm
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<ProductResponseDto>>> getAllProducts() {
+    public ResponseEntity<ApiResponse<List<ProductResponseDto>>> getAllProducts(WebRequest request) {
         log.info("Received request to get all products");
 
+        if (request.checkNotModified(ResponseEtags.negotiated(tableVersions, TableVersionTracker.PRODUCT, request))) {
+            return null;
+        }
         try {
             List<ProductResponseDto> products = productService.getAllProducts();
             return ResponseEntity.ok(ApiResponse.success(products));
@@ -63,13 +140,93 @@ public class ProductController {
         }
     }
 
+    /**
+     * Lấy tất cả sản phẩm dạng NDJSON khi client gửi Accept: application/x-ndjson
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getAllProductsAsNdjson(WebRequest request) {
+        return streamProducts(request);
+    }
+
+    /**
+     * Stream tất cả sản phẩm dạng NDJSON, mỗi dòng một sản phẩm
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamProducts(WebRequest request) {
+        log.info("Received request to stream all products");
+
+        if (request.checkNotModified(ResponseEtags.fixed(tableVersions, TableVersionTracker.PRODUCT, request, "ndjson"))) {
+            return null;
+        }
+        ObjectWriter writer = objectMapper.writerFor(ProductResponseDto.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n");
+
+        StreamingResponseBody body = outputStream -> {
+            AtomicLong written = new AtomicLong();
+            try (SequenceWriter sequence = writer.writeValues(outputStream)) {
+                productService.streamAllProducts(product -> {
+                    try {
+                        sequence.write(product);
+                        if (written.incrementAndGet() % STREAM_FLUSH_EVERY == 0) {
+                            sequence.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                log.warn("Client aborted product stream after {} rows: {}", written.get(), e.getMessage());
+                return;
+            }
+            if (written.get() > 0) {
+                outputStream.write('\n');
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Nhận thay đổi sản phẩm (created/updated/deleted/toggled) qua Server-Sent Events thay cho việc poll danh sách.
+     * EventSource tự gửi Last-Event-ID khi kết nối lại để nhận bù; sự kiện "reset" nghĩa là cần tải lại danh sách.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamProductEvents(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Integer isNotify,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+
+        log.debug("Received request to subscribe to product events - type: {}, isNotify: {}, lastEventId: {}",
+                type, isNotify, lastEventId);
+
+        try {
+            SseEmitter emitter = eventBroadcaster.subscribe(new ProductEventBroadcaster.Filter(type, isNotify), lastEventId);
+            return ResponseEntity.ok()
+                    .header("X-Accel-Buffering", "no")
+                    .body(emitter);
+        } catch (IllegalStateException e) {
+            log.warn("Rejected product event subscription: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
+    }
+
     /**
      * Lấy sản phẩm theo ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<ProductResponseDto>> getProductById(@PathVariable Integer id) {
+    public ResponseEntity<ApiResponse<ProductResponseDto>> getProductById(
+            @PathVariable Integer id, WebRequest request) {
+
         log.info("Received request to get product with ID: {}", id);
 
+        if (request.checkNotModified(ResponseEtags.negotiated(tableVersions, TableVersionTracker.PRODUCT, request))) {
+            return null;
+        }
         try {
             ProductResponseDto product = productService.getProductById(id);
             return ResponseEntity.ok(ApiResponse.success(product));
@@ -120,9 +277,14 @@ public class ProductController {
      * Lấy sản phẩm theo type
      */
     @GetMapping("/type/{type}")
-    public ResponseEntity<ApiResponse<List<ProductResponseDto>>> getProductsByType(@PathVariable String type) {
+    public ResponseEntity<ApiResponse<List<ProductResponseDto>>> getProductsByType(
+            @PathVariable String type, WebRequest request) {
+
         log.info("Received request to get products with type: {}", type);
 
+        if (request.checkNotModified(ResponseEtags.negotiated(tableVersions, TableVersionTracker.PRODUCT, request))) {
+            return null;
+        }
         try {
             List<ProductResponseDto> products = productService.getProductsByType(type);
             return ResponseEntity.ok(ApiResponse.success(products));
@@ -154,19 +316,24 @@ public class ProductController {
      * Lấy sản phẩm với pagination
      */
     @GetMapping("/paginated")
-    public ResponseEntity<ApiResponse<Page<ProductResponseDto>>> getProductsWithPagination(
+    public ResponseEntity<ApiResponse<Slice<ProductResponseDto>>> getProductsWithPagination(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
             @RequestParam(required = false) String type,
-            @RequestParam(required = false) Integer isNotify) {
+            @RequestParam(required = false) Integer isNotify,
+            @RequestParam(defaultValue = "EXACT") CountMode countMode,
+            WebRequest request) {
 
         log.info("Received request for paginated products - page: {}, size: {}", page, size);
 
+        if (request.checkNotModified(ResponseEtags.negotiated(tableVersions, TableVersionTracker.PRODUCT, request))) {
+            return null;
+        }
         try {
-            Page<ProductResponseDto> products = productService.getProductsWithPagination(
-                    type, isNotify, page, size, sortBy, sortDir);
+            Slice<ProductResponseDto> products = productService.getProductsWithPagination(
+                    type, isNotify, page, size, sortBy, sortDir, countMode);
             return ResponseEntity.ok(ApiResponse.success(products));
         } catch (Exception e) {
             log.error("Error fetching paginated products: ", e);
@@ -175,13 +342,49 @@ public class ProductController {
         }
     }
 
+    /**
+     * Lấy sản phẩm với phân trang cursor (keyset)
+     */
+    @GetMapping("/paginated/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponseDto>>> getProductsWithCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Integer isNotify,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            WebRequest request) {
+
+        log.info("Received request for cursor paginated products - size: {}, sortBy: {}", size, sortBy);
+
+        if (request.checkNotModified(ResponseEtags.negotiated(tableVersions, TableVersionTracker.PRODUCT, request))) {
+            return null;
+        }
+        try {
+            CursorPage<ProductResponseDto> products = productService.getProductsWithCursor(
+                    type, isNotify, size, sortBy, sortDir, cursor, includeTotal);
+            return ResponseEntity.ok(ApiResponse.success(products));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Tham số phân trang không hợp lệ", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error fetching cursor paginated products: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Lỗi khi lấy danh sách sản phẩm", e.getMessage()));
+        }
+    }
+
     /**
      * Lấy danh sách các type duy nhất
      */
     @GetMapping("/types")
-    public ResponseEntity<ApiResponse<List<String>>> getDistinctTypes() {
+    public ResponseEntity<ApiResponse<List<String>>> getDistinctTypes(WebRequest request) {
         log.info("Received request to get distinct product types");
 
+        if (request.checkNotModified(ResponseEtags.negotiated(tableVersions, TableVersionTracker.PRODUCT, request))) {
+            return null;
+        }
         try {
             List<String> types = productService.getDistinctTypes();
             return ResponseEntity.ok(ApiResponse.success(types));
@@ -192,13 +395,44 @@ public class ProductController {
         }
     }
 
+    /**
+     * Tìm kiếm sản phẩm theo URL (host, path, query), kết quả được xếp hạng
+     */
+    @GetMapping("/search/url")
+    public ResponseEntity<ApiResponse<List<UrlSearchResultDto>>> searchByUrl(
+            @RequestParam("q") String keyword,
+            @RequestParam(defaultValue = "SUBSTRING") UrlSearchMode mode,
+            @RequestParam(defaultValue = "20") int limit,
+            WebRequest request) {
+
+        log.info("Received request to search products by URL: {}, mode: {}", keyword, mode);
+
+        if (request.checkNotModified(ResponseEtags.negotiated(tableVersions, TableVersionTracker.PRODUCT, request))) {
+            return null;
+        }
+        try {
+            List<UrlSearchResultDto> results = productService.searchProductsByUrl(keyword, mode, limit);
+            return ResponseEntity.ok(ApiResponse.success(results));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Tham số tìm kiếm không hợp lệ", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error searching products by URL: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Lỗi khi tìm kiếm sản phẩm", e.getMessage()));
+        }
+    }
+
     /**
      * Lấy thống kê sản phẩm
      */
     @GetMapping("/statistics")
-    public ResponseEntity<ApiResponse<ProductService.ProductStatistics>> getStatistics() {
+    public ResponseEntity<ApiResponse<ProductService.ProductStatistics>> getStatistics(WebRequest request) {
         log.info("Received request to get product statistics");
 
+        if (request.checkNotModified(ResponseEtags.negotiated(tableVersions, TableVersionTracker.PRODUCT, request))) {
+            return null;
+        }
         try {
             ProductService.ProductStatistics stats = productService.getProductStatistics();
             return ResponseEntity.ok(ApiResponse.success(stats));
@@ -210,10 +444,23 @@ public class ProductController {
     }
 
     @PostMapping("/search")
-    public ResponseEntity<ApiResponse<Page<ProductResponseDto>>> search(
+    public ResponseEntity<ApiResponse<Slice<ProductResponseDto>>> search(
             @RequestBody ProductSearchRequestDto request
     ) {
-        Page<ProductResponseDto> response = productService.search(request);
+        Slice<ProductResponseDto> response = productService.search(request);
         return ResponseEntity.ok(ApiResponse.success(response));
     }
+
+    @PostMapping("/search/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponseDto>>> searchWithCursor(
+            @RequestBody ProductSearchRequestDto request
+    ) {
+        try {
+            CursorPage<ProductResponseDto> response = productService.searchWithCursor(request);
+            return ResponseEntity.ok(ApiResponse.success(response));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Tham số phân trang không hợp lệ", e.getMessage()));
+        }
+    }
 }
@@ -0,0 +1,90 @@
+package com.luulv.vn.backendtracking.controller;
+
+import com.luulv.vn.backendtracking.cache.TableVersionTracker;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ETag cho endpoint mà cùng URL trả nhiều định dạng theo header Accept (JSON, CBOR, Smile của MessageFormatConfig,
+ * NDJSON cho danh sách sản phẩm): mỗi định dạng một ETag riêng, và response (kể cả 304) có Vary: Accept
+ * để cache trung gian không trả bản CBOR cho client đòi JSON.
+ */
+final class ResponseEtags {
+
+    // Cùng thứ tự ưu tiên với converter của Spring khi Accept không chỉ rõ (*/*): JSON trước
+    private static final Map<MediaType, String> FORMATS = new LinkedHashMap<>();
+
+    static {
+        FORMATS.put(MediaType.APPLICATION_JSON, "json");
+        FORMATS.put(new MediaType("application", "x-jackson-smile"), "smile");
+        FORMATS.put(MediaType.APPLICATION_CBOR, "cbor");
+        FORMATS.put(MediaType.APPLICATION_NDJSON, "ndjson");
+    }
+
+    private static final String DEFAULT_FORMAT = "json";
+
+    private ResponseEtags() {
+    }
+
+    /**
+     * ETag của dữ liệu bảng theo định dạng mà header Accept chọn
+     */
+    static String negotiated(TableVersionTracker tableVersions, String table, WebRequest request) {
+        varyOnAccept(request);
+        return tableVersions.etag(table, format(request));
+    }
+
+    /**
+     * Như negotiated(tableVersions, table, request), thêm biến thể khác của dữ liệu (ví dụ ngày hiện tại)
+     */
+    static String negotiated(TableVersionTracker tableVersions, String table, WebRequest request, String variant) {
+        varyOnAccept(request);
+        return tableVersions.etag(table, format(request) + "-" + variant);
+    }
+
+    /**
+     * ETag của handler chỉ trả một định dạng nhưng cùng URL với handler khác được chọn theo Accept
+     */
+    static String fixed(TableVersionTracker tableVersions, String table, WebRequest request, String format) {
+        varyOnAccept(request);
+        return tableVersions.etag(table, format);
+    }
+
+    // Định dạng đầu tiên khớp Accept theo thứ tự q và độ cụ thể, như content negotiation của Spring
+    static String format(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return DEFAULT_FORMAT;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return DEFAULT_FORMAT;
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType type : accepted) {
+            for (Map.Entry<MediaType, String> format : FORMATS.entrySet()) {
+                if (type.isCompatibleWith(format.getKey())) {
+                    return format.getValue();
+                }
+            }
+        }
+        return DEFAULT_FORMAT;
+    }
+
+    private static void varyOnAccept(WebRequest request) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null
+                && !servletRequest.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT)) {
+            servletRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.luulv.vn.backendtracking.controller;
+
+import com.luulv.vn.backendtracking.dto.ApiResponse;
+import com.luulv.vn.backendtracking.dto.ProductSnapshotDto;
+import com.luulv.vn.backendtracking.dto.TrackingCycleReportDto;
+import com.luulv.vn.backendtracking.repository.ProductCheckStateRepository;
+import com.luulv.vn.backendtracking.tracking.ProductCheckState;
+import com.luulv.vn.backendtracking.tracking.ProductSnapshotStore;
+import com.luulv.vn.backendtracking.tracking.TrackingEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/tracking")
+@RequiredArgsConstructor
+@Slf4j
+public class TrackingController {
+
+    private final TrackingEngine trackingEngine;
+
+    private final ProductCheckStateRepository stateRepository;
+
+    private final ProductSnapshotStore snapshotStore;
+
+    /**
+     * Kết quả chu kỳ tracking gần nhất
+     */
+    @GetMapping("/status")
+    public ResponseEntity<ApiResponse<TrackingCycleReportDto>> status() {
+        TrackingCycleReportDto report = trackingEngine.getLastReport();
+        String message = trackingEngine.isRunning() ? "Đang chạy" : "Thành công";
+        return ResponseEntity.ok(ApiResponse.success(message, report));
+    }
+
+    /**
+     * Chạy ngay một chu kỳ tracking (đồng bộ)
+     */
+    @PostMapping("/run")
+    public ResponseEntity<ApiResponse<TrackingCycleReportDto>> run() {
+        log.info("Received request to run tracking cycle");
+
+        try {
+            TrackingCycleReportDto report = trackingEngine.runCycle();
+            return ResponseEntity.ok(ApiResponse.success("Chạy tracking hoàn tất", report));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Không thể chạy tracking", e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error("Tracking bị ngắt", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error running tracking cycle: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Chạy tracking thất bại", e.getMessage()));
+        }
+    }
+
+    /**
+     * Trạng thái kiểm tra gần nhất của một sản phẩm
+     */
+    @GetMapping("/products/{id}")
+    public ResponseEntity<ApiResponse<ProductCheckState>> productState(@PathVariable Integer id) {
+        return stateRepository.findByProductId(id)
+                .map(state -> ResponseEntity.ok(ApiResponse.success(state)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Không tìm thấy sản phẩm với ID: " + id)));
+    }
+
+    /**
+     * Lần thay đổi nội dung gần nhất của sản phẩm
+     */
+    @GetMapping("/products/{id}/changes/last")
+    public ResponseEntity<ApiResponse<ProductSnapshotDto>> lastChange(
+            @PathVariable Integer id,
+            @RequestParam(defaultValue = "false") boolean includeContent) {
+
+        try {
+            return snapshotStore.lastChange(id, includeContent)
+                    .map(snapshot -> ResponseEntity.ok(ApiResponse.success(snapshot)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(ApiResponse.error("Chưa có snapshot cho sản phẩm với ID: " + id)));
+        } catch (Exception e) {
+            log.error("Error fetching last change of product {}: ", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Lỗi khi lấy snapshot", e.getMessage()));
+        }
+    }
+
+    /**
+     * Các lần thay đổi nội dung kể từ thời điểm since
+     */
+    @GetMapping("/products/{id}/changes")
+    public ResponseEntity<ApiResponse<List<ProductSnapshotDto>>> changesSince(
+            @PathVariable Integer id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+
+        try {
+            return ResponseEntity.ok(ApiResponse.success(snapshotStore.changesSince(id, since)));
+        } catch (Exception e) {
+            log.error("Error fetching changes of product {}: ", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Lỗi khi lấy lịch sử thay đổi", e.getMessage()));
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.luulv.vn.backendtracking.controller;
 
+import com.luulv.vn.backendtracking.cache.TableVersionTracker;
 import com.luulv.vn.backendtracking.dto.ApiResponse;
+import com.luulv.vn.backendtracking.dto.CursorPage;
 import com.luulv.vn.backendtracking.dto.UserRequestDTO;
 import com.luulv.vn.backendtracking.dto.UserResponseDTO;
 import com.luulv.vn.backendtracking.dto.UserSearchRequest;
@@ -8,6 +10,7 @@ import com.luulv.vn.backendtracking.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,7 +19,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/users")
@@ -24,6 +31,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private TableVersionTracker tableVersions;
+
     // Tạo user mới
     @PostMapping
     public ResponseEntity<ApiResponse<UserResponseDTO>> create(
@@ -54,16 +64,60 @@ public class UserController {
     }
 
     @PostMapping("/search")
-    public ResponseEntity<ApiResponse<Page<UserResponseDTO>>> searchUsersWithBody(
+    public ResponseEntity<ApiResponse<Slice<UserResponseDTO>>> searchUsersWithBody(
             @RequestBody UserSearchRequest request
     ) {
-        Page<UserResponseDTO> response = userService.searchUsers(request);
-        return ResponseEntity.ok(ApiResponse.success(response));
+        try {
+            Slice<UserResponseDTO> response = userService.searchUsers(request);
+            return ResponseEntity.ok(ApiResponse.success(response));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Tham số tìm kiếm không hợp lệ", e.getMessage()));
+        }
     }
 
-    // Cập nhật user
+    @PostMapping("/search/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<UserResponseDTO>>> searchUsersWithCursor(
+            @RequestBody UserSearchRequest request
+    ) {
+        try {
+            CursorPage<UserResponseDTO> response = userService.searchUsersWithCursor(request);
+            return ResponseEntity.ok(ApiResponse.success(response));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Tham số phân trang không hợp lệ", e.getMessage()));
+        }
+    }
+
+    // Danh sách user sắp hết hạn trong vòng days ngày tới
+    @GetMapping("/expiring-soon")
+    public ResponseEntity<ApiResponse<Page<UserResponseDTO>>> expiringSoon(
+            @RequestParam(defaultValue = "7") int days,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
+        // Khoảng ngày tính từ hôm nay nên ETag đổi theo ngày
+        String etag = ResponseEtags.negotiated(tableVersions, TableVersionTracker.USER, request, LocalDate.now().toString());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(ApiResponse.success(userService.getExpiringSoon(days, page, size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Tham số không hợp lệ", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Lỗi khi lấy danh sách user sắp hết hạn", e.getMessage()));
+        }
+    }
+
+    // Chi tiết user
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<UserResponseDTO>> detail(@PathVariable Integer id) {
+    public ResponseEntity<ApiResponse<UserResponseDTO>> detail(@PathVariable Integer id, WebRequest request) {
+        if (request.checkNotModified(ResponseEtags.negotiated(tableVersions, TableVersionTracker.USER, request))) {
+            return null;
+        }
         try {
             UserResponseDTO product = userService.detail(id);
             return ResponseEntity.ok(ApiResponse.success("Cập nhật sản phẩm thành công", product));
@@ -0,0 +1,119 @@
+package com.luulv.vn.backendtracking.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Giới hạn số connection đang được giữ đồng thời trước khi vào pool.
+ * Với virtual thread, hàng chục nghìn request có thể cùng chờ Hikari tới hết connection-timeout (30s);
+ * lớp này xếp hàng công bằng (FIFO), giới hạn số thread chờ và trả lỗi sớm khi quá tải.
+ */
+@Slf4j
+public class ConnectionLimitingDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxWaiting;
+    private final long acquireTimeoutNanos;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    public ConnectionLimitingDataSource(DataSource target, int maxConcurrent, int maxWaiting, Duration acquireTimeout) {
+        super(target);
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWaiting = maxWaiting;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public int getRejected() {
+        return rejected.get();
+    }
+
+    private void acquire() throws SQLException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new SQLTransientConnectionException("Quá nhiều request đang chờ connection (" + maxWaiting + ")");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                rejected.incrementAndGet();
+                throw new SQLTransientConnectionException("Hết thời gian chờ connection sau "
+                        + TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Bị ngắt khi đang chờ connection", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    // Trả permit đúng một lần khi connection được đóng (trả về pool)
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                        try {
+                            connection.close();
+                        } finally {
+                            permits.release();
+                        }
+                        return null;
+                    }
+                    if ("unwrap".equals(method.getName()) && ((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
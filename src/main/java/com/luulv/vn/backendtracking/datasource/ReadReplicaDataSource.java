@@ -0,0 +1,51 @@
+package com.luulv.vn.backendtracking.datasource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * DataSource cho transaction readOnly (LazyConnectionDataSourceProxy.setReadOnlyDataSource):
+ * đọc từ replica, trừ các trường hợp đọc primary:
+ * client vừa ghi trong cửa sổ read-your-writes, lần đọc có gắn phiên bản (VersionedReads) khi dữ liệu vừa thay đổi
+ * trong khoảng replica có thể còn trễ, hoặc không còn replica nào khỏe.
+ */
+public class ReadReplicaDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final ReplicaSet replicas;
+    private final ReadYourWritesTracker tracker;
+    // true nếu có bảng thay đổi trong khoảng trễ replica cho phép (maxReplicationLag)
+    private final BooleanSupplier recentlyChanged;
+
+    public ReadReplicaDataSource(DataSource primary, ReplicaSet replicas, ReadYourWritesTracker tracker,
+                                 BooleanSupplier recentlyChanged) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.tracker = tracker;
+        this.recentlyChanged = recentlyChanged;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (tracker.isRecentWriter()) {
+            replicas.recordStickyRead();
+            return primary.getConnection();
+        }
+        if (VersionedReads.isRequired() && recentlyChanged.getAsBoolean()) {
+            replicas.recordVersionedRead();
+            return primary.getConnection();
+        }
+        Connection connection = replicas.getConnection();
+        return connection != null ? connection : primary.getConnection();
+    }
+
+    // Replica dùng tài khoản cấu hình riêng, chỉ primary nhận username/password truyền vào
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+}
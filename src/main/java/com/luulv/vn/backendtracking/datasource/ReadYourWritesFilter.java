@@ -0,0 +1,42 @@
+package com.luulv.vn.backendtracking.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Gắn định danh client (header cấu hình được, mặc định X-Client-Id, không có thì IP) vào thread xử lý request
+ * để ReadYourWritesTracker biết lần ghi/đọc thuộc về client nào.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final int MAX_CLIENT_LENGTH = 128;
+
+    private final String clientHeader;
+
+    public ReadYourWritesFilter(String clientHeader) {
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = request.getHeader(clientHeader);
+        if (!StringUtils.hasText(client) || client.length() > MAX_CLIENT_LENGTH) {
+            client = request.getRemoteAddr();
+        }
+        ReadYourWritesTracker.bind(client);
+        VersionedReads.open();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            VersionedReads.close();
+            ReadYourWritesTracker.clear();
+        }
+    }
+}
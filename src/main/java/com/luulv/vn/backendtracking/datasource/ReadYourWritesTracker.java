@@ -0,0 +1,45 @@
+package com.luulv.vn.backendtracking.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Ghi nhớ client nào vừa ghi để các lần đọc tiếp theo trong cửa sổ read-your-writes đi primary,
+ * tránh đọc phải dữ liệu cũ trên replica chưa kịp replay.
+ * Client của request hiện tại được ReadYourWritesFilter gắn vào thread; job nền không có client nên luôn đọc replica.
+ */
+public class ReadYourWritesTracker {
+
+    private static final ThreadLocal<String> CURRENT_CLIENT = new ThreadLocal<>();
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(long maximumSize, Duration window) {
+        this.recentWriters = window.isZero() ? null : Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public static void bind(String client) {
+        CURRENT_CLIENT.set(client);
+    }
+
+    public static void clear() {
+        CURRENT_CLIENT.remove();
+    }
+
+    public void recordWrite() {
+        String client = CURRENT_CLIENT.get();
+        if (recentWriters != null && client != null) {
+            recentWriters.put(client, Boolean.TRUE);
+        }
+    }
+
+    public boolean isRecentWriter() {
+        String client = CURRENT_CLIENT.get();
+        return recentWriters != null && client != null && recentWriters.getIfPresent(client) != null;
+    }
+}
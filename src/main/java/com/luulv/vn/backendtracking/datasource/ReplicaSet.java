@@ -0,0 +1,156 @@
+package com.luulv.vn.backendtracking.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Các pool replica đọc: chọn xoay vòng trong số replica đang khỏe, replica lỗi khi lấy connection
+ * bị đánh dấu down ngay và chỉ được dùng lại khi lần kiểm tra định kỳ thấy đã kết nối được và không trễ quá ngưỡng.
+ */
+@Slf4j
+public class ReplicaSet implements AutoCloseable {
+
+    // 0 khi replica đã replay hết WAL nhận được (kể cả khi primary không có ghi mới), NULL trên node không phải replica
+    private static final String LAG_SQL = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    private final List<Replica> replicas;
+    private final Duration maxReplicationLag;
+    private final int validationTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final AtomicLong replicaReads = new AtomicLong();
+    private final AtomicLong stickyReads = new AtomicLong();
+    private final AtomicLong versionedReads = new AtomicLong();
+    private final AtomicLong fallbackReads = new AtomicLong();
+
+    public ReplicaSet(List<Replica> replicas, Duration maxReplicationLag, Duration validationTimeout) {
+        this.replicas = List.copyOf(replicas);
+        this.maxReplicationLag = maxReplicationLag;
+        this.validationTimeoutSeconds = (int) Math.max(1, validationTimeout.toSeconds());
+    }
+
+    /**
+     * Connection tới một replica đang khỏe, null nếu không còn replica nào dùng được
+     */
+    public Connection getConnection() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replicaReads.incrementAndGet();
+                return connection;
+            } catch (SQLException e) {
+                markDown(replica, e.getMessage());
+            }
+        }
+        fallbackReads.incrementAndGet();
+        return null;
+    }
+
+    void recordStickyRead() {
+        stickyReads.incrementAndGet();
+    }
+
+    void recordVersionedRead() {
+        versionedReads.incrementAndGet();
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.datasource.routing.health-check-interval:PT5S}",
+            initialDelayString = "${tracking.datasource.routing.health-check-interval:PT5S}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            String problem = probe(replica);
+            if (problem != null) {
+                markDown(replica, problem);
+            } else if (!replica.healthy) {
+                replica.healthy = true;
+                log.info("Replica '{}' is healthy again, resuming reads", replica.name);
+            }
+        }
+    }
+
+    public int getHealthyCount() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    public long getReplicaReads() {
+        return replicaReads.get();
+    }
+
+    public long getStickyReads() {
+        return stickyReads.get();
+    }
+
+    public long getVersionedReads() {
+        return versionedReads.get();
+    }
+
+    public long getFallbackReads() {
+        return fallbackReads.get();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    // Trả về lý do không dùng được, null nếu replica ổn
+    private String probe(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection()) {
+            if (!connection.isValid(validationTimeoutSeconds)) {
+                return "connection is not valid";
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(validationTimeoutSeconds);
+                try (ResultSet rs = statement.executeQuery(LAG_SQL)) {
+                    double lagSeconds = rs.next() ? rs.getDouble(1) : 0;
+                    if (lagSeconds * 1000 > maxReplicationLag.toMillis()) {
+                        return "replication lag " + Math.round(lagSeconds * 1000) + "ms";
+                    }
+                }
+            }
+            return null;
+        } catch (SQLException e) {
+            return e.getMessage();
+        }
+    }
+
+    private void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Replica '{}' marked down, reads go to other replicas or primary: {}", replica.name, reason);
+        }
+    }
+
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.luulv.vn.backendtracking.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Đánh dấu lần đọc mà kết quả sẽ được gắn với phiên bản dữ liệu hiện tại của node: response mang ETag
+ * của TableVersionTracker, hoặc giá trị nạp vào NearCache. Ngay sau khi một bảng thay đổi (ghi trên node này
+ * hoặc tin NOTIFY từ node khác), replica có thể chưa replay thay đổi đó; ReadReplicaDataSource đưa các lần đọc
+ * này về primary trong khoảng thời gian đó để không phục vụ dữ liệu cũ dưới ETag mới hay nạp lại cache từ dữ liệu cũ.
+ */
+public final class VersionedReads {
+
+    // null: thread không nằm trong request do ReadYourWritesFilter theo dõi
+    private static final ThreadLocal<Boolean> REQUIRED = new ThreadLocal<>();
+
+    private VersionedReads() {
+    }
+
+    static void open() {
+        REQUIRED.set(Boolean.FALSE);
+    }
+
+    static void close() {
+        REQUIRED.remove();
+    }
+
+    /**
+     * Các lần đọc còn lại của request hiện tại sẽ được trả kèm phiên bản dữ liệu (ETag)
+     */
+    public static void markRequest() {
+        if (REQUIRED.get() != null) {
+            REQUIRED.set(Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Chạy lần đọc mà kết quả được giữ lại sau khi trả về (ví dụ loader của cache)
+     */
+    public static <T> T call(Supplier<T> read) {
+        Boolean previous = REQUIRED.get();
+        REQUIRED.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                REQUIRED.remove();
+            } else {
+                REQUIRED.set(previous);
+            }
+        }
+    }
+
+    static boolean isRequired() {
+        return Boolean.TRUE.equals(REQUIRED.get());
+    }
+}
@@ -0,0 +1,52 @@
+package com.luulv.vn.backendtracking.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Bọc DataSource primary: mỗi lần commit thành công thì ghi nhận client hiện tại vừa ghi (xem ReadYourWritesTracker).
+ * Chỉ transaction không readOnly mới tới đây, LazyConnectionDataSourceProxy bỏ qua commit của connection chưa dùng.
+ */
+public class WriteTrackingDataSource extends DelegatingDataSource {
+
+    private final ReadYourWritesTracker tracker;
+
+    public WriteTrackingDataSource(DataSource target, ReadYourWritesTracker tracker) {
+        super(target);
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return trackingCommit(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return trackingCommit(super.getConnection(username, password));
+    }
+
+    private Connection trackingCommit(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("unwrap".equals(method.getName()) && ((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                    if ("commit".equals(method.getName())) {
+                        tracker.recordWrite();
+                    }
+                    return result;
+                });
+    }
+}
@@ -0,0 +1,20 @@
+package com.luulv.vn.backendtracking.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Page có totalElements là số gần đúng (CountMode.APPROXIMATE), client không nên dựa vào nó để tính trang cuối
+ */
+public class ApproximatePage<T> extends PageImpl<T> {
+
+    public ApproximatePage(List<T> content, Pageable pageable, long approximateTotal) {
+        super(content, pageable, approximateTotal);
+    }
+
+    public boolean isTotalApproximate() {
+        return true;
+    }
+}
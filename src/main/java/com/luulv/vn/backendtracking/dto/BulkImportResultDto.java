@@ -0,0 +1,19 @@
+package com.luulv.vn.backendtracking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResultDto {
+
+    private int total;
+    private int created;
+    private int duplicates;
+    private int invalid;
+    private List<BulkImportRowResult> rows;
+}
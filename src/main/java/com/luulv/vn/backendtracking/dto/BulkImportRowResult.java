@@ -0,0 +1,26 @@
+package com.luulv.vn.backendtracking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportRowResult {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    // Vị trí dòng trong request (bắt đầu từ 0)
+    private int index;
+    private String url;
+    private Status status;
+
+    // ID sản phẩm mới, null nếu không tạo được
+    private Integer id;
+    private String message;
+}
@@ -0,0 +1,21 @@
+package com.luulv.vn.backendtracking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDto {
+
+    private String name;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long loadSuccessCount;
+    private long loadFailureCount;
+    private long totalLoadTimeMillis;
+}
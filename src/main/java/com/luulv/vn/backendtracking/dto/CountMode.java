@@ -0,0 +1,13 @@
+package com.luulv.vn.backendtracking.dto;
+
+/**
+ * Cách tính tổng số dòng cho phân trang offset
+ */
+public enum CountMode {
+    // Chạy thêm một câu COUNT(*) trên tập đã lọc, trả Page đầy đủ
+    EXACT,
+    // Không đếm, chỉ lấy dư một dòng để biết còn trang sau (Slice, xem last)
+    NONE,
+    // Không đếm mỗi request, tổng lấy từ thống kê hoặc COUNT đã cache (totalApproximate = true)
+    APPROXIMATE
+}
@@ -0,0 +1,23 @@
+package com.luulv.vn.backendtracking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+    private int size;
+
+    // Token mờ để lấy trang kế tiếp, null nếu đã hết dữ liệu
+    private String nextCursor;
+    private boolean hasNext;
+
+    // Chỉ có giá trị khi client yêu cầu includeTotal = true
+    private Long totalElements;
+}
@@ -0,0 +1,48 @@
+package com.luulv.vn.backendtracking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Vị trí keyset (giá trị cột sắp xếp + id của dòng cuối) được mã hóa thành token mờ cho client.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetCursor {
+
+    private static final String SEPARATOR = "\u001f";
+    private static final String VALUE_PREFIX = "v";
+
+    private String sortBy;
+    private Sort.Direction direction;
+
+    // Giá trị cột sắp xếp dạng chuỗi (ISO date, số, text), null nếu cột null
+    private String value;
+    private Integer id;
+
+    public String encode() {
+        String raw = sortBy + SEPARATOR + direction.name() + SEPARATOR
+                + (value == null ? "" : VALUE_PREFIX + value) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Cursor không hợp lệ");
+            }
+            String value = parts[2].isEmpty() ? null : parts[2].substring(VALUE_PREFIX.length());
+            return new KeysetCursor(parts[0], Sort.Direction.valueOf(parts[1]), value, Integer.valueOf(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ", e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.luulv.vn.backendtracking.dto;
+
+import com.luulv.vn.backendtracking.event.ChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dữ liệu của một sự kiện SSE trên /api/products/events
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductEventDto {
+    private ChangeType changeType;
+    private Integer productId;
+    // Trạng thái sau khi ghi, null khi xóa
+    private ProductResponseDto product;
+}
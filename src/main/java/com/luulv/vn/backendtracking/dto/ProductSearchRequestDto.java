@@ -19,4 +19,11 @@ public class ProductSearchRequestDto {
     private int size = 10;
     private String sortBy = "id";
     private String sortDirection = "ASC";
+
+    // Phân trang keyset: token nextCursor của trang trước, null để lấy trang đầu
+    private String cursor;
+    private boolean includeTotal = false;
+
+    // Phân trang offset: EXACT đếm tổng, NONE không đếm, APPROXIMATE dùng tổng gần đúng
+    private CountMode countMode = CountMode.EXACT;
 }
@@ -0,0 +1,23 @@
+package com.luulv.vn.backendtracking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSnapshotDto {
+
+    private Integer productId;
+    private int version;
+    private String contentHash;
+    private LocalDateTime capturedAt;
+    private int contentLength;
+    // Số byte thực sự lưu trong DB (sau delta + nén)
+    private int storedLength;
+    // Nội dung đầy đủ (UTF-8), chỉ có khi được yêu cầu
+    private String content;
+}
@@ -0,0 +1,22 @@
+package com.luulv.vn.backendtracking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrackingCycleReportDto {
+
+    private LocalDateTime startedAt;
+    private long durationMillis;
+    private int total;
+    private long checked;
+    private long changed;
+    private long notModified;
+    private long failed;
+    private int hosts;
+}
@@ -0,0 +1,19 @@
+package com.luulv.vn.backendtracking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UrlSearchResultDto {
+
+    private ProductResponseDto product;
+
+    // Điểm xếp hạng, càng cao càng khớp
+    private int score;
+
+    // Phần của URL khớp với từ khóa: host, path, query hoặc url
+    private String matchedOn;
+}
@@ -15,10 +15,6 @@ public class UserResponseDTO {
     private LocalDate expiredDate;
     private Integer status;
     private String statusDescription;
+    // Lấy từ status đã lưu (EXPIRED), không tính lại theo ngày hiện tại
     private boolean isExpired;
-
-    public void setExpiredDate(LocalDate expiredDate) {
-        this.expiredDate = expiredDate;
-        this.isExpired = expiredDate.isBefore(LocalDate.now());
-    }
 }
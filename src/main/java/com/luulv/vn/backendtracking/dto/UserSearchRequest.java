@@ -21,5 +21,12 @@ public class UserSearchRequest {
     private int size = 10;
     private String sortBy = "id";
     private String sortDirection = "ASC";
+
+    // Phân trang keyset: token nextCursor của trang trước, null để lấy trang đầu
+    private String cursor;
+    private boolean includeTotal = false;
+
+    // Phân trang offset: EXACT đếm tổng, NONE không đếm, APPROXIMATE dùng tổng gần đúng
+    private CountMode countMode = CountMode.EXACT;
 }
 
@@ -1,5 +1,6 @@
 package com.luulv.vn.backendtracking.entity;
 
+import com.luulv.vn.backendtracking.search.UrlNormalizer;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -31,10 +32,18 @@ public class Product {
     @Size(max = 255, message = "URL không được vượt quá 255 ký tự")
     private String url;
 
+    // SHA-256 của url sau khi chuẩn hóa (UrlNormalizer), tra cứu bằng URL đi qua unique index uq_product_url_hash
+    @Column(name = "url_hash", nullable = false, length = 32)
+    private byte[] urlHash;
+
     @Column(name = "type")
     @Size(max = 255, message = "Type không được vượt quá 255 ký tự")
     private String type;
 
+    // Mã của type trong bảng product_type, do trigger trg_product_type_id gán theo cột type khi ghi; dùng để lọc theo type
+    @Column(name = "type_id", insertable = false, updatable = false)
+    private Integer typeId;
+
     @Column(name = "is_notify", nullable = false)
     private Integer isNotify = 1;
 
@@ -48,11 +57,18 @@ public class Product {
 
     // Constructor cho việc tạo mới product
     public Product(String url, String type) {
-        this.url = url;
+        setUrl(url);
         this.type = type;
         this.isNotify = 1;
     }
 
+    // URL được lưu đúng như người dùng nhập; chỉ urlHash (so trùng) dùng URL đã chuẩn hóa, tính lại cùng lúc
+    // để hai cột không lệch nhau
+    public void setUrl(String url) {
+        this.url = url;
+        this.urlHash = UrlNormalizer.hash(UrlNormalizer.normalize(url));
+    }
+
     // Method để toggle notification
     public void toggleNotification() {
         this.isNotify = this.isNotify == 1 ? 0 : 1;
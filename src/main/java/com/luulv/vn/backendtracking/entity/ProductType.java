@@ -0,0 +1,25 @@
+package com.luulv.vn.backendtracking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Một dòng của từ điển type sản phẩm (bảng product_type). Dòng được trigger trg_product_type_id thêm khi
+ * một type mới được ghi vào product, không bao giờ bị sửa hay xóa nên mã của một type không đổi.
+ */
+@Entity
+@Table(name = "product_type")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductType {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "name", nullable = false, unique = true)
+    private String name;
+}
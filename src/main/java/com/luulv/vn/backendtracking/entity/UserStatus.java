@@ -0,0 +1,34 @@
+package com.luulv.vn.backendtracking.entity;
+
+import java.time.LocalDate;
+
+/**
+ * Giá trị của cột users.status
+ */
+public final class UserStatus {
+
+    public static final int INACTIVE = 0;
+    public static final int ACTIVE = 1;
+    // Do UserExpiryService cập nhật khi expired_date đã qua
+    public static final int EXPIRED = 2;
+
+    private UserStatus() {
+    }
+
+    /**
+     * Trạng thái cần lưu khi ghi user: ACTIVE hết hạn thành EXPIRED, EXPIRED được gia hạn thành ACTIVE
+     */
+    public static Integer resolve(Integer status, LocalDate expiredDate, LocalDate today) {
+        if (status == null || expiredDate == null) {
+            return status;
+        }
+        boolean expired = expiredDate.isBefore(today);
+        if (status == ACTIVE && expired) {
+            return EXPIRED;
+        }
+        if (status == EXPIRED && !expired) {
+            return ACTIVE;
+        }
+        return status;
+    }
+}
@@ -0,0 +1,8 @@
+package com.luulv.vn.backendtracking.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    TOGGLED
+}
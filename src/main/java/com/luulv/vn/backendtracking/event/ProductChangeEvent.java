@@ -0,0 +1,25 @@
+package com.luulv.vn.backendtracking.event;
+
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Phát ra từ các luồng ghi của ProductService. Listener cần dữ liệu đã commit
+ * thì dùng @TransactionalEventListener (mặc định AFTER_COMMIT).
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ProductChangeEvent {
+
+    private final ChangeType changeType;
+    private final Integer productId;
+
+    // Trạng thái trước khi ghi, null khi tạo mới
+    private final ProductResponseDto before;
+
+    // Trạng thái sau khi ghi, null khi xóa
+    private final ProductResponseDto after;
+}
@@ -0,0 +1,380 @@
+package com.luulv.vn.backendtracking.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luulv.vn.backendtracking.config.ProductEventProperties;
+import com.luulv.vn.backendtracking.dto.ProductEventDto;
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Đẩy thay đổi sản phẩm (sau commit) tới các client SSE đang mở /api/products/events, thay cho việc poll danh sách.
+ * <p>
+ * Subscriber rảnh chỉ giữ một request async của servlet, không giữ thread. Mỗi subscriber có hàng đợi giới hạn,
+ * được ghi ra socket bởi một pool thread nhỏ; subscriber đọc chậm làm đầy hàng đợi thì bị ngắt,
+ * EventSource tự kết nối lại với Last-Event-ID và nhận bù từ bộ đệm replay (hoặc sự kiện "reset" nếu đã quá xa).
+ * Event ID gồm thời điểm khởi động nên ID của lần chạy trước luôn dẫn tới "reset".
+ * <p>
+ * Thay đổi được gom theo transaction và phát sau commit trên một thread riêng, theo thứ tự commit, không trên thread
+ * request. Transaction đổi quá bulkThreshold sản phẩm (bulk import) chỉ phát một "reset": hàng nghìn sự kiện lẻ sẽ
+ * làm đầy hàng đợi của mọi subscriber cùng lúc, khiến tất cả bị ngắt rồi cùng kết nối lại và tải lại.
+ * Thay đổi ghi qua node khác đến từ tin NOTIFY (RemoteProductChangeEvent) chỉ có id: được phát thành "updated"
+ * không kèm dữ liệu, client tải lại sản phẩm theo id (404 là đã bị xóa).
+ */
+@Slf4j
+public class ProductEventBroadcaster {
+
+    private static final String RESET_EVENT = "reset";
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final ProductEventProperties properties;
+
+    private final ObjectMapper objectMapper;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // ResponseBodyEmitter.send là synchronized: virtual thread bị pin khi ghi vào socket chậm (JDK 21),
+    // nên dùng pool platform nhỏ; mỗi subscriber có tối đa một tác vụ ghi đang chờ
+    private final ExecutorService senders;
+
+    // Serialize và đẩy sự kiện vào hàng đợi subscriber, một thread để giữ thứ tự commit
+    private final ExecutorService dispatcher;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Các field dưới được bảo vệ bởi lock của this
+    private final ArrayDeque<BufferedEvent> replay = new ArrayDeque<>();
+    private long sequence;
+
+    public ProductEventBroadcaster(ProductEventProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.senders = Executors.newFixedThreadPool(properties.getSenderThreads(),
+                Thread.ofPlatform().name("sse-sender-", 0).daemon().factory());
+        this.dispatcher = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("sse-dispatcher").daemon().factory());
+    }
+
+    /**
+     * Mở stream cho client, lastEventId là header Last-Event-ID khi EventSource kết nối lại
+     */
+    public SseEmitter subscribe(Filter filter, String lastEventId) {
+        if (subscribers.size() >= properties.getMaxSubscribers()) {
+            throw new IllegalStateException("Quá nhiều kết nối nhận sự kiện (" + properties.getMaxSubscribers() + ")");
+        }
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(emitter, filter);
+        emitter.onCompletion(subscriber::detach);
+        emitter.onTimeout(subscriber::detach);
+        emitter.onError(error -> subscriber.detach());
+
+        // Comment đầu tiên để header được gửi ngay, client biết đã kết nối thành công
+        subscriber.offer(SseEmitter.event().reconnectTime(properties.getReconnectDelay().toMillis())
+                .comment("connected").build());
+        synchronized (this) {
+            if (lastEventId != null) {
+                missedSince(filter, lastEventId).forEach(subscriber::offer);
+            }
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    /**
+     * Gom thay đổi của transaction, phát sau commit (rollback thì bỏ)
+     */
+    @EventListener
+    public void onProductChanged(ProductChangeEvent event) {
+        record(changes -> changes.add(event));
+    }
+
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        record(changes -> event.getProducts().forEach(product ->
+                changes.add(new ProductChangeEvent(ChangeType.CREATED, product.getId(), null, product))));
+    }
+
+    private void record(Consumer<Changes> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Changes changes = new Changes();
+            change.accept(changes);
+            dispatch(changes);
+            return;
+        }
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            Changes inTransaction = new Changes();
+            TransactionSynchronizationManager.bindResource(this, inTransaction);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(inTransaction);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ProductEventBroadcaster.this);
+                }
+            });
+            changes = inTransaction;
+        }
+        change.accept(changes);
+    }
+
+    /**
+     * Thay đổi từ node khác; cả bảng thay đổi thì phát "reset"
+     */
+    @EventListener
+    public void onRemoteProductChanged(RemoteProductChangeEvent event) {
+        Changes changes = new Changes();
+        if (event.getProductIds() == null) {
+            changes.bulk = true;
+        } else {
+            event.getProductIds().forEach(id -> changes.add(new ProductChangeEvent(ChangeType.UPDATED, id, null, null)));
+        }
+        dispatch(changes);
+    }
+
+    private void dispatch(Changes changes) {
+        try {
+            dispatcher.execute(() -> publish(changes));
+        } catch (RejectedExecutionException e) {
+            // Đang tắt ứng dụng, các stream sắp bị đóng
+            log.debug("Dropping product events during shutdown");
+        }
+    }
+
+    // Chạy trên thread dispatcher
+    void publish(Changes changes) {
+        if (changes.bulk) {
+            publishReset();
+            return;
+        }
+        for (ProductChangeEvent event : changes.events) {
+            publish(event);
+        }
+    }
+
+    void publish(ProductChangeEvent event) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(
+                    new ProductEventDto(event.getChangeType(), event.getProductId(), event.getAfter()));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize product event for product {}: {}", event.getProductId(), e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            long id = ++sequence;
+            // Dựng payload một lần, dùng chung cho mọi subscriber
+            Set<DataWithMediaType> payload = SseEmitter.event()
+                    .id(eventId(id))
+                    .name(event.getChangeType().name().toLowerCase(Locale.ROOT))
+                    .data(data)
+                    .build();
+            BufferedEvent buffered = new BufferedEvent(id, payload, event.getBefore(), event.getAfter());
+            replay.addLast(buffered);
+            if (replay.size() > properties.getReplaySize()) {
+                replay.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.filter.matches(buffered.before, buffered.after)) {
+                    subscriber.offer(payload);
+                }
+            }
+        }
+    }
+
+    // Mọi subscriber tải lại từ đầu. Bộ đệm replay bị xóa nên client kết nối lại với ID cũ hơn cũng nhận "reset"
+    synchronized void publishReset() {
+        sequence++;
+        replay.clear();
+        Set<DataWithMediaType> payload = resetEvent();
+        subscribers.forEach(subscriber -> subscriber.offer(payload));
+    }
+
+    // Giữ kết nối qua proxy/load balancer và phát hiện client đã đi mà không đóng kết nối
+    @Scheduled(fixedDelayString = "${tracking.product-events.heartbeat-interval:PT15S}",
+            initialDelayString = "${tracking.product-events.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("heartbeat").build();
+        subscribers.forEach(subscriber -> subscriber.offer(ping));
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    // Các sự kiện sau lastEventId khớp filter, hoặc chỉ một "reset" nếu không còn đủ trong bộ đệm
+    synchronized List<Set<DataWithMediaType>> missedSince(Filter filter, String lastEventId) {
+        long resumeFrom = parseSequence(lastEventId);
+        long oldest = replay.isEmpty() ? sequence + 1 : replay.peekFirst().id;
+        if (resumeFrom < 0 || resumeFrom > sequence || resumeFrom < oldest - 1) {
+            return List.of(resetEvent());
+        }
+        List<Set<DataWithMediaType>> missed = new ArrayList<>();
+        for (BufferedEvent buffered : replay) {
+            if (buffered.id > resumeFrom && filter.matches(buffered.before, buffered.after)) {
+                missed.add(buffered.payload);
+            }
+        }
+        // Nhiều hơn sức chứa hàng đợi thì subscriber sẽ bị ngắt ngay, báo client tải lại từ đầu thay vì bù
+        if (missed.size() >= properties.getQueueSize() - 1) {
+            return List.of(resetEvent());
+        }
+        return missed;
+    }
+
+    String eventId(long sequence) {
+        return epoch + "." + sequence;
+    }
+
+    private Set<DataWithMediaType> resetEvent() {
+        return SseEmitter.event().id(eventId(sequence)).name(RESET_EVENT).data("{}").build();
+    }
+
+    // -1 nếu ID không thuộc lần chạy này hoặc sai định dạng
+    private long parseSequence(String lastEventId) {
+        String prefix = epoch + ".";
+        if (!lastEventId.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Điều kiện lọc của subscriber (null = không lọc). Sự kiện khớp nếu trạng thái trước hoặc sau khi ghi khớp,
+     * để client biết cả khi sản phẩm rời khỏi tập đang hiển thị.
+     */
+    public record Filter(String type, Integer isNotify) {
+
+        boolean matches(ProductResponseDto before, ProductResponseDto after) {
+            // Thay đổi từ node khác chỉ có id, không biết có khớp không nên gửi cho mọi subscriber
+            if (before == null && after == null) {
+                return true;
+            }
+            return matches(before) || matches(after);
+        }
+
+        private boolean matches(ProductResponseDto product) {
+            return product != null
+                    && (type == null || type.equals(product.getType()))
+                    && (isNotify == null || isNotify.equals(product.getIsNotify()));
+        }
+    }
+
+    private record BufferedEvent(long id, Set<DataWithMediaType> payload,
+                                 ProductResponseDto before, ProductResponseDto after) {
+    }
+
+    // Thay đổi của một transaction; quá bulkThreshold thì chỉ giữ cờ bulk, không giữ từng sự kiện
+    final class Changes {
+
+        private final List<ProductChangeEvent> events = new ArrayList<>();
+        private boolean bulk;
+
+        void add(ProductChangeEvent event) {
+            if (bulk) {
+                return;
+            }
+            events.add(event);
+            if (events.size() > properties.getBulkThreshold()) {
+                bulk = true;
+                events.clear();
+            }
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Filter filter;
+        private final BlockingQueue<Set<DataWithMediaType>> queue = new LinkedBlockingQueue<>(properties.getQueueSize());
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, Filter filter) {
+            this.emitter = emitter;
+            this.filter = filter;
+        }
+
+        void offer(Set<DataWithMediaType> payload) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(payload)) {
+                dropped.incrementAndGet();
+                log.debug("Dropping slow SSE subscriber with {} queued events", queue.size());
+                detach();
+                // complete() chờ lần send đang bị chặn (cùng lock của emitter) nên không gọi trên thread phát sự kiện
+                senders.execute(emitter::complete);
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    Set<DataWithMediaType> payload;
+                    while (!closed && (payload = queue.poll()) != null) {
+                        emitter.send(payload);
+                    }
+                    draining.set(false);
+                    // Sự kiện đến sau lần poll cuối nhưng trước khi bỏ cờ thì tự nhận lại việc ghi
+                } while (!closed && !queue.isEmpty() && draining.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                // Client đã đóng kết nối, container sẽ gọi onError/onCompletion
+                draining.set(false);
+                detach();
+            }
+        }
+
+        void detach() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.luulv.vn.backendtracking.event;
+
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Phát ra từ ProductBulkImportService, một sự kiện cho mỗi chunk thay cho một ProductChangeEvent mỗi dòng:
+ * listener tăng phiên bản, gửi NOTIFY... một lần cho cả chunk. Listener cần dữ liệu đã commit
+ * thì dùng @TransactionalEventListener (mặc định AFTER_COMMIT).
+ */
+@Getter
+@AllArgsConstructor
+public class ProductsImportedEvent {
+
+    // Các sản phẩm vừa được tạo trong chunk
+    private final List<ProductResponseDto> products;
+
+    @Override
+    public String toString() {
+        return "ProductsImportedEvent(products=" + products.size() + ")";
+    }
+}
@@ -0,0 +1,20 @@
+package com.luulv.vn.backendtracking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Set;
+
+/**
+ * Phát ra từ InvalidationListener khi node khác đã ghi sản phẩm (sau commit trên node đó).
+ * Tin NOTIFY chỉ mang id nên không có loại thay đổi hay dữ liệu trước/sau.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RemoteProductChangeEvent {
+
+    // null khi cả bảng có thể đã thay đổi (quá nhiều id, hoặc listener vừa kết nối lại)
+    private final Set<Integer> productIds;
+}
@@ -0,0 +1,18 @@
+package com.luulv.vn.backendtracking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Phát ra từ các luồng ghi của UserService.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class UserChangeEvent {
+
+    private final ChangeType changeType;
+    // null khi cập nhật hàng loạt nhiều user
+    private final Integer userId;
+}
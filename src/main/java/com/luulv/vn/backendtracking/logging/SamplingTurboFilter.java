@@ -0,0 +1,97 @@
+package com.luulv.vn.backendtracking.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lấy mẫu và giới hạn tốc độ log INFO/DEBUG của các logger có lưu lượng cao (controller, service).
+ * Chạy trước khi logback format message nên log bị loại gần như không tốn chi phí.
+ * WARN/ERROR luôn được giữ nguyên. Cấu hình trong logback-spring.xml.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final List<String> loggerPrefixes = new ArrayList<>();
+    // Giữ 1 trong mỗi sampleEvery log của cùng một logger, 1 = giữ tất cả
+    private int sampleEvery = 1;
+    // Số log tối đa mỗi giây cho mỗi logger, 0 = không giới hạn
+    private int maxPerSecond = 0;
+
+    private final Map<String, LoggerBudget> budgets = new ConcurrentHashMap<>();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format == null là lời gọi isXxxEnabled(), không tính vào ngân sách
+        if (!isStarted() || format == null || level == null || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        if (level.levelInt < logger.getEffectiveLevel().levelInt || !matches(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        LoggerBudget budget = budgets.computeIfAbsent(logger.getName(), name -> new LoggerBudget());
+        return budget.tryAcquire() ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    // Joran gọi cho mỗi phần tử <logger> trong cấu hình
+    public void addLogger(String prefix) {
+        loggerPrefixes.add(prefix.trim());
+    }
+
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = Math.max(1, sampleEvery);
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = Math.max(0, maxPerSecond);
+    }
+
+    public long getDropped() {
+        return budgets.values().stream().mapToLong(budget -> budget.dropped.get()).sum();
+    }
+
+    private boolean matches(String loggerName) {
+        for (String prefix : loggerPrefixes) {
+            if (loggerName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class LoggerBudget {
+
+        private final AtomicLong sequence = new AtomicLong();
+        private final AtomicLong windowSecond = new AtomicLong();
+        private final AtomicInteger windowCount = new AtomicInteger();
+        private final AtomicLong dropped = new AtomicLong();
+
+        boolean tryAcquire() {
+            if (sampleEvery > 1 && (sequence.getAndIncrement() % sampleEvery) != 0) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            if (maxPerSecond > 0) {
+                long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+                long current = windowSecond.get();
+                if (second != current && windowSecond.compareAndSet(current, second)) {
+                    windowCount.set(0);
+                }
+                if (windowCount.incrementAndGet() > maxPerSecond) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
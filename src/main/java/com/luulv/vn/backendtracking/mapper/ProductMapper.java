@@ -0,0 +1,15 @@
+package com.luulv.vn.backendtracking.mapper;
+
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import com.luulv.vn.backendtracking.entity.Product;
+import org.mapstruct.Mapper;
+import org.mapstruct.MappingConstants;
+
+/**
+ * Mapper Product -> ProductResponseDto sinh lúc compile (MapStruct), gọi getter/setter trực tiếp.
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING)
+public interface ProductMapper {
+
+    ProductResponseDto toDto(Product product);
+}
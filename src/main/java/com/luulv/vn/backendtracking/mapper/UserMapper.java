@@ -0,0 +1,51 @@
+package com.luulv.vn.backendtracking.mapper;
+
+import com.luulv.vn.backendtracking.dto.UserResponseDTO;
+import com.luulv.vn.backendtracking.entity.User;
+import com.luulv.vn.backendtracking.entity.UserStatus;
+import org.mapstruct.AfterMapping;
+import org.mapstruct.Context;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.MappingTarget;
+
+import java.time.LocalDate;
+
+/**
+ * Mapper User -> UserResponseDTO sinh lúc compile (MapStruct).
+ * isExpired và statusDescription suy ra từ status đã lưu (UserExpiryService chuyển user quá hạn sang EXPIRED),
+ * kèm so sánh expired_date với "today" truyền vào cho user quá hạn mà job chưa kịp cập nhật
+ * (giữa hai lần chạy, job lỗi). Cả một trang dùng chung một lần gọi LocalDate.now().
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING)
+public interface UserMapper {
+
+    default UserResponseDTO toDto(User user) {
+        return toDto(user, LocalDate.now());
+    }
+
+    @Mapping(target = "isExpired", ignore = true)
+    @Mapping(target = "statusDescription", ignore = true)
+    UserResponseDTO toDto(User user, @Context LocalDate today);
+
+    @AfterMapping
+    default void fillDerivedFields(User user, @Context LocalDate today,
+                                   @MappingTarget UserResponseDTO.UserResponseDTOBuilder dto) {
+        boolean expired = (user.getStatus() != null && user.getStatus() == UserStatus.EXPIRED)
+                || (user.getExpiredDate() != null && user.getExpiredDate().isBefore(today));
+        dto.isExpired(expired);
+        dto.statusDescription(describeStatus(user.getStatus(), expired));
+    }
+
+    static String describeStatus(Integer status, boolean expired) {
+        if (status == null) {
+            return "Ngừng hoạt động";
+        }
+        return switch (status) {
+            case UserStatus.ACTIVE -> expired ? "Hết hạn" : "Đang hoạt động";
+            case UserStatus.EXPIRED -> "Hết hạn";
+            default -> "Ngừng hoạt động";
+        };
+    }
+}
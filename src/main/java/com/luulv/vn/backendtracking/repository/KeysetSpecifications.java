@@ -0,0 +1,76 @@
+package com.luulv.vn.backendtracking.repository;
+
+import com.luulv.vn.backendtracking.dto.KeysetCursor;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Điều kiện "sau vị trí cursor" cho phân trang keyset theo (cột sắp xếp, id).
+ * Thứ tự null khớp với mặc định của PostgreSQL: ASC thì null ở cuối, DESC thì null ở đầu.
+ */
+public final class KeysetSpecifications {
+
+    private KeysetSpecifications() {
+    }
+
+    public static <T> Specification<T> after(KeysetCursor cursor) {
+        return (root, query, cb) -> {
+            Path<Integer> id = root.get("id");
+            boolean asc = cursor.getDirection().isAscending();
+
+            if ("id".equals(cursor.getSortBy())) {
+                return asc ? cb.greaterThan(id, cursor.getId()) : cb.lessThan(id, cursor.getId());
+            }
+
+            Path<Comparable<Object>> column = root.get(cursor.getSortBy());
+            Predicate idAfter = asc ? cb.greaterThan(id, cursor.getId()) : cb.lessThan(id, cursor.getId());
+
+            if (cursor.getValue() == null) {
+                // Đang ở nhóm null: ASC chỉ còn các dòng null phía sau, DESC còn toàn bộ dòng khác null
+                Predicate sameNullGroup = cb.and(cb.isNull(column), idAfter);
+                return asc ? sameNullGroup : cb.or(sameNullGroup, cb.isNotNull(column));
+            }
+
+            Comparable<Object> value = parseValue(cursor.getValue(), column.getJavaType());
+            Predicate beyond = asc ? cb.greaterThan(column, value) : cb.lessThan(column, value);
+            Predicate tie = cb.and(cb.equal(column, value), idAfter);
+            return asc ? cb.or(beyond, tie, cb.isNull(column)) : cb.or(beyond, tie);
+        };
+    }
+
+    public static Sort sortFor(String sortBy, Sort.Direction direction) {
+        Sort sort = Sort.by(direction, sortBy);
+        return "id".equals(sortBy) ? sort : sort.and(Sort.by(direction, "id"));
+    }
+
+    // Chuyển giá trị cột sang chuỗi để đưa vào cursor
+    public static String formatValue(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> parseValue(String raw, Class<?> type) {
+        Object value;
+        try {
+            if (LocalDate.class.equals(type)) {
+                value = LocalDate.parse(raw);
+            } else if (Integer.class.equals(type)) {
+                value = Integer.valueOf(raw);
+            } else if (Long.class.equals(type)) {
+                value = Long.valueOf(raw);
+            } else if (String.class.equals(type)) {
+                value = raw;
+            } else {
+                throw new IllegalArgumentException("Không hỗ trợ phân trang cursor theo kiểu " + type.getSimpleName());
+            }
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ", e);
+        }
+        return (Comparable<Object>) value;
+    }
+}
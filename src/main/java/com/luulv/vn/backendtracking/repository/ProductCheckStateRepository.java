@@ -0,0 +1,77 @@
+package com.luulv.vn.backendtracking.repository;
+
+import com.luulv.vn.backendtracking.tracking.ProductCheckState;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Đọc/ghi bảng product_check_state bằng JDBC: engine ghi hàng nghìn dòng mỗi chu kỳ
+ * nên dùng batch upsert thay vì entity JPA.
+ */
+@Repository
+@RequiredArgsConstructor
+@Timed(value = "tracking.jdbc", histogram = true)
+public class ProductCheckStateRepository {
+
+    private static final String SELECT_COLUMNS = "SELECT p.id, p.url, s.etag, s.last_modified, s.content_hash, " +
+            "s.last_status, s.last_checked_at, s.last_changed_at, COALESCE(s.consecutive_failures, 0), s.last_error " +
+            "FROM product p LEFT JOIN product_check_state s ON s.product_id = p.id ";
+
+    // Bỏ qua sản phẩm đã bị xóa trong lúc đang kiểm tra thay vì làm hỏng cả batch vì khóa ngoại
+    private static final String UPSERT_SQL = "INSERT INTO product_check_state (product_id, etag, last_modified, " +
+            "content_hash, last_status, last_checked_at, last_changed_at, consecutive_failures, last_error) " +
+            "SELECT ?, ?, ?, ?, ?, ?, ?, ?, ? WHERE EXISTS (SELECT 1 FROM product WHERE id = ?) " +
+            "ON CONFLICT (product_id) DO UPDATE SET etag = EXCLUDED.etag, last_modified = EXCLUDED.last_modified, " +
+            "content_hash = EXCLUDED.content_hash, last_status = EXCLUDED.last_status, " +
+            "last_checked_at = EXCLUDED.last_checked_at, last_changed_at = EXCLUDED.last_changed_at, " +
+            "consecutive_failures = EXCLUDED.consecutive_failures, last_error = EXCLUDED.last_error";
+
+    private static final RowMapper<ProductCheckState> ROW_MAPPER = (rs, rowNum) -> new ProductCheckState(
+            rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+            (Integer) rs.getObject(6), toLocalDateTime(rs.getTimestamp(7)), toLocalDateTime(rs.getTimestamp(8)),
+            rs.getInt(9), rs.getString(10));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Tất cả sản phẩm đang bật thông báo kèm trạng thái kiểm tra trước đó (nếu có)
+     */
+    public List<ProductCheckState> findTrackedProducts() {
+        return jdbcTemplate.query(SELECT_COLUMNS + "WHERE p.is_notify = 1 ORDER BY p.id", ROW_MAPPER);
+    }
+
+    public Optional<ProductCheckState> findByProductId(Integer productId) {
+        return jdbcTemplate.query(SELECT_COLUMNS + "WHERE p.id = ?", ROW_MAPPER, productId).stream().findFirst();
+    }
+
+    public void saveAll(List<ProductCheckState> states) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, states, states.size(), (ps, state) -> {
+            ps.setInt(1, state.getProductId());
+            ps.setString(2, state.getEtag());
+            ps.setString(3, state.getLastModified());
+            ps.setString(4, state.getContentHash());
+            ps.setObject(5, state.getLastStatus());
+            ps.setTimestamp(6, toTimestamp(state.getLastCheckedAt()));
+            ps.setTimestamp(7, toTimestamp(state.getLastChangedAt()));
+            ps.setInt(8, state.getConsecutiveFailures());
+            ps.setString(9, state.getLastError());
+            ps.setInt(10, state.getProductId());
+        });
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime dateTime) {
+        return dateTime == null ? null : Timestamp.valueOf(dateTime);
+    }
+}
@@ -0,0 +1,15 @@
+package com.luulv.vn.backendtracking.repository;
+
+// Projection cho truy vấn đếm sản phẩm theo (type, isNotify)
+public interface ProductCountView {
+
+    String getType();
+
+    Integer getIsNotify();
+
+    // null ở dòng duy nhất khi bảng rỗng
+    Long getTotal();
+
+    // txid_current_snapshot() của chính câu đếm, để biết transaction nào đã được tính
+    String getSnapshot();
+}
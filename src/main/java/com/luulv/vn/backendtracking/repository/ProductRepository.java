@@ -2,25 +2,48 @@ package com.luulv.vn.backendtracking.repository;
 
 import com.luulv.vn.backendtracking.entity.Product;
 import com.luulv.vn.backendtracking.entity.User;
+import com.luulv.vn.backendtracking.search.UrlNormalizer;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Integer> {
+public interface ProductRepository extends JpaRepository<Product, Integer>, JpaSpecificationExecutor<Product> {
 
-    // Tìm sản phẩm theo URL
-    Optional<Product> findByUrl(String url);
+    // Lọc type theo mã số nguyên (ProductTypeDictionary.idOf), index idx_product_type_id_notify_created
+    String FILTERS_QUERY = "SELECT p FROM Product p WHERE " +
+            "(:typeId IS NULL OR p.typeId = :typeId) AND " +
+            "(:isNotify IS NULL OR p.isNotify = :isNotify)";
 
-    // Tìm sản phẩm theo type
-    List<Product> findByType(String type);
+    String SEARCH_CONDITIONS = "(:typeId IS NULL OR p.type_id = :typeId) AND " +
+            "(:url IS NULL OR LOWER(CAST(p.url AS TEXT)) LIKE LOWER(CONCAT('%', :url, '%'))) AND " +
+            "(:isNotify IS NULL OR p.is_notify = :isNotify)";
+
+    // Tìm sản phẩm theo hash của URL đã chuẩn hóa (unique index uq_product_url_hash)
+    Optional<Product> findByUrlHash(byte[] urlHash);
+
+    boolean existsByUrlHash(byte[] urlHash);
+
+    // Tìm sản phẩm theo URL, so khớp trên hash thay vì chuỗi 255 ký tự
+    default Optional<Product> findByUrl(String url) {
+        return findByUrlHash(UrlNormalizer.hash(UrlNormalizer.normalize(url)));
+    }
+
+    // Tìm sản phẩm theo mã type
+    List<Product> findByTypeId(Integer typeId);
 
     // Tìm sản phẩm theo notification status
     List<Product> findByIsNotify(Integer isNotify);
@@ -28,43 +51,93 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
     // Tìm sản phẩm được tạo trong khoảng thời gian
     List<Product> findByCreatedAtBetween(LocalDate startDate, LocalDate endDate);
 
-    // Tìm sản phẩm theo type và notification status
-    List<Product> findByTypeAndIsNotify(String type, Integer isNotify);
+    // Tìm sản phẩm theo mã type và notification status
+    List<Product> findByTypeIdAndIsNotify(Integer typeId, Integer isNotify);
+
+    // Ứng viên tìm kiếm URL theo chuỗi con: LIKE trên lower(url) dùng GIN trigram index
+    @Query(value = "SELECT * FROM product p " +
+            "WHERE LOWER(CAST(p.url AS TEXT)) LIKE :pattern ESCAPE '\\' " +
+            "ORDER BY similarity(LOWER(CAST(p.url AS TEXT)), :keyword) DESC, p.id " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Product> findUrlCandidatesByPattern(@Param("pattern") String pattern,
+                                             @Param("keyword") String keyword,
+                                             @Param("limit") int limit);
+
+    // Ứng viên tìm kiếm URL theo tiền tố token: regex cũng được GIN trigram index hỗ trợ
+    @Query(value = "SELECT * FROM product p " +
+            "WHERE LOWER(CAST(p.url AS TEXT)) ~ :regex " +
+            "ORDER BY similarity(LOWER(CAST(p.url AS TEXT)), :keyword) DESC, p.id " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Product> findUrlCandidatesByRegex(@Param("regex") String regex,
+                                           @Param("keyword") String keyword,
+                                           @Param("limit") int limit);
+
+    // Tìm kiếm URL kiểu cũ: LIKE phân biệt hoa thường, không giới hạn số dòng; pattern đã escape % _ \.
+    // Điều kiện trên lower(url) luôn đúng khi url LIKE :pattern đúng, chỉ thêm vào để dùng được GIN trigram index
+    @Query(value = "SELECT * FROM product p " +
+            "WHERE LOWER(CAST(p.url AS TEXT)) LIKE LOWER(:pattern) ESCAPE '\\' AND p.url LIKE :pattern ESCAPE '\\' " +
+            "ORDER BY p.id",
+            nativeQuery = true)
+    List<Product> findByUrlLike(@Param("pattern") String pattern);
 
-    // Tìm sản phẩm với URL chứa keyword
-    @Query("SELECT p FROM Product p WHERE p.url LIKE %:keyword%")
-    List<Product> findByUrlContaining(@Param("keyword") String keyword);
+    // Đếm số lượng sản phẩm theo mã type
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.typeId = :typeId")
+    Long countByTypeId(@Param("typeId") Integer typeId);
 
-    // Đếm số lượng sản phẩm theo type
-    @Query("SELECT COUNT(p) FROM Product p WHERE p.type = :type")
-    Long countByType(@Param("type") String type);
+    // Đếm sản phẩm theo từng cặp (type, isNotify) trong một lần quét, kèm snapshot của câu lệnh.
+    // Gọi ngoài transaction thì chạy trên primary; trong transaction thì dùng connection của transaction đó
+    @Query(value = "SELECT c.type AS type, c.is_notify AS \"isNotify\", c.total AS total, s.snapshot AS snapshot " +
+            "FROM (SELECT CAST(txid_current_snapshot() AS TEXT) AS snapshot) s " +
+            "LEFT JOIN (SELECT type, is_notify, COUNT(*) AS total FROM product GROUP BY type, is_notify) c ON true",
+            nativeQuery = true)
+    List<ProductCountView> countGroupByTypeAndIsNotify();
 
     // Tìm sản phẩm với pagination và filter
-    @Query("SELECT p FROM Product p WHERE " +
-            "(:type IS NULL OR p.type = :type) AND " +
-            "(:isNotify IS NULL OR p.isNotify = :isNotify)")
-    Page<Product> findWithFilters(@Param("type") String type,
+    @Query(FILTERS_QUERY)
+    Page<Product> findWithFilters(@Param("typeId") Integer typeId,
                                   @Param("isNotify") Integer isNotify,
                                   Pageable pageable);
 
+    // Như findWithFilters nhưng không chạy COUNT, chỉ lấy dư một dòng để biết còn trang sau
+    @Query(FILTERS_QUERY)
+    Slice<Product> findSliceWithFilters(@Param("typeId") Integer typeId,
+                                        @Param("isNotify") Integer isNotify,
+                                        Pageable pageable);
+
+    // Stream toàn bộ sản phẩm qua server-side cursor, phải gọi trong transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p FROM Product p ORDER BY p.createdAt DESC")
+    Stream<Product> streamAllOrderByCreatedAtDesc();
+
     // Kiểm tra URL đã tồn tại chưa
-    boolean existsByUrl(String url);
+    default boolean existsByUrl(String url) {
+        return existsByUrlHash(UrlNormalizer.hash(UrlNormalizer.normalize(url)));
+    }
 
     // Lấy danh sách các type duy nhất
     @Query("SELECT DISTINCT p.type FROM Product p WHERE p.type IS NOT NULL ORDER BY p.type")
     List<String> findDistinctTypes();
 
-    @Query(value = "SELECT * FROM product p WHERE " +
-            "(:type IS NULL OR p.type = :type) AND " +
-            "(:url IS NULL OR LOWER(CAST(p.url AS TEXT)) LIKE LOWER(CONCAT('%', :url, '%'))) AND " +
-            "(:isNotify IS NULL OR p.is_notify = :isNotify)",
-            countQuery = "SELECT COUNT(*) FROM product p WHERE " +
-                    "(:type IS NULL OR p.type = :type) AND " +
-                    "(:url IS NULL OR LOWER(CAST(p.url AS TEXT)) LIKE LOWER(CONCAT('%', :url, '%'))) AND " +
-                    "(:isNotify IS NULL OR p.is_notify = :isNotify)",
+    @Query(value = "SELECT * FROM product p WHERE " + SEARCH_CONDITIONS,
+            countQuery = "SELECT COUNT(*) FROM product p WHERE " + SEARCH_CONDITIONS,
             nativeQuery = true)
     Page<Product> search(
-            @Param("type") String type,
+            @Param("typeId") Integer typeId,
+            @Param("url") String url,
+            @Param("isNotify") Integer isNotify,
+            Pageable pageable
+    );
+
+    // Như search nhưng không chạy countQuery
+    @Query(value = "SELECT * FROM product p WHERE " + SEARCH_CONDITIONS, nativeQuery = true)
+    Slice<Product> searchSlice(
+            @Param("typeId") Integer typeId,
             @Param("url") String url,
             @Param("isNotify") Integer isNotify,
             Pageable pageable
@@ -0,0 +1,63 @@
+package com.luulv.vn.backendtracking.repository;
+
+import com.luulv.vn.backendtracking.tracking.ProductSnapshot;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+@Timed(value = "tracking.jdbc", histogram = true)
+public class ProductSnapshotRepository {
+
+    private static final String META_COLUMNS = "product_id, version, content_hash, captured_at, keyframe, " +
+            "content_length, OCTET_LENGTH(payload)";
+
+    private static final RowMapper<ProductSnapshot> META_MAPPER = (rs, rowNum) -> new ProductSnapshot(
+            rs.getInt(1), rs.getInt(2), rs.getString(3), rs.getTimestamp(4).toLocalDateTime(),
+            rs.getBoolean(5), rs.getInt(6), rs.getInt(7), null);
+
+    private static final RowMapper<ProductSnapshot> FULL_MAPPER = (rs, rowNum) -> {
+        ProductSnapshot snapshot = META_MAPPER.mapRow(rs, rowNum);
+        snapshot.setPayload(rs.getBytes(8));
+        return snapshot;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<ProductSnapshot> findLatest(Integer productId) {
+        return jdbcTemplate.query("SELECT " + META_COLUMNS + " FROM product_snapshot WHERE product_id = ? " +
+                "ORDER BY version DESC LIMIT 1", META_MAPPER, productId).stream().findFirst();
+    }
+
+    /**
+     * Keyframe gần nhất tính tới version và các delta sau nó, đủ để dựng lại nội dung của version
+     */
+    public List<ProductSnapshot> findChain(Integer productId, int version) {
+        return jdbcTemplate.query("SELECT " + META_COLUMNS + ", payload FROM product_snapshot " +
+                "WHERE product_id = ? AND version <= ? AND version >= (" +
+                "SELECT MAX(version) FROM product_snapshot WHERE product_id = ? AND keyframe AND version <= ?) " +
+                "ORDER BY version", FULL_MAPPER, productId, version, productId, version);
+    }
+
+    public List<ProductSnapshot> findSince(Integer productId, LocalDateTime since, int limit) {
+        return jdbcTemplate.query("SELECT " + META_COLUMNS + " FROM product_snapshot " +
+                "WHERE product_id = ? AND captured_at > ? ORDER BY version LIMIT ?",
+                META_MAPPER, productId, Timestamp.valueOf(since), limit);
+    }
+
+    public void insert(ProductSnapshot snapshot) {
+        jdbcTemplate.update("INSERT INTO product_snapshot (product_id, version, content_hash, captured_at, " +
+                        "keyframe, content_length, payload) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                snapshot.getProductId(), snapshot.getVersion(), snapshot.getContentHash(),
+                Timestamp.valueOf(snapshot.getCapturedAt()), snapshot.isKeyframe(), snapshot.getContentLength(),
+                snapshot.getPayload());
+    }
+}
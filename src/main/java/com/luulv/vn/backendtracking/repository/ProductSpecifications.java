@@ -0,0 +1,34 @@
+package com.luulv.vn.backendtracking.repository;
+
+import com.luulv.vn.backendtracking.entity.Product;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Điều kiện lọc sản phẩm, chỉ sinh predicate cho các filter được truyền vào.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    // typeId là mã type từ ProductTypeDictionary.idOf
+    public static Specification<Product> withFilters(Integer typeId, String url, Integer isNotify) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (typeId != null) {
+                predicates.add(cb.equal(root.get("typeId"), typeId));
+            }
+            if (url != null) {
+                predicates.add(cb.like(cb.lower(root.get("url")), "%" + url.toLowerCase() + "%"));
+            }
+            if (isNotify != null) {
+                predicates.add(cb.equal(root.get("isNotify"), isNotify));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
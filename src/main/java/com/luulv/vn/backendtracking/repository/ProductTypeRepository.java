@@ -0,0 +1,13 @@
+package com.luulv.vn.backendtracking.repository;
+
+import com.luulv.vn.backendtracking.entity.ProductType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ProductTypeRepository extends JpaRepository<ProductType, Integer> {
+
+    Optional<ProductType> findByName(String name);
+}
@@ -0,0 +1,56 @@
+package com.luulv.vn.backendtracking.repository;
+
+import com.luulv.vn.backendtracking.entity.Product;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Tạo sản phẩm bằng một câu INSERT ... ON CONFLICT trên url_hash thay cho existsByUrl + save:
+ * một round trip, và unique index chặn trùng kể cả khi nhiều request tạo cùng URL đồng thời.
+ */
+@Repository
+@RequiredArgsConstructor
+@Timed(value = "tracking.jdbc", histogram = true)
+public class ProductUpsertRepository {
+
+    // DO UPDATE (không đổi giá trị) thay vì DO NOTHING để RETURNING luôn trả về dòng, kể cả dòng vừa được
+    // transaction khác commit; xmax = 0 nghĩa là dòng do chính câu lệnh này insert
+    private static final String INSERT_OR_GET_SQL = "INSERT INTO product (url, url_hash, type, is_notify, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (url_hash) DO UPDATE SET url_hash = EXCLUDED.url_hash " +
+            "RETURNING id, url, url_hash, type, type_id, is_notify, created_at, updated_at, (xmax = 0) AS inserted";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Result(Product product, boolean created) {
+    }
+
+    /**
+     * Insert product nếu chưa có URL (đã chuẩn hóa) này, ngược lại trả về dòng đang có
+     */
+    public Result insertOrGet(Product product, LocalDate today) {
+        Date date = Date.valueOf(today);
+        return jdbcTemplate.queryForObject(INSERT_OR_GET_SQL, (rs, rowNum) -> {
+            Product row = new Product();
+            row.setId(rs.getInt("id"));
+            row.setUrl(rs.getString("url"));
+            row.setType(rs.getString("type"));
+            row.setTypeId(rs.getObject("type_id", Integer.class));
+            row.setIsNotify(rs.getInt("is_notify"));
+            row.setCreatedAt(toLocalDate(rs.getDate("created_at")));
+            row.setUpdatedAt(toLocalDate(rs.getDate("updated_at")));
+            // Giữ hash đang lưu trong DB: dòng ghi trước khi quy tắc của UrlNormalizer đổi mang hash theo quy tắc cũ
+            row.setUrlHash(rs.getBytes("url_hash"));
+            return new Result(row, rs.getBoolean("inserted"));
+        }, product.getUrl(), product.getUrlHash(), product.getType(), product.getIsNotify(), date, date);
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date == null ? null : date.toLocalDate();
+    }
+}
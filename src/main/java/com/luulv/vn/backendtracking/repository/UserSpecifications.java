@@ -0,0 +1,50 @@
+package com.luulv.vn.backendtracking.repository;
+
+import com.luulv.vn.backendtracking.dto.UserSearchRequest;
+import com.luulv.vn.backendtracking.entity.User;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Điều kiện tìm kiếm user, chỉ sinh predicate cho các filter được truyền vào.
+ * Chuỗi rỗng coi như không filter để không tạo thêm dạng câu SQL LIKE '%%'.
+ */
+public final class UserSpecifications {
+
+    private UserSpecifications() {
+    }
+
+    public static Specification<User> withFilters(UserSearchRequest request) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (StringUtils.hasText(request.getUsername())) {
+                predicates.add(cb.like(cb.lower(root.get("username")),
+                        "%" + request.getUsername().toLowerCase() + "%"));
+            }
+            if (StringUtils.hasText(request.getFullName())) {
+                predicates.add(cb.like(cb.lower(root.get("fullName")),
+                        "%" + request.getFullName().toLowerCase() + "%"));
+            }
+            if (request.getRegisterDateFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("registerDate"), request.getRegisterDateFrom()));
+            }
+            if (request.getRegisterDateTo() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("registerDate"), request.getRegisterDateTo()));
+            }
+            if (request.getExpiredDateFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("expiredDate"), request.getExpiredDateFrom()));
+            }
+            if (request.getExpiredDateTo() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("expiredDate"), request.getExpiredDateTo()));
+            }
+            if (request.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), request.getStatus()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package com.luulv.vn.backendtracking.search;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Chuẩn hóa URL sản phẩm để hai cách viết của cùng một trang được coi là một:
+ * scheme/host chữ thường, bỏ port mặc định, fragment, dấu / cuối path và các query param tracking.
+ * Path và giá trị query giữ nguyên vì có site phân biệt chữ hoa/thường.
+ * Giống UrlTokenizer, không dùng java.net.URI vì URL người dùng nhập thường không đúng chuẩn.
+ */
+public final class UrlNormalizer {
+
+    // Param chỉ dùng để đo lường quảng cáo/chia sẻ, không đổi nội dung trang (utm_* được xử lý riêng)
+    private static final Set<String> TRACKING_PARAMS = Set.of(
+            "fbclid", "gclid", "gclsrc", "dclid", "msclkid", "yclid", "igshid",
+            "mc_cid", "mc_eid", "_ga", "_gl", "spm", "sp_atk", "xptdk");
+
+    private UrlNormalizer() {
+    }
+
+    public static String normalize(String url) {
+        if (url == null) {
+            return null;
+        }
+        String rest = url.trim();
+
+        int fragment = rest.indexOf('#');
+        if (fragment >= 0) {
+            rest = rest.substring(0, fragment);
+        }
+
+        String scheme = "";
+        int schemeEnd = rest.indexOf("://");
+        if (schemeEnd > 0) {
+            scheme = rest.substring(0, schemeEnd).toLowerCase(Locale.ROOT);
+            rest = rest.substring(schemeEnd + 3);
+        }
+
+        String query = "";
+        int queryStart = rest.indexOf('?');
+        if (queryStart >= 0) {
+            query = rest.substring(queryStart + 1);
+            rest = rest.substring(0, queryStart);
+        }
+
+        String authority = rest;
+        String path = "";
+        int pathStart = rest.indexOf('/');
+        if (pathStart >= 0) {
+            authority = rest.substring(0, pathStart);
+            path = rest.substring(pathStart);
+        }
+
+        // Chỉ host không phân biệt chữ hoa/thường, user info giữ nguyên
+        int userInfoEnd = authority.lastIndexOf('@');
+        String host = authority.substring(userInfoEnd + 1).toLowerCase(Locale.ROOT);
+        if (("http".equals(scheme) && host.endsWith(":80")) || ("https".equals(scheme) && host.endsWith(":443"))) {
+            host = host.substring(0, host.lastIndexOf(':'));
+        }
+        authority = authority.substring(0, userInfoEnd + 1) + host;
+
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+
+        StringBuilder normalized = new StringBuilder(url.length());
+        if (!scheme.isEmpty()) {
+            normalized.append(scheme).append("://");
+        }
+        normalized.append(authority).append(path);
+        String kept = stripTrackingParams(query);
+        if (!kept.isEmpty()) {
+            normalized.append('?').append(kept);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * SHA-256 của URL (đã chuẩn hóa), giá trị của cột product.url_hash
+     */
+    public static byte[] hash(String normalizedUrl) {
+        if (normalizedUrl == null) {
+            return null;
+        }
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(normalizedUrl.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 không khả dụng", e);
+        }
+    }
+
+    // Giữ thứ tự các param còn lại, bỏ param rỗng
+    private static String stripTrackingParams(String query) {
+        StringJoiner kept = new StringJoiner("&");
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String key = (eq >= 0 ? pair.substring(0, eq) : pair).toLowerCase(Locale.ROOT);
+            if (!key.startsWith("utm_") && !TRACKING_PARAMS.contains(key)) {
+                kept.add(pair);
+            }
+        }
+        return kept.toString();
+    }
+}
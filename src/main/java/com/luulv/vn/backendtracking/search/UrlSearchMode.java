@@ -0,0 +1,8 @@
+package com.luulv.vn.backendtracking.search;
+
+public enum UrlSearchMode {
+    // Từ khóa xuất hiện ở bất kỳ vị trí nào trong URL
+    SUBSTRING,
+    // Từ khóa là phần đầu của một token (host, label của host, path segment, query key)
+    PREFIX
+}
@@ -0,0 +1,121 @@
+package com.luulv.vn.backendtracking.search;
+
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import com.luulv.vn.backendtracking.dto.UrlSearchResultDto;
+import com.luulv.vn.backendtracking.entity.Product;
+import com.luulv.vn.backendtracking.mapper.ProductMapper;
+import com.luulv.vn.backendtracking.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Tìm kiếm sản phẩm theo URL.
+ * Ứng viên được lấy qua GIN trigram index trên lower(url) (xem migration V2), sau đó xếp hạng
+ * theo token khớp: host > path segment > query key > chuỗi con bất kỳ.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class UrlSearchService {
+
+    public static final int MIN_KEYWORD_LENGTH = 3;
+    public static final int MAX_LIMIT = 100;
+
+    // Số ứng viên lấy từ DB cho mỗi kết quả trả về, để bước xếp hạng có đủ dữ liệu
+    private static final int CANDIDATE_FACTOR = 5;
+    private static final int MAX_CANDIDATES = 500;
+
+    private final ProductRepository productRepository;
+
+    private final ProductMapper productMapper;
+
+    public List<UrlSearchResultDto> search(String keyword, UrlSearchMode mode, int limit) {
+        String normalized = keyword == null ? "" : keyword.trim().toLowerCase(Locale.ROOT);
+        if (normalized.length() < MIN_KEYWORD_LENGTH) {
+            throw new IllegalArgumentException("Từ khóa phải có ít nhất " + MIN_KEYWORD_LENGTH + " ký tự");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit phải nằm trong khoảng 1-" + MAX_LIMIT);
+        }
+
+        int candidateLimit = Math.min(limit * CANDIDATE_FACTOR, MAX_CANDIDATES);
+        List<Product> candidates = mode == UrlSearchMode.PREFIX
+                ? productRepository.findUrlCandidatesByRegex(tokenPrefixRegex(normalized), normalized, candidateLimit)
+                : productRepository.findUrlCandidatesByPattern("%" + escapeLike(normalized) + "%", normalized, candidateLimit);
+
+        log.debug("URL search '{}' ({}) returned {} candidates", normalized, mode, candidates.size());
+
+        return candidates.stream()
+                .map(product -> rank(product, normalized))
+                .sorted(Comparator.comparingInt(UrlSearchResultDto::getScore).reversed()
+                        .thenComparingInt(result -> result.getProduct().getUrl().length()))
+                .limit(limit)
+                .toList();
+    }
+
+    private UrlSearchResultDto rank(Product product, String keyword) {
+        UrlTokens tokens = UrlTokenizer.tokenize(product.getUrl());
+        ProductResponseDto dto = productMapper.toDto(product);
+
+        String host = tokens.getHost();
+        if (host.equals(keyword)) {
+            return new UrlSearchResultDto(dto, 100, "host");
+        }
+        if (host.startsWith(keyword) || host.contains("." + keyword)) {
+            return new UrlSearchResultDto(dto, 80, "host");
+        }
+        if (host.contains(keyword)) {
+            return new UrlSearchResultDto(dto, 70, "host");
+        }
+
+        int pathScore = tokenScore(tokens.getPathSegments(), keyword, 60);
+        if (pathScore > 0) {
+            return new UrlSearchResultDto(dto, pathScore, "path");
+        }
+        int queryScore = tokenScore(tokens.getQueryKeys(), keyword, 35);
+        if (queryScore > 0) {
+            return new UrlSearchResultDto(dto, queryScore, "query");
+        }
+        return new UrlSearchResultDto(dto, 10, "url");
+    }
+
+    // Khớp chính xác được điểm tối đa, khớp tiền tố -10, chuỗi con -20
+    private static int tokenScore(List<String> tokens, String keyword, int exactScore) {
+        int best = 0;
+        for (String token : tokens) {
+            if (token.equals(keyword)) {
+                return exactScore;
+            }
+            if (token.startsWith(keyword)) {
+                best = Math.max(best, exactScore - 10);
+            } else if (token.contains(keyword)) {
+                best = Math.max(best, exactScore - 20);
+            }
+        }
+        return best;
+    }
+
+    // Escape ký tự đại diện của LIKE, dùng với ESCAPE '\'
+    public static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // Từ khóa phải đứng đầu URL hoặc ngay sau một ký tự phân tách token
+    static String tokenPrefixRegex(String value) {
+        StringBuilder regex = new StringBuilder("(^|[^a-z0-9])");
+        for (char c : value.toCharArray()) {
+            if ("\\.^$|?*+()[]{}".indexOf(c) >= 0) {
+                regex.append('\\');
+            }
+            regex.append(c);
+        }
+        return regex.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package com.luulv.vn.backendtracking.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Tách URL thành host, path segments và query keys.
+ * Không dùng java.net.URI vì URL người dùng nhập thường không đúng chuẩn (thiếu scheme, có khoảng trắng...).
+ */
+public final class UrlTokenizer {
+
+    private UrlTokenizer() {
+    }
+
+    public static UrlTokens tokenize(String url) {
+        String rest = url == null ? "" : url.trim().toLowerCase(Locale.ROOT);
+
+        int schemeEnd = rest.indexOf("://");
+        if (schemeEnd >= 0) {
+            rest = rest.substring(schemeEnd + 3);
+        }
+        int fragment = rest.indexOf('#');
+        if (fragment >= 0) {
+            rest = rest.substring(0, fragment);
+        }
+
+        String query = "";
+        int queryStart = rest.indexOf('?');
+        if (queryStart >= 0) {
+            query = rest.substring(queryStart + 1);
+            rest = rest.substring(0, queryStart);
+        }
+
+        String host = rest;
+        String path = "";
+        int pathStart = rest.indexOf('/');
+        if (pathStart >= 0) {
+            host = rest.substring(0, pathStart);
+            path = rest.substring(pathStart + 1);
+        }
+
+        int userInfoEnd = host.lastIndexOf('@');
+        if (userInfoEnd >= 0) {
+            host = host.substring(userInfoEnd + 1);
+        }
+        int portStart = host.lastIndexOf(':');
+        if (portStart >= 0) {
+            host = host.substring(0, portStart);
+        }
+        if (host.startsWith("www.")) {
+            host = host.substring(4);
+        }
+
+        return new UrlTokens(host, split(path, '/'), queryKeys(query));
+    }
+
+    private static List<String> queryKeys(String query) {
+        List<String> keys = new ArrayList<>();
+        for (String pair : split(query, '&')) {
+            int eq = pair.indexOf('=');
+            String key = eq >= 0 ? pair.substring(0, eq) : pair;
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static List<String> split(String value, char separator) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= value.length(); i++) {
+            if (i == value.length() || value.charAt(i) == separator) {
+                if (i > start) {
+                    parts.add(value.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,19 @@
+package com.luulv.vn.backendtracking.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Các thành phần của URL sau khi tách token (đã chuyển về chữ thường).
+ */
+@Data
+@AllArgsConstructor
+public class UrlTokens {
+
+    // Host không gồm "www.", port và userinfo
+    private String host;
+    private List<String> pathSegments;
+    private List<String> queryKeys;
+}
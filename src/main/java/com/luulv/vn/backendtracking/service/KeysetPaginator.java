@@ -0,0 +1,72 @@
+package com.luulv.vn.backendtracking.service;
+
+import com.luulv.vn.backendtracking.dto.CursorPage;
+import com.luulv.vn.backendtracking.dto.KeysetCursor;
+import com.luulv.vn.backendtracking.repository.KeysetSpecifications;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Phân trang keyset dùng chung cho các service: không OFFSET, chỉ đếm tổng khi được yêu cầu.
+ */
+final class KeysetPaginator {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private KeysetPaginator() {
+    }
+
+    static <E, D> CursorPage<D> fetch(JpaSpecificationExecutor<E> repository,
+                                      Specification<E> filter,
+                                      Set<String> allowedSortKeys,
+                                      String sortBy,
+                                      String sortDir,
+                                      String cursor,
+                                      int size,
+                                      boolean includeTotal,
+                                      Function<E, D> mapper) {
+        // Set.of(...).contains(null) ném NullPointerException, sortBy rỗng phải thành lỗi 400 chứ không phải 500
+        if (sortBy == null || !allowedSortKeys.contains(sortBy)) {
+            throw new IllegalArgumentException("Không hỗ trợ sắp xếp theo: " + sortBy);
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Size phải nằm trong khoảng 1-" + MAX_PAGE_SIZE);
+        }
+        Sort.Direction direction = "desc".equalsIgnoreCase(sortDir) ? Sort.Direction.DESC : Sort.Direction.ASC;
+
+        Specification<E> spec = filter;
+        if (cursor != null && !cursor.isBlank()) {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            if (!sortBy.equals(position.getSortBy()) || direction != position.getDirection()) {
+                throw new IllegalArgumentException("Cursor không khớp với sortBy/sortDirection của request");
+            }
+            spec = filter.and(KeysetSpecifications.after(position));
+        }
+
+        // Lấy dư một dòng để biết còn trang sau hay không
+        Sort sort = KeysetSpecifications.sortFor(sortBy, direction);
+        List<E> rows = repository.findBy(spec, query -> query.sortBy(sort).limit(size + 1).all());
+
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            BeanWrapper last = PropertyAccessorFactory.forBeanPropertyAccess(pageRows.get(pageRows.size() - 1));
+            nextCursor = new KeysetCursor(sortBy, direction,
+                    KeysetSpecifications.formatValue(last.getPropertyValue(sortBy)),
+                    (Integer) last.getPropertyValue("id")).encode();
+        }
+
+        Long total = includeTotal ? repository.count(filter) : null;
+        List<D> content = pageRows.stream().map(mapper).toList();
+        return new CursorPage<>(content, content.size(), nextCursor, hasNext, total);
+    }
+}
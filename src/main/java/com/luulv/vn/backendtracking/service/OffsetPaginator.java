@@ -0,0 +1,48 @@
+package com.luulv.vn.backendtracking.service;
+
+import com.luulv.vn.backendtracking.dto.ApproximatePage;
+import com.luulv.vn.backendtracking.dto.CountMode;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Phân trang offset theo CountMode dùng chung cho các service.
+ * EXACT: Page như cũ (thêm một câu COUNT). NONE: Slice, không đếm.
+ * APPROXIMATE: lấy như NONE rồi gắn tổng gần đúng, chỉ gọi approximateTotal khi trang hiện tại chưa cho biết tổng.
+ */
+final class OffsetPaginator {
+
+    private OffsetPaginator() {
+    }
+
+    static <E, D> Slice<D> fetch(CountMode mode,
+                                 Pageable pageable,
+                                 Function<Pageable, Page<E>> pageQuery,
+                                 Function<Pageable, Slice<E>> sliceQuery,
+                                 LongSupplier approximateTotal,
+                                 Function<E, D> mapper) {
+        if (mode == null || mode == CountMode.EXACT) {
+            return pageQuery.apply(pageable).map(mapper);
+        }
+        Slice<D> slice = sliceQuery.apply(pageable).map(mapper);
+        if (mode == CountMode.NONE) {
+            return slice;
+        }
+
+        List<D> content = slice.getContent();
+        long seen = pageable.getOffset() + content.size();
+        // Trang cuối có dữ liệu: tổng biết chính xác, không cần ước lượng
+        if (!slice.hasNext() && !content.isEmpty()) {
+            return new PageImpl<>(content, pageable, seen);
+        }
+        // Tổng ước lượng không được mâu thuẫn với những gì vừa đọc được
+        long total = approximateTotal.getAsLong();
+        return new ApproximatePage<>(content, pageable, slice.hasNext() ? Math.max(total, seen + 1) : total);
+    }
+}
@@ -0,0 +1,221 @@
+package com.luulv.vn.backendtracking.service;
+
+import com.luulv.vn.backendtracking.dto.BulkImportResultDto;
+import com.luulv.vn.backendtracking.dto.BulkImportRowResult;
+import com.luulv.vn.backendtracking.dto.ProductRequestDto;
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import com.luulv.vn.backendtracking.event.ProductsImportedEvent;
+import com.luulv.vn.backendtracking.search.UrlNormalizer;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Import sản phẩm số lượng lớn.
+ * Product dùng IDENTITY nên Hibernate không batch insert được, vì vậy service này đi thẳng JDBC:
+ * kiểm tra trùng bằng một truy vấn url_hash = ANY(array) mỗi chunk và insert nhiều dòng bằng unnest.
+ * URL được lưu đúng như client gửi, chỉ so trùng theo URL đã chuẩn hóa (url_hash), giống khi tạo từng sản phẩm.
+ * Mỗi chunk phát một ProductsImportedEvent thay cho một ProductChangeEvent mỗi dòng.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Timed(value = "tracking.service", histogram = true)
+public class ProductBulkImportService {
+
+    private static final int MAX_URL_LENGTH = 255;
+    private static final int MAX_TYPE_LENGTH = 255;
+
+    private static final String FIND_EXISTING_SQL = "SELECT encode(url_hash, 'hex') FROM product " +
+            "WHERE url_hash = ANY(SELECT decode(h, 'hex') FROM unnest(?::text[]) AS h)";
+
+    // ON CONFLICT: URL được request khác tạo xen giữa lúc kiểm tra và insert thì bỏ qua, báo là trùng
+    private static final String INSERT_SQL = "INSERT INTO product (url, url_hash, type, is_notify, created_at, updated_at) " +
+            "SELECT r.url, decode(r.url_hash, 'hex'), r.type, r.is_notify, ?, ? " +
+            "FROM unnest(?::text[], ?::text[], ?::text[], ?::int[]) AS r(url, url_hash, type, is_notify) " +
+            "ON CONFLICT (url_hash) DO NOTHING " +
+            "RETURNING id, encode(url_hash, 'hex') AS url_hash";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${tracking.bulk-import.max-rows:100000}")
+    private int maxRows;
+
+    @Value("${tracking.bulk-import.chunk-size:5000}")
+    private int chunkSize;
+
+    /**
+     * Import danh sách sản phẩm trong một transaction, trả về kết quả cho từng dòng
+     */
+    @Transactional
+    public BulkImportResultDto importProducts(List<ProductRequestDto> requests) {
+        if (requests.size() > maxRows) {
+            throw new IllegalArgumentException("Số dòng import vượt quá giới hạn " + maxRows);
+        }
+        log.info("Bulk importing {} products", requests.size());
+
+        BulkImportRowResult[] results = new BulkImportRowResult[requests.size()];
+
+        // Kiểm tra hợp lệ và loại trùng ngay trong request, giữ dòng xuất hiện đầu tiên.
+        // Khóa là hash (hex) của URL đã chuẩn hóa
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ProductRequestDto request = requests.get(i);
+            String url = request == null ? null : request.getUrl();
+            String error = validate(request);
+            if (error != null) {
+                results[i] = new BulkImportRowResult(i, url, BulkImportRowResult.Status.INVALID, null, error);
+                continue;
+            }
+            String hash = hexHash(UrlNormalizer.normalize(url));
+            if (candidates.putIfAbsent(hash, i) != null) {
+                results[i] = new BulkImportRowResult(i, url, BulkImportRowResult.Status.DUPLICATE, null,
+                        "URL bị trùng với dòng " + candidates.get(hash));
+            }
+        }
+
+        List<String> hashes = new ArrayList<>(candidates.keySet());
+        LocalDate today = LocalDate.now();
+        for (int from = 0; from < hashes.size(); from += chunkSize) {
+            List<String> chunk = hashes.subList(from, Math.min(from + chunkSize, hashes.size()));
+            Set<String> existing = findExistingHashes(chunk);
+
+            List<String> toInsert = new ArrayList<>(chunk.size());
+            for (String hash : chunk) {
+                int index = candidates.get(hash);
+                if (existing.contains(hash)) {
+                    results[index] = new BulkImportRowResult(index, requests.get(index).getUrl(),
+                            BulkImportRowResult.Status.DUPLICATE, null, "URL đã tồn tại trong hệ thống");
+                } else {
+                    toInsert.add(hash);
+                }
+            }
+
+            Map<String, Integer> ids = insert(toInsert, candidates, requests, today);
+            List<ProductResponseDto> inserted = new ArrayList<>(ids.size());
+            for (String hash : toInsert) {
+                int index = candidates.get(hash);
+                ProductRequestDto request = requests.get(index);
+                String url = request.getUrl();
+                Integer id = ids.get(hash);
+                if (id == null) {
+                    results[index] = new BulkImportRowResult(index, url, BulkImportRowResult.Status.DUPLICATE, null,
+                            "URL đã tồn tại trong hệ thống");
+                    continue;
+                }
+                results[index] = new BulkImportRowResult(index, url, BulkImportRowResult.Status.CREATED, id, null);
+                inserted.add(new ProductResponseDto(id, url, request.getType(), isNotifyOf(request), today, today));
+            }
+            if (!inserted.isEmpty()) {
+                eventPublisher.publishEvent(new ProductsImportedEvent(inserted));
+            }
+        }
+
+        int created = 0;
+        int duplicates = 0;
+        int invalid = 0;
+        for (BulkImportRowResult result : results) {
+            switch (result.getStatus()) {
+                case CREATED -> created++;
+                case DUPLICATE -> duplicates++;
+                case INVALID -> invalid++;
+            }
+        }
+        log.info("Bulk import finished - created: {}, duplicates: {}, invalid: {}", created, duplicates, invalid);
+
+        return new BulkImportResultDto(results.length, created, duplicates, invalid, List.of(results));
+    }
+
+    private Set<String> findExistingHashes(List<String> hashes) {
+        Set<String> existing = new HashSet<>();
+        jdbcTemplate.query(FIND_EXISTING_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", hashes.toArray())),
+                rs -> {
+                    existing.add(rs.getString(1));
+                });
+        return existing;
+    }
+
+    // Trả về id của các dòng đã insert theo hash (hex)
+    private Map<String, Integer> insert(List<String> hashes, Map<String, Integer> candidates,
+                                        List<ProductRequestDto> requests, LocalDate today) {
+        Map<String, Integer> ids = new HashMap<>(hashes.size() * 2);
+        if (hashes.isEmpty()) {
+            return ids;
+        }
+
+        String[] urls = new String[hashes.size()];
+        String[] types = new String[hashes.size()];
+        Integer[] notifyFlags = new Integer[hashes.size()];
+        for (int i = 0; i < hashes.size(); i++) {
+            ProductRequestDto request = requests.get(candidates.get(hashes.get(i)));
+            urls[i] = request.getUrl();
+            types[i] = request.getType();
+            notifyFlags[i] = isNotifyOf(request);
+        }
+
+        Date date = Date.valueOf(today);
+        jdbcTemplate.query(INSERT_SQL,
+                ps -> {
+                    ps.setDate(1, date);
+                    ps.setDate(2, date);
+                    ps.setArray(3, ps.getConnection().createArrayOf("text", urls));
+                    ps.setArray(4, ps.getConnection().createArrayOf("text", hashes.toArray()));
+                    ps.setArray(5, ps.getConnection().createArrayOf("text", types));
+                    ps.setArray(6, ps.getConnection().createArrayOf("integer", notifyFlags));
+                },
+                rs -> {
+                    ids.put(rs.getString("url_hash"), rs.getInt("id"));
+                });
+        return ids;
+    }
+
+    private static String validate(ProductRequestDto request) {
+        if (request == null) {
+            return "URL không được để trống";
+        }
+        // URL chỉ có fragment hay khoảng trắng chuẩn hóa thành rỗng: không có gì để so trùng
+        String normalizedUrl = UrlNormalizer.normalize(request.getUrl());
+        if (normalizedUrl == null || normalizedUrl.isBlank()) {
+            return "URL không được để trống";
+        }
+        // URL được lưu nguyên văn
+        if (request.getUrl().length() > MAX_URL_LENGTH) {
+            return "URL không được vượt quá " + MAX_URL_LENGTH + " ký tự";
+        }
+        if (request.getType() != null && request.getType().length() > MAX_TYPE_LENGTH) {
+            return "Type không được vượt quá " + MAX_TYPE_LENGTH + " ký tự";
+        }
+        Integer isNotify = request.getIsNotify();
+        if (isNotify != null && isNotify != 0 && isNotify != 1) {
+            return "isNotify chỉ nhận giá trị 0 hoặc 1";
+        }
+        return null;
+    }
+
+    private static String hexHash(String normalizedUrl) {
+        return HexFormat.of().formatHex(UrlNormalizer.hash(normalizedUrl));
+    }
+
+    private static Integer isNotifyOf(ProductRequestDto request) {
+        return request.getIsNotify() != null ? request.getIsNotify() : 1;
+    }
+}
@@ -1,35 +1,79 @@
 package com.luulv.vn.backendtracking.service;
 
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luulv.vn.backendtracking.cache.ApproximateCounter;
+import com.luulv.vn.backendtracking.cache.NearCache;
+import com.luulv.vn.backendtracking.cache.ProductTypeDictionary;
+import com.luulv.vn.backendtracking.cache.TableVersionTracker;
+import com.luulv.vn.backendtracking.dto.CountMode;
+import com.luulv.vn.backendtracking.dto.CursorPage;
 import com.luulv.vn.backendtracking.dto.ProductRequestDto;
 import com.luulv.vn.backendtracking.dto.ProductResponseDto;
 import com.luulv.vn.backendtracking.dto.ProductSearchRequestDto;
+import com.luulv.vn.backendtracking.dto.UrlSearchResultDto;
 import com.luulv.vn.backendtracking.dto.UserResponseDTO;
 import com.luulv.vn.backendtracking.entity.Product;
 import com.luulv.vn.backendtracking.entity.User;
+import com.luulv.vn.backendtracking.event.ChangeType;
+import com.luulv.vn.backendtracking.event.ProductChangeEvent;
+import com.luulv.vn.backendtracking.mapper.ProductMapper;
 import com.luulv.vn.backendtracking.repository.ProductRepository;
+import com.luulv.vn.backendtracking.repository.ProductSpecifications;
+import com.luulv.vn.backendtracking.repository.ProductUpsertRepository;
+import com.luulv.vn.backendtracking.search.UrlSearchMode;
+import com.luulv.vn.backendtracking.search.UrlSearchService;
+import com.luulv.vn.backendtracking.statistics.ProductStatisticsEngine;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed(value = "tracking.service", histogram = true)
 @Transactional
 public class ProductService {
 
+    // Các cột được phép dùng làm khóa phân trang cursor
+    private static final Set<String> CURSOR_SORT_KEYS = Set.of("id", "url", "type", "createdAt", "updatedAt");
+
     private final ProductRepository productRepository;
 
-    private final ObjectMapper mapper;
+    private final ProductUpsertRepository productUpsertRepository;
+
+    private final ProductMapper productMapper;
+
+    private final EntityManager entityManager;
+
+    private final UrlSearchService urlSearchService;
+
+    private final ProductStatisticsEngine statisticsEngine;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final NearCache<Integer, ProductResponseDto> productCache;
+
+    private final ProductTypeDictionary typeDictionary;
+
+    private final ApproximateCounter approximateCounter;
 
     /**
      * Tạo sản phẩm mới
@@ -37,20 +81,22 @@ public class ProductService {
     public ProductResponseDto createProduct(ProductRequestDto requestDto) {
         log.info("Creating new product with URL: {}", requestDto.getUrl());
 
-        // Kiểm tra URL đã tồn tại chưa
-        if (productRepository.existsByUrl(requestDto.getUrl())) {
-            throw new RuntimeException("URL đã tồn tại trong hệ thống");
-        }
-
         Product product = new Product();
         product.setUrl(requestDto.getUrl());
         product.setType(requestDto.getType());
         product.setIsNotify(requestDto.getIsNotify() != null ? requestDto.getIsNotify() : 1);
 
-        Product savedProduct = productRepository.save(product);
+        // Một câu INSERT ... ON CONFLICT: trả về dòng mới hoặc dòng đã có cùng URL (sau chuẩn hóa)
+        ProductUpsertRepository.Result result = productUpsertRepository.insertOrGet(product, LocalDate.now());
+        if (!result.created()) {
+            throw new RuntimeException("URL đã tồn tại trong hệ thống (ID: " + result.product().getId() + ")");
+        }
+        Product savedProduct = result.product();
         log.info("Product created successfully with ID: {}", savedProduct.getId());
 
-        return ProductResponseDto.fromEntity(savedProduct);
+        ProductResponseDto created = productMapper.toDto(savedProduct);
+        eventPublisher.publishEvent(new ProductChangeEvent(ChangeType.CREATED, created.getId(), null, created));
+        return created;
     }
 
     /**
@@ -62,21 +108,42 @@ public class ProductService {
 
         List<Product> products = productRepository.findAll(Sort.by(Sort.Direction.DESC, "createdAt"));
         return products.stream()
-                .map(ProductResponseDto::fromEntity)
+                .map(productMapper::toDto)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Lấy sản phẩm theo ID
+     * Stream tất cả sản phẩm cho consumer theo từng dòng.
+     * Entity được detach ngay sau khi map nên bộ nhớ không tăng theo kích thước bảng.
      */
     @Transactional(readOnly = true)
+    public long streamAllProducts(Consumer<ProductResponseDto> consumer) {
+        log.info("Streaming all products");
+
+        long count = 0;
+        try (Stream<Product> products = productRepository.streamAllOrderByCreatedAtDesc()) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                consumer.accept(productMapper.toDto(product));
+                entityManager.detach(product);
+                count++;
+            }
+        }
+
+        log.info("Streamed {} products", count);
+        return count;
+    }
+
+    /**
+     * Lấy sản phẩm theo ID
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public ProductResponseDto getProductById(Integer id) {
         log.info("Fetching product with ID: {}", id);
 
-        Product product = productRepository.findById(id)
+        return productCache.get(id, key -> productRepository.findById(key).map(productMapper::toDto))
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy sản phẩm với ID: " + id));
-
-        return ProductResponseDto.fromEntity(product);
     }
 
     /**
@@ -88,20 +155,23 @@ public class ProductService {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy sản phẩm với ID: " + id));
 
-        // Kiểm tra URL mới có trùng với sản phẩm khác không
-        if (!existingProduct.getUrl().equals(requestDto.getUrl()) &&
-                productRepository.existsByUrl(requestDto.getUrl())) {
-            throw new RuntimeException("URL đã tồn tại trong hệ thống");
-        }
-
+        ProductResponseDto before = productMapper.toDto(existingProduct);
         existingProduct.setUrl(requestDto.getUrl());
         existingProduct.setType(requestDto.getType());
         existingProduct.setIsNotify(requestDto.getIsNotify() != null ? requestDto.getIsNotify() : 1);
 
-        Product updatedProduct = productRepository.save(existingProduct);
+        // URL trùng với sản phẩm khác bị unique index uq_product_url_hash chặn ngay khi flush
+        Product updatedProduct;
+        try {
+            updatedProduct = productRepository.saveAndFlush(existingProduct);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("URL đã tồn tại trong hệ thống");
+        }
         log.info("Product updated successfully with ID: {}", updatedProduct.getId());
 
-        return ProductResponseDto.fromEntity(updatedProduct);
+        ProductResponseDto updated = productMapper.toDto(updatedProduct);
+        eventPublisher.publishEvent(new ProductChangeEvent(ChangeType.UPDATED, id, before, updated));
+        return updated;
     }
 
     /**
@@ -110,12 +180,14 @@ public class ProductService {
     public void deleteProduct(Integer id) {
         log.info("Deleting product with ID: {}", id);
 
-        if (!productRepository.existsById(id)) {
-            throw new RuntimeException("Không tìm thấy sản phẩm với ID: " + id);
-        }
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy sản phẩm với ID: " + id));
 
-        productRepository.deleteById(id);
+        productRepository.delete(product);
         log.info("Product deleted successfully with ID: {}", id);
+
+        eventPublisher.publishEvent(new ProductChangeEvent(
+                ChangeType.DELETED, id, productMapper.toDto(product), null));
     }
 
     /**
@@ -125,9 +197,9 @@ public class ProductService {
     public List<ProductResponseDto> getProductsByType(String type) {
         log.info("Fetching products with type: {}", type);
 
-        List<Product> products = productRepository.findByType(type);
+        List<Product> products = productRepository.findByTypeId(typeDictionary.idOf(type));
         return products.stream()
-                .map(ProductResponseDto::fromEntity)
+                .map(productMapper::toDto)
                 .collect(Collectors.toList());
     }
 
@@ -140,84 +212,133 @@ public class ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy sản phẩm với ID: " + id));
 
+        ProductResponseDto before = productMapper.toDto(product);
         product.toggleNotification();
         Product updatedProduct = productRepository.save(product);
 
         log.info("Notification toggled for product ID: {}, new status: {}",
                 id, updatedProduct.isNotificationEnabled());
 
-        return ProductResponseDto.fromEntity(updatedProduct);
+        ProductResponseDto toggled = productMapper.toDto(updatedProduct);
+        eventPublisher.publishEvent(new ProductChangeEvent(ChangeType.TOGGLED, id, before, toggled));
+        return toggled;
     }
 
     /**
      * Lấy sản phẩm với pagination và filter
      */
     @Transactional(readOnly = true)
-    public Page<ProductResponseDto> getProductsWithPagination(
-            String type, Integer isNotify, int page, int size, String sortBy, String sortDir) {
+    public Slice<ProductResponseDto> getProductsWithPagination(
+            String type, Integer isNotify, int page, int size, String sortBy, String sortDir, CountMode countMode) {
 
-        log.info("Fetching products with pagination - page: {}, size: {}, type: {}, isNotify: {}",
-                page, size, type, isNotify);
+        log.info("Fetching products with pagination - page: {}, size: {}, type: {}, isNotify: {}, countMode: {}",
+                page, size, type, isNotify, countMode);
 
         Sort sort = sortDir.equalsIgnoreCase("desc") ?
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
 
         Pageable pageable = PageRequest.of(page, size, sort);
+        Integer typeId = typeDictionary.idOf(type);
+
+        return OffsetPaginator.fetch(countMode, pageable,
+                p -> productRepository.findWithFilters(typeId, isNotify, p),
+                p -> productRepository.findSliceWithFilters(typeId, isNotify, p),
+                () -> approximateCount(type, null, isNotify),
+                productMapper::toDto);
+    }
+
+    /**
+     * Lấy sản phẩm với phân trang cursor (keyset), chi phí trang sâu bằng trang đầu
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponseDto> getProductsWithCursor(
+            String type, Integer isNotify, int size, String sortBy, String sortDir, String cursor, boolean includeTotal) {
 
-        Page<Product> productPage = productRepository.findWithFilters(type, isNotify, pageable);
+        log.info("Fetching products with cursor - size: {}, sortBy: {}, type: {}, isNotify: {}",
+                size, sortBy, type, isNotify);
 
-        return productPage.map(ProductResponseDto::fromEntity);
+        return KeysetPaginator.fetch(productRepository,
+                ProductSpecifications.withFilters(typeDictionary.idOf(type), null, isNotify),
+                CURSOR_SORT_KEYS, sortBy, sortDir, cursor, size, includeTotal,
+                productMapper::toDto);
     }
 
     /**
      * Lấy danh sách các type duy nhất
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<String> getDistinctTypes() {
         log.info("Fetching distinct product types");
-        return productRepository.findDistinctTypes();
+        return typeDictionary.types();
     }
 
     /**
-     * Tìm kiếm sản phẩm theo URL
+     * Tìm kiếm sản phẩm theo URL (hợp đồng cũ: URL chứa keyword, phân biệt hoa thường, keyword độ dài bất kỳ,
+     * trả về tất cả kết quả). Tìm kiếm có xếp hạng và giới hạn dùng searchProductsByUrl(keyword, mode, limit).
      */
     @Transactional(readOnly = true)
     public List<ProductResponseDto> searchProductsByUrl(String keyword) {
         log.info("Searching products by URL keyword: {}", keyword);
-
-        List<Product> products = productRepository.findByUrlContaining(keyword);
-        return products.stream()
-                .map(ProductResponseDto::fromEntity)
+        if (keyword == null) {
+            return List.of();
+        }
+        return productRepository.findByUrlLike("%" + UrlSearchService.escapeLike(keyword) + "%").stream()
+                .map(productMapper::toDto)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Lấy thống kê sản phẩm
+     * Tìm kiếm sản phẩm theo URL, kết quả đã được xếp hạng
      */
     @Transactional(readOnly = true)
+    public List<UrlSearchResultDto> searchProductsByUrl(String keyword, UrlSearchMode mode, int limit) {
+        log.info("Searching products by URL keyword: {}, mode: {}", keyword, mode);
+        return urlSearchService.search(keyword, mode, limit);
+    }
+
+    /**
+     * Lấy thống kê sản phẩm
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public ProductStatistics getProductStatistics() {
         log.info("Fetching product statistics");
-
-        long totalProducts = productRepository.count();
-        long activeNotifications = productRepository.findByIsNotify(1).size();
-        long inactiveNotifications = productRepository.findByIsNotify(0).size();
-
-        return new ProductStatistics(totalProducts, activeNotifications, inactiveNotifications);
+        return statisticsEngine.snapshot();
     }
 
-    public Page<ProductResponseDto> search(ProductSearchRequestDto request) {
+    public Slice<ProductResponseDto> search(ProductSearchRequestDto request) {
         // Tạo Pageable object
         Pageable pageable = PageRequest.of(request.getPage(), request.getSize());
+        Integer typeId = typeDictionary.idOf(request.getType());
 
         // Thực hiện tìm kiếm
-        Page<Product> userPage = productRepository.search(
-                request.getType(),
-                request.getUrl(),
-                request.getIsNotify(),
-                pageable
-        );
+        return OffsetPaginator.fetch(request.getCountMode(), pageable,
+                p -> productRepository.search(typeId, request.getUrl(), request.getIsNotify(), p),
+                p -> productRepository.searchSlice(typeId, request.getUrl(), request.getIsNotify(), p),
+                () -> approximateCount(request.getType(), request.getUrl(), request.getIsNotify()),
+                productMapper::toDto);
+    }
 
-        return userPage.map(x -> mapper.convertValue(x, ProductResponseDto.class));
+    /**
+     * Tìm kiếm sản phẩm với phân trang cursor (keyset)
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponseDto> searchWithCursor(ProductSearchRequestDto request) {
+        return KeysetPaginator.fetch(productRepository,
+                ProductSpecifications.withFilters(typeDictionary.idOf(request.getType()), request.getUrl(),
+                        request.getIsNotify()),
+                CURSOR_SORT_KEYS, request.getSortBy(), request.getSortDirection(),
+                request.getCursor(), request.getSize(), request.isIncludeTotal(),
+                productMapper::toDto);
+    }
+
+    // Không lọc URL thì đọc bộ đếm thống kê trong bộ nhớ, còn lại dùng COUNT được cache
+    private long approximateCount(String type, String url, Integer isNotify) {
+        if (url == null && (isNotify == null || isNotify == 0 || isNotify == 1)) {
+            return statisticsEngine.count(type, isNotify);
+        }
+        return approximateCounter.count(TableVersionTracker.PRODUCT,
+                () -> productRepository.count(ProductSpecifications.withFilters(typeDictionary.idOf(type), url, isNotify)),
+                type, url, isNotify);
     }
 
     // Inner class cho statistics
@@ -225,14 +346,43 @@ public class ProductService {
         private final long totalProducts;
         private final long activeNotifications;
         private final long inactiveNotifications;
+        private final List<TypeStatistics> types;
 
         public ProductStatistics(long totalProducts, long activeNotifications, long inactiveNotifications) {
+            this(totalProducts, activeNotifications, inactiveNotifications, List.of());
+        }
+
+        public ProductStatistics(long totalProducts, long activeNotifications, long inactiveNotifications,
+                                 List<TypeStatistics> types) {
+            this.totalProducts = totalProducts;
+            this.activeNotifications = activeNotifications;
+            this.inactiveNotifications = inactiveNotifications;
+            this.types = types;
+        }
+
+        // Getters
+        public long getTotalProducts() { return totalProducts; }
+        public long getActiveNotifications() { return activeNotifications; }
+        public long getInactiveNotifications() { return inactiveNotifications; }
+        public List<TypeStatistics> getTypes() { return types; }
+    }
+
+    // Thống kê theo từng type
+    public static class TypeStatistics {
+        private final String type;
+        private final long totalProducts;
+        private final long activeNotifications;
+        private final long inactiveNotifications;
+
+        public TypeStatistics(String type, long totalProducts, long activeNotifications, long inactiveNotifications) {
+            this.type = type;
             this.totalProducts = totalProducts;
             this.activeNotifications = activeNotifications;
             this.inactiveNotifications = inactiveNotifications;
         }
 
         // Getters
+        public String getType() { return type; }
         public long getTotalProducts() { return totalProducts; }
         public long getActiveNotifications() { return activeNotifications; }
         public long getInactiveNotifications() { return inactiveNotifications; }
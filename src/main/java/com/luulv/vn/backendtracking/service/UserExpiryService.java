@@ -0,0 +1,93 @@
+package com.luulv.vn.backendtracking.service;
+
+import com.luulv.vn.backendtracking.entity.UserStatus;
+import com.luulv.vn.backendtracking.event.ChangeType;
+import com.luulv.vn.backendtracking.event.UserChangeEvent;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Chuyển user ACTIVE đã quá expired_date sang EXPIRED bằng các câu UPDATE theo chunk,
+ * mỗi chunk một transaction ngắn để không khóa nhiều dòng lâu. Các luồng đọc tin status đã lưu.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Timed(value = "tracking.service", histogram = true)
+public class UserExpiryService {
+
+    // SKIP LOCKED: bỏ qua dòng đang bị transaction khác giữ thay vì chờ
+    private static final String EXPIRE_CHUNK_SQL = "UPDATE users SET status = ?, updated_at = ? WHERE id IN (" +
+            "SELECT id FROM users WHERE status = ? AND expired_date < ? ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${tracking.user-expiry.chunk-size:1000}")
+    private int chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void expireOnStartup() {
+        scheduledExpire();
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.user-expiry.interval:PT15M}",
+            initialDelayString = "${tracking.user-expiry.interval:PT15M}")
+    public void scheduledExpire() {
+        try {
+            expireUsers(LocalDate.now());
+        } catch (Exception e) {
+            log.error("User expiry run failed: ", e);
+        }
+    }
+
+    /**
+     * Chuyển tất cả user ACTIVE có expired_date trước today sang EXPIRED, trả về số user đã cập nhật
+     */
+    public int expireUsers(LocalDate today) {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("User expiry already running, skipping");
+            return 0;
+        }
+        try {
+            int total = 0;
+            int updated;
+            do {
+                updated = expireChunk(today);
+                total += updated;
+            } while (updated == chunkSize);
+
+            if (total > 0) {
+                log.info("Expired {} users with expired_date before {}", total, today);
+                eventPublisher.publishEvent(new UserChangeEvent(ChangeType.UPDATED, null));
+            }
+            return total;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int expireChunk(LocalDate today) {
+        Integer updated = transactionTemplate.execute(status -> jdbcTemplate.update(EXPIRE_CHUNK_SQL,
+                UserStatus.EXPIRED, Date.valueOf(today), UserStatus.ACTIVE, Date.valueOf(today), chunkSize));
+        return updated == null ? 0 : updated;
+    }
+}
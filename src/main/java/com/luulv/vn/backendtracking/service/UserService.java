@@ -1,31 +1,74 @@
 package com.luulv.vn.backendtracking.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luulv.vn.backendtracking.cache.ApproximateCounter;
+import com.luulv.vn.backendtracking.cache.NearCache;
+import com.luulv.vn.backendtracking.cache.TableVersionTracker;
+import com.luulv.vn.backendtracking.dto.CursorPage;
 import com.luulv.vn.backendtracking.dto.ProductResponseDto;
 import com.luulv.vn.backendtracking.dto.UserRequestDTO;
 import com.luulv.vn.backendtracking.dto.UserResponseDTO;
 import com.luulv.vn.backendtracking.dto.UserSearchRequest;
 import com.luulv.vn.backendtracking.entity.User;
+import com.luulv.vn.backendtracking.entity.UserStatus;
+import com.luulv.vn.backendtracking.event.ChangeType;
+import com.luulv.vn.backendtracking.event.UserChangeEvent;
+import com.luulv.vn.backendtracking.mapper.UserMapper;
+import com.luulv.vn.backendtracking.repository.KeysetSpecifications;
+import com.luulv.vn.backendtracking.repository.SpecificationSlices;
 import com.luulv.vn.backendtracking.repository.UserRepository;
+import com.luulv.vn.backendtracking.repository.UserSpecifications;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed(value = "tracking.service", histogram = true)
 @Transactional
 public class UserService {
+    // Các cột được phép dùng làm khóa phân trang cursor
+    private static final Set<String> CURSOR_SORT_KEYS =
+            Set.of("id", "username", "registerDate", "expiredDate", "createdAt");
+
+    // Các cột được phép sắp xếp khi search theo trang, đều có index (kèm id làm tiebreaker)
+    private static final Set<String> SEARCH_SORT_KEYS = Set.of("id", "registerDate", "expiredDate");
+
+    private static final int MAX_EXPIRING_SOON_DAYS = 365;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private ObjectMapper mapper;
+    private UserMapper userMapper;
+
+    @Autowired
+    private NearCache<Integer, UserResponseDTO> userCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ApproximateCounter approximateCounter;
 
     public UserResponseDTO createUser(UserRequestDTO userRequestDTO) {
         if (userRepository.existsByUsername(userRequestDTO.getUsername())) {
@@ -37,11 +80,12 @@ public class UserService {
                 .fullName(userRequestDTO.getFullName())
                 .registerDate(userRequestDTO.getRegisterDate())
                 .expiredDate(userRequestDTO.getRegisterDate().plusMonths(1))
-                .status(1)
                 .build();
+        user.setStatus(UserStatus.resolve(UserStatus.ACTIVE, user.getExpiredDate(), LocalDate.now()));
         User savedUser = userRepository.save(user);
 
-        return mapper.convertValue(savedUser, UserResponseDTO.class);
+        eventPublisher.publishEvent(new UserChangeEvent(ChangeType.CREATED, savedUser.getId()));
+        return userMapper.toDto(savedUser);
     }
 
     public UserResponseDTO updateUser(Integer id, UserRequestDTO userUpdateDTO) {
@@ -57,31 +101,77 @@ public class UserService {
 
         existingUser.setRegisterDate(userUpdateDTO.getRegisterDate());
         existingUser.setExpiredDate(userUpdateDTO.getRegisterDate().plusMonths(1));
-        existingUser.setStatus(userUpdateDTO.getStatus());
+        existingUser.setStatus(UserStatus.resolve(
+                userUpdateDTO.getStatus(), existingUser.getExpiredDate(), LocalDate.now()));
         User updatedUser = userRepository.save(existingUser);
-        return mapper.convertValue(updatedUser, UserResponseDTO.class);
+
+        eventPublisher.publishEvent(new UserChangeEvent(ChangeType.UPDATED, id));
+        return userMapper.toDto(updatedUser);
+    }
+
+    /**
+     * Search theo trang: chỉ sinh predicate cho filter được truyền vào nên mỗi tổ hợp filter có một câu SQL riêng,
+     * Postgres lập plan theo đúng tổ hợp đó và dùng được index thay vì plan chung cho mọi trường hợp.
+     * countMode quyết định có chạy COUNT hay không (xem CountMode)
+     */
+    @Transactional(readOnly = true)
+    public Slice<UserResponseDTO> searchUsers(UserSearchRequest request) {
+        // Set.of(...).contains(null) ném NullPointerException nên mặc định id khi client gửi sortBy rỗng
+        String sortBy = request.getSortBy() == null || request.getSortBy().isBlank() ? "id" : request.getSortBy();
+        if (!SEARCH_SORT_KEYS.contains(sortBy)) {
+            throw new IllegalArgumentException("Không hỗ trợ sắp xếp theo: " + sortBy);
+        }
+        if (request.getSize() < 1 || request.getSize() > KeysetPaginator.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Size phải nằm trong khoảng 1-" + KeysetPaginator.MAX_PAGE_SIZE);
+        }
+        Sort.Direction direction = "desc".equalsIgnoreCase(request.getSortDirection())
+                ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Pageable pageable = PageRequest.of(Math.max(request.getPage(), 0), request.getSize(),
+                KeysetSpecifications.sortFor(sortBy, direction));
+
+        Specification<User> spec = UserSpecifications.withFilters(request);
+        LocalDate today = LocalDate.now();
+        return OffsetPaginator.fetch(request.getCountMode(), pageable,
+                p -> userRepository.findAll(spec, p),
+                p -> SpecificationSlices.find(entityManager, User.class, spec, p),
+                () -> approximateCounter.count(TableVersionTracker.USER, () -> userRepository.count(spec),
+                        blankToNull(request.getUsername()), blankToNull(request.getFullName()),
+                        request.getRegisterDateFrom(), request.getRegisterDateTo(),
+                        request.getExpiredDateFrom(), request.getExpiredDateTo(), request.getStatus()),
+                user -> userMapper.toDto(user, today));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<UserResponseDTO> searchUsersWithCursor(UserSearchRequest request) {
+        LocalDate today = LocalDate.now();
+        return KeysetPaginator.fetch(userRepository,
+                UserSpecifications.withFilters(request),
+                CURSOR_SORT_KEYS, request.getSortBy(), request.getSortDirection(),
+                request.getCursor(), request.getSize(), request.isIncludeTotal(),
+                user -> userMapper.toDto(user, today));
+    }
+
+    /**
+     * User đang hoạt động sẽ hết hạn trong vòng days ngày tới, hết hạn sớm nhất trước
+     */
+    @Transactional(readOnly = true)
+    public Page<UserResponseDTO> getExpiringSoon(int days, int page, int size) {
+        if (days < 0 || days > MAX_EXPIRING_SOON_DAYS) {
+            throw new IllegalArgumentException("Số ngày phải trong khoảng 0-" + MAX_EXPIRING_SOON_DAYS);
+        }
+        LocalDate today = LocalDate.now();
+        Pageable pageable = PageRequest.of(page, size, Sort.by("expiredDate", "id"));
+        return userRepository.findActiveByExpiredDateBetween(today, today.plusDays(days), pageable)
+                .map(user -> userMapper.toDto(user, today));
     }
 
-    public Page<UserResponseDTO> searchUsers(UserSearchRequest request) {
-        // Tạo Pageable object
-        Pageable pageable = PageRequest.of(request.getPage(), request.getSize());
-
-        // Thực hiện tìm kiếm
-        Page<User> userPage = userRepository.searchUsers(
-                request.getUsername(),
-                request.getFullName(),
-                request.getRegisterDateFrom(),
-                request.getRegisterDateTo(),
-                request.getExpiredDateFrom(),
-                request.getExpiredDateTo(),
-                request.getStatus(),
-                pageable
-        );
-
-        return userPage.map(x -> mapper.convertValue(x, UserResponseDTO.class));
+    private static String blankToNull(String value) {
+        return StringUtils.hasText(value) ? value : null;
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public UserResponseDTO detail(Integer id) {
-        return mapper.convertValue(userRepository.findById(id).orElseThrow(() -> new RuntimeException("Lỗi")), UserResponseDTO.class);
+        return userCache.get(id, key -> userRepository.findById(key).map(userMapper::toDto))
+                .orElseThrow(() -> new RuntimeException("Lỗi"));
     }
 }
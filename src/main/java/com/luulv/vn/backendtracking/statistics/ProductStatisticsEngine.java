@@ -0,0 +1,379 @@
+package com.luulv.vn.backendtracking.statistics;
+
+import com.luulv.vn.backendtracking.datasource.VersionedReads;
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import com.luulv.vn.backendtracking.event.ChangeType;
+import com.luulv.vn.backendtracking.event.ProductChangeEvent;
+import com.luulv.vn.backendtracking.event.ProductsImportedEvent;
+import com.luulv.vn.backendtracking.repository.ProductCountView;
+import com.luulv.vn.backendtracking.repository.ProductRepository;
+import com.luulv.vn.backendtracking.service.ProductService.ProductStatistics;
+import com.luulv.vn.backendtracking.service.ProductService.TypeStatistics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Bộ đếm thống kê sản phẩm giữ trong bộ nhớ.
+ * Khởi tạo bằng một truy vấn GROUP BY, cập nhật theo ProductChangeEvent sau khi commit
+ * và được đối soát định kỳ với DB để sửa sai lệch (ví dụ dữ liệu bị sửa trực tiếp trong DB).
+ * <p>
+ * Câu đếm trả kèm snapshot của nó, mỗi nhóm thay đổi được cộng kèm txid của transaction ghi: thay đổi đã nằm
+ * trong snapshot thì bỏ qua, thay đổi commit trong lúc đang đếm được giữ lại và cộng vào bộ đếm mới trước khi
+ * thay thế, nên reload không làm mất hay cộng trùng thay đổi nào.
+ * <p>
+ * Reload định kỳ, lúc khởi động và sau tin NOTIFY chạy ngoài transaction nên đọc primary. Lần nạp đầu tiên khi
+ * đọc (seed lúc khởi động thất bại) chạy trong transaction của request; nếu transaction đó đã lấy connection replica
+ * thì thay đổi replica chưa replay có thể bị thiếu tới lần đối soát kế tiếp.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductStatisticsEngine {
+
+    // Khóa thay cho type null vì ConcurrentHashMap không nhận khóa null
+    private static final String NULL_TYPE = "\u0000";
+
+    private static final String TXID_SQL = "SELECT txid_current()";
+
+    // txid không xác định (ghi ngoài transaction)
+    private static final long UNKNOWN_TXID = -1;
+
+    private final ProductRepository productRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Map<String, TypeCounter> counters;
+
+    // Một reload tại một thời điểm. Không dùng synchronized: câu đếm là một lượt gọi JDBC,
+    // giữ monitor trong lúc đó sẽ ghim virtual thread (JDK 21)
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    // Các field dưới được bảo vệ bởi applyLock: snapshot mà counters đã bao gồm,
+    // và các thay đổi đã cộng trong lúc reload đang đếm (null = không có reload nào đang chạy)
+    private final Object applyLock = new Object();
+    private TransactionSnapshot countedSnapshot = TransactionSnapshot.NONE;
+    private List<Changes> pending;
+
+    // Tăng mỗi khi tập type có thể đã thay đổi, để các cache dẫn xuất (danh sách type) biết cần build lại
+    private final AtomicLong typeSetVersion = new AtomicLong();
+
+    /**
+     * Thống kê hiện tại, chỉ đọc bộ nhớ (trừ lần gọi đầu tiên nếu chưa khởi tạo)
+     */
+    public ProductStatistics snapshot() {
+        Map<String, TypeCounter> current = currentCounters();
+
+        long total = 0;
+        long active = 0;
+        long inactive = 0;
+        List<TypeStatistics> types = new ArrayList<>(current.size());
+        for (Map.Entry<String, TypeCounter> entry : current.entrySet()) {
+            TypeCounter counter = entry.getValue();
+            long typeTotal = counter.total.sum();
+            if (typeTotal <= 0) {
+                continue;
+            }
+            long typeActive = counter.active.sum();
+            long typeInactive = counter.inactive.sum();
+            total += typeTotal;
+            active += typeActive;
+            inactive += typeInactive;
+            String type = NULL_TYPE.equals(entry.getKey()) ? null : entry.getKey();
+            types.add(new TypeStatistics(type, typeTotal, typeActive, typeInactive));
+        }
+        types.sort(Comparator.comparing(TypeStatistics::getType, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        return new ProductStatistics(total, active, inactive, types);
+    }
+
+    /**
+     * Các type đang có ít nhất một sản phẩm (không gồm type null), chưa sắp xếp
+     */
+    public List<String> activeTypes() {
+        List<String> types = new ArrayList<>();
+        currentCounters().forEach((type, counter) -> {
+            if (!NULL_TYPE.equals(type) && counter.total.sum() > 0) {
+                types.add(type);
+            }
+        });
+        return types;
+    }
+
+    /**
+     * Số sản phẩm theo type (null = mọi type) và isNotify (null = không lọc, 1 = bật, 0 = tắt), chỉ đọc bộ nhớ
+     */
+    public long count(String type, Integer isNotify) {
+        Map<String, TypeCounter> current = currentCounters();
+        Collection<TypeCounter> selected = type == null
+                ? current.values()
+                : Optional.ofNullable(current.get(type)).map(List::of).orElse(List.of());
+        long count = 0;
+        for (TypeCounter counter : selected) {
+            if (isNotify == null) {
+                count += counter.total.sum();
+            } else if (isNotify == 1) {
+                count += counter.active.sum();
+            } else if (isNotify == 0) {
+                count += counter.inactive.sum();
+            } else {
+                throw new IllegalArgumentException("Không có bộ đếm cho isNotify = " + isNotify);
+            }
+        }
+        return Math.max(count, 0);
+    }
+
+    public long typeSetVersion() {
+        return typeSetVersion.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOnStartup() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("Could not seed product statistics on startup, will retry on first read: ", e);
+        }
+    }
+
+    /**
+     * Tính lại toàn bộ bộ đếm từ DB và thay thế bộ đếm hiện tại
+     */
+    @Scheduled(fixedDelayString = "${tracking.statistics.reconcile-interval:PT5M}",
+            initialDelayString = "${tracking.statistics.reconcile-interval:PT5M}")
+    public void reconcile() {
+        reload(true);
+    }
+
+    /**
+     * Tải lại bộ đếm sau khi node khác ghi dữ liệu; chênh lệch lúc này là bình thường nên không log drift
+     */
+    public void refresh() {
+        reload(false);
+    }
+
+    private Map<String, TypeCounter> reload(boolean reportDrift) {
+        reloadLock.lock();
+        try {
+            return reloadLocked(reportDrift);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private Map<String, TypeCounter> reloadLocked(boolean reportDrift) {
+        List<Changes> duringReload = new ArrayList<>();
+        synchronized (applyLock) {
+            pending = duringReload;
+        }
+        Map<String, TypeCounter> fresh = new ConcurrentHashMap<>();
+        TransactionSnapshot snapshot;
+        try {
+            // Bộ đếm được trả kèm ETag sản phẩm: như các lần đọc có phiên bản khác, đọc primary khi replica có thể còn trễ
+            List<ProductCountView> rows = VersionedReads.call(productRepository::countGroupByTypeAndIsNotify);
+            snapshot = rows.isEmpty() ? TransactionSnapshot.NONE : TransactionSnapshot.parse(rows.get(0).getSnapshot());
+            for (ProductCountView row : rows) {
+                // Bảng rỗng vẫn trả một dòng để mang snapshot, dòng đó không có số đếm
+                if (row.getTotal() != null) {
+                    counterFor(fresh, row.getType()).add(row.getIsNotify(), row.getTotal());
+                }
+            }
+        } catch (RuntimeException e) {
+            synchronized (applyLock) {
+                pending = null;
+            }
+            throw e;
+        }
+
+        Map<String, TypeCounter> previous;
+        synchronized (applyLock) {
+            // Thay đổi commit sau snapshot của câu đếm chưa có trong fresh
+            for (Changes changes : duringReload) {
+                if (!snapshot.isVisible(changes.txid)) {
+                    changes.applyTo(fresh);
+                }
+            }
+            pending = null;
+            previous = counters;
+            counters = fresh;
+            countedSnapshot = snapshot;
+        }
+        if (reportDrift && previous != null && !sameCounts(previous, fresh)) {
+            log.warn("Product statistics drifted from database, counters have been reconciled");
+        }
+        typeSetVersion.incrementAndGet();
+        log.debug("Product statistics reconciled: {} types, {} changes replayed", fresh.size(), duringReload.size());
+        return fresh;
+    }
+
+    /**
+     * Gom thay đổi của transaction, cộng vào bộ đếm sau khi commit (rollback thì bỏ).
+     * txid được lấy trước commit trên connection của transaction, thêm một câu lệnh nhẹ cho mỗi transaction ghi.
+     */
+    @EventListener
+    public void onProductChanged(ProductChangeEvent event) {
+        record(changes -> changes.events.add(event));
+    }
+
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        record(changes -> event.getProducts().forEach(product ->
+                changes.events.add(new ProductChangeEvent(ChangeType.CREATED, product.getId(), null, product))));
+    }
+
+    private void record(Consumer<Changes> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Changes changes = new Changes();
+            change.accept(changes);
+            apply(changes);
+            return;
+        }
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            Changes inTransaction = new Changes();
+            TransactionSynchronizationManager.bindResource(this, inTransaction);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    inTransaction.txid = jdbcTemplate.queryForObject(TXID_SQL, Long.class);
+                }
+
+                @Override
+                public void afterCommit() {
+                    apply(inTransaction);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ProductStatisticsEngine.this);
+                }
+            });
+            changes = inTransaction;
+        }
+        change.accept(changes);
+    }
+
+    private void apply(Changes changes) {
+        boolean typeSetChanged;
+        synchronized (applyLock) {
+            Map<String, TypeCounter> current = counters;
+            if (current == null && pending == null) {
+                // Chưa khởi tạo, lần reload đầu tiên sẽ đọc trạng thái đã commit
+                return;
+            }
+            if (current != null && !countedSnapshot.isVisible(changes.txid)) {
+                typeSetChanged = changes.applyTo(current);
+            } else {
+                typeSetChanged = false;
+            }
+            if (pending != null) {
+                pending.add(changes);
+            }
+        }
+        if (typeSetChanged) {
+            typeSetVersion.incrementAndGet();
+        }
+    }
+
+    private Map<String, TypeCounter> currentCounters() {
+        Map<String, TypeCounter> current = counters;
+        if (current != null) {
+            return current;
+        }
+        reloadLock.lock();
+        try {
+            // Request khác có thể đã nạp xong trong lúc chờ khóa
+            current = counters;
+            return current != null ? current : reloadLocked(true);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private static TypeCounter counterFor(Map<String, TypeCounter> map, String type) {
+        return map.computeIfAbsent(type == null ? NULL_TYPE : type, key -> new TypeCounter());
+    }
+
+    private static boolean sameCounts(Map<String, TypeCounter> left, Map<String, TypeCounter> right) {
+        for (String type : union(left, right)) {
+            TypeCounter a = left.getOrDefault(type, TypeCounter.EMPTY);
+            TypeCounter b = right.getOrDefault(type, TypeCounter.EMPTY);
+            if (a.total.sum() != b.total.sum()
+                    || a.active.sum() != b.active.sum()
+                    || a.inactive.sum() != b.inactive.sum()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> union(Map<String, ?> left, Map<String, ?> right) {
+        List<String> keys = new ArrayList<>(left.keySet());
+        right.keySet().stream().filter(key -> !left.containsKey(key)).forEach(keys::add);
+        return keys;
+    }
+
+    // Thay đổi của một transaction
+    private static final class Changes {
+
+        private final List<ProductChangeEvent> events = new ArrayList<>();
+        private long txid = UNKNOWN_TXID;
+
+        // Trả về true nếu tập type có thể đã thay đổi
+        boolean applyTo(Map<String, TypeCounter> map) {
+            boolean typeSetChanged = false;
+            for (ProductChangeEvent event : events) {
+                ProductResponseDto before = event.getBefore();
+                if (before != null) {
+                    counterFor(map, before.getType()).add(before.getIsNotify(), -1);
+                }
+                ProductResponseDto after = event.getAfter();
+                if (after != null) {
+                    counterFor(map, after.getType()).add(after.getIsNotify(), 1);
+                }
+                if (before == null || after == null || !Objects.equals(before.getType(), after.getType())) {
+                    typeSetChanged = true;
+                }
+            }
+            return typeSetChanged;
+        }
+    }
+
+    private static final class TypeCounter {
+
+        private static final TypeCounter EMPTY = new TypeCounter();
+
+        private final LongAdder total = new LongAdder();
+        private final LongAdder active = new LongAdder();
+        private final LongAdder inactive = new LongAdder();
+
+        // Cùng quy ước với entity: isNotify = 1 là bật, 0 là tắt
+        void add(Integer isNotify, long delta) {
+            total.add(delta);
+            if (isNotify != null && isNotify == 1) {
+                active.add(delta);
+            } else if (isNotify != null && isNotify == 0) {
+                inactive.add(delta);
+            }
+        }
+    }
+}
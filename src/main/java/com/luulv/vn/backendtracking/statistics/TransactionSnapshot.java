@@ -0,0 +1,39 @@
+package com.luulv.vn.backendtracking.statistics;
+
+import java.util.Arrays;
+
+/**
+ * Snapshot PostgreSQL dạng "xmin:xmax:xip1,xip2" (txid_current_snapshot()), dùng để biết một transaction
+ * đã commit có nằm trong kết quả của câu truy vấn chạy với snapshot này hay không.
+ *
+ * @param xip các txid đang chạy lúc chụp snapshot, đã sắp xếp
+ */
+record TransactionSnapshot(long xmin, long xmax, long[] xip) {
+
+    // Không biết snapshot (ví dụ nguồn dữ liệu không phải PostgreSQL): coi như không transaction nào đã được tính
+    static final TransactionSnapshot NONE = new TransactionSnapshot(Long.MIN_VALUE, Long.MIN_VALUE, new long[0]);
+
+    /**
+     * Transaction txid (đã commit) có được câu truy vấn dùng snapshot này nhìn thấy không; txid âm là không rõ
+     */
+    boolean isVisible(long txid) {
+        if (txid < 0 || txid >= xmax) {
+            return false;
+        }
+        return txid < xmin || Arrays.binarySearch(xip, txid) < 0;
+    }
+
+    static TransactionSnapshot parse(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        String[] parts = value.split(":", -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Snapshot không hợp lệ: " + value);
+        }
+        long[] xip = parts[2].isEmpty()
+                ? new long[0]
+                : Arrays.stream(parts[2].split(",")).mapToLong(Long::parseLong).sorted().toArray();
+        return new TransactionSnapshot(Long.parseLong(parts[0]), Long.parseLong(parts[1]), xip);
+    }
+}
@@ -0,0 +1,81 @@
+package com.luulv.vn.backendtracking.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thông tin theo dõi của một request: trace ID, số câu SQL và tổng thời gian DB.
+ * Gắn vào thread hiện tại qua ThreadLocal; TraceTaskDecorator chuyển sang thread async khi cần.
+ */
+public final class RequestTrace {
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final String traceId;
+    private final long startNanos = System.nanoTime();
+    private final int maxCapturedStatements;
+    private final AtomicInteger statementCount = new AtomicInteger();
+    private final AtomicLong dbMillis = new AtomicLong();
+    private final List<CapturedStatement> statements = new ArrayList<>();
+
+    public RequestTrace(String traceId, int maxCapturedStatements) {
+        this.traceId = traceId;
+        this.maxCapturedStatements = maxCapturedStatements;
+    }
+
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    public static void bind(RequestTrace trace) {
+        if (trace == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(trace);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Ghi nhận một lần thực thi (batch được tính là một câu lệnh)
+     */
+    public void recordStatement(String sql, long elapsedMillis, int batchSize) {
+        int index = statementCount.incrementAndGet();
+        dbMillis.addAndGet(elapsedMillis);
+        if (index <= maxCapturedStatements) {
+            synchronized (statements) {
+                statements.add(new CapturedStatement(sql, elapsedMillis, batchSize));
+            }
+        }
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public int getStatementCount() {
+        return statementCount.get();
+    }
+
+    public long getDbMillis() {
+        return dbMillis.get();
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public List<CapturedStatement> getStatements() {
+        synchronized (statements) {
+            return List.copyOf(statements);
+        }
+    }
+
+    public record CapturedStatement(String sql, long elapsedMillis, int batchSize) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.luulv.vn.backendtracking.trace;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+/**
+ * Cộng dồn câu SQL vào RequestTrace của thread hiện tại; không làm gì ngoài request (job nền, startup).
+ */
+public class SqlTraceListener implements QueryExecutionListener {
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // Thời gian thực thi đã được datasource-proxy đo sẵn, chỉ cần xử lý sau khi chạy
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestTrace trace = RequestTrace.current();
+        if (trace == null) {
+            return;
+        }
+        String sql = queryInfoList.size() == 1
+                ? queryInfoList.get(0).getQuery()
+                : String.join("; ", queryInfoList.stream().map(QueryInfo::getQuery).toList());
+        int batchSize = execInfo.isBatch() ? execInfo.getBatchSize() : 1;
+        trace.recordStatement(sql, execInfo.getElapsedTime(), batchSize);
+    }
+}
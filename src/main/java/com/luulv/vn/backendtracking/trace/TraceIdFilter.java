@@ -0,0 +1,96 @@
+package com.luulv.vn.backendtracking.trace;
+
+import com.luulv.vn.backendtracking.config.TraceProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Gán trace ID cho mỗi request (lấy từ header nếu client gửi, ngược lại tự sinh), đưa vào MDC
+ * để pattern log in ra, trả lại qua header và log request chậm hoặc chạy quá nhiều câu SQL.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class TraceIdFilter extends OncePerRequestFilter {
+
+    public static final String MDC_KEY = "traceId";
+
+    private static final Pattern VALID_TRACE_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private final TraceProperties properties;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        String traceId = resolveTraceId(request.getHeader(properties.getHeader()));
+        RequestTrace trace = new RequestTrace(traceId, properties.getMaxCapturedStatements());
+        MDC.put(MDC_KEY, traceId);
+        RequestTrace.bind(trace);
+        response.setHeader(properties.getHeader(), traceId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            report(request, response, trace);
+            RequestTrace.clear();
+            MDC.remove(MDC_KEY);
+        }
+    }
+
+    private void report(HttpServletRequest request, HttpServletResponse response, RequestTrace trace) {
+        long elapsedMillis = Duration.ofNanos(trace.elapsedNanos()).toMillis();
+        boolean slow = elapsedMillis >= properties.getSlowRequestThreshold().toMillis();
+        boolean chatty = trace.getStatementCount() > properties.getMaxStatements();
+        if (!slow && !chatty) {
+            if (log.isDebugEnabled()) {
+                log.debug("{} {} -> {} in {} ms, {} SQL statements ({} ms)", request.getMethod(),
+                        request.getRequestURI(), response.getStatus(), elapsedMillis,
+                        trace.getStatementCount(), trace.getDbMillis());
+            }
+            return;
+        }
+
+        StringBuilder statements = new StringBuilder();
+        for (RequestTrace.CapturedStatement statement : trace.getStatements()) {
+            statements.append("\n  [").append(statement.elapsedMillis()).append(" ms");
+            if (statement.batchSize() > 1) {
+                statements.append(", batch ").append(statement.batchSize());
+            }
+            statements.append("] ").append(truncate(statement.sql()));
+        }
+        if (trace.getStatementCount() > properties.getMaxCapturedStatements()) {
+            statements.append("\n  ... ").append(trace.getStatementCount() - properties.getMaxCapturedStatements())
+                    .append(" more");
+        }
+        log.warn("{} request {} {} -> {} in {} ms, {} SQL statements ({} ms):{}",
+                slow ? "Slow" : "SQL-heavy", request.getMethod(), request.getRequestURI(), response.getStatus(),
+                elapsedMillis, trace.getStatementCount(), trace.getDbMillis(), statements);
+    }
+
+    private String truncate(String sql) {
+        return sql.length() <= properties.getMaxSqlLength() ? sql : sql.substring(0, properties.getMaxSqlLength()) + "...";
+    }
+
+    private static String resolveTraceId(String incoming) {
+        if (incoming != null && VALID_TRACE_ID.matcher(incoming).matches()) {
+            return incoming;
+        }
+        return HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextLong());
+    }
+}
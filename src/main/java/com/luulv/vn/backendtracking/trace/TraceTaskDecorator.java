@@ -0,0 +1,37 @@
+package com.luulv.vn.backendtracking.trace;
+
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.Map;
+
+/**
+ * Chuyển MDC (traceId) và RequestTrace sang thread chạy task async,
+ * ví dụ StreamingResponseBody hay @Async, để log và SQL vẫn gắn đúng request.
+ */
+public class TraceTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        RequestTrace trace = RequestTrace.current();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            RequestTrace previousTrace = RequestTrace.current();
+            if (context != null) {
+                MDC.setContextMap(context);
+            }
+            RequestTrace.bind(trace);
+            try {
+                runnable.run();
+            } finally {
+                if (previous != null) {
+                    MDC.setContextMap(previous);
+                } else {
+                    MDC.clear();
+                }
+                RequestTrace.bind(previousTrace);
+            }
+        };
+    }
+}
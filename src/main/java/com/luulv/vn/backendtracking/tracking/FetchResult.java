@@ -0,0 +1,26 @@
+package com.luulv.vn.backendtracking.tracking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class FetchResult {
+
+    private int statusCode;
+    private String etag;
+    private String lastModified;
+    // null khi 304 hoặc lỗi
+    private byte[] body;
+    // true nếu body dài hơn giới hạn và đã bị cắt
+    private boolean truncated;
+    private long durationMillis;
+
+    public boolean isNotModified() {
+        return statusCode == 304;
+    }
+
+    public boolean isSuccess() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+}
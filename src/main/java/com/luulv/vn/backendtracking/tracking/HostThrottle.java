@@ -0,0 +1,62 @@
+package com.luulv.vn.backendtracking.tracking;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Giới hạn số request đồng thời và tốc độ request cho từng host.
+ * Không dùng synchronized khi chờ để virtual thread không bị pin vào carrier thread.
+ */
+public class HostThrottle {
+
+    private final int maxConcurrentPerHost;
+    private final long intervalNanos;
+    private final Map<String, HostLimiter> limiters = new ConcurrentHashMap<>();
+
+    public HostThrottle(int maxConcurrentPerHost, double maxRequestsPerSecondPerHost) {
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.intervalNanos = maxRequestsPerSecondPerHost > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(1) / maxRequestsPerSecondPerHost) : 0;
+    }
+
+    /**
+     * Chờ tới lượt của host, trả về permit phải đóng sau khi request xong
+     */
+    public Permit acquire(String host) throws InterruptedException {
+        HostLimiter limiter = limiters.computeIfAbsent(host.toLowerCase(), key -> new HostLimiter());
+        limiter.awaitSlot();
+        limiter.concurrency.acquire();
+        return limiter.concurrency::release;
+    }
+
+    public int hostCount() {
+        return limiters.size();
+    }
+
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final class HostLimiter {
+
+        private final Semaphore concurrency = new Semaphore(maxConcurrentPerHost, true);
+        // Thời điểm sớm nhất request tiếp theo của host được phép bắt đầu
+        private final AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+
+        void awaitSlot() throws InterruptedException {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            long previous = nextSlot.getAndAccumulate(now, (slot, current) -> Math.max(slot, current) + intervalNanos);
+            long waitNanos = Math.max(previous, now) - now;
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.luulv.vn.backendtracking.tracking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trạng thái lần kiểm tra gần nhất của một sản phẩm (bảng product_check_state)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCheckState {
+
+    private Integer productId;
+    private String url;
+    private String etag;
+    private String lastModified;
+    // SHA-256 (hex) của body lần tải thành công gần nhất
+    private String contentHash;
+    private Integer lastStatus;
+    private LocalDateTime lastCheckedAt;
+    private LocalDateTime lastChangedAt;
+    private int consecutiveFailures;
+    private String lastError;
+}
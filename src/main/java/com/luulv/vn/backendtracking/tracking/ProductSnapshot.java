@@ -0,0 +1,27 @@
+package com.luulv.vn.backendtracking.tracking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng của bảng product_snapshot. payload là toàn bộ nội dung (keyframe)
+ * hoặc delta so với phiên bản liền trước, đã nén Deflate.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSnapshot {
+
+    private Integer productId;
+    private int version;
+    private String contentHash;
+    private LocalDateTime capturedAt;
+    private boolean keyframe;
+    private int contentLength;
+    private int storedLength;
+    // null khi chỉ truy vấn metadata
+    private byte[] payload;
+}
@@ -0,0 +1,104 @@
+package com.luulv.vn.backendtracking.tracking;
+
+import com.luulv.vn.backendtracking.config.TrackingProperties;
+import com.luulv.vn.backendtracking.dto.ProductSnapshotDto;
+import com.luulv.vn.backendtracking.repository.ProductSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Lưu lịch sử nội dung trang của sản phẩm.
+ * Chỉ ghi khi hash thay đổi; phiên bản mới được lưu dạng delta nén so với phiên bản trước,
+ * cứ mỗi keyframeInterval phiên bản (hoặc khi delta không nhỏ hơn) thì lưu một keyframe đầy đủ
+ * để giới hạn độ dài chuỗi delta phải dựng lại khi đọc.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSnapshotStore {
+
+    private static final int MAX_CHANGES = 500;
+
+    private final ProductSnapshotRepository snapshotRepository;
+
+    private final TrackingProperties properties;
+
+    /**
+     * Ghi snapshot nếu nội dung khác phiên bản gần nhất, trả về true nếu có ghi
+     */
+    public boolean record(Integer productId, String contentHash, byte[] body, LocalDateTime capturedAt) {
+        Optional<ProductSnapshot> latest = snapshotRepository.findLatest(productId);
+        if (latest.isPresent() && latest.get().getContentHash().equals(contentHash)) {
+            return false;
+        }
+
+        byte[] full = SnapshotCodec.compress(body);
+        ProductSnapshot snapshot = new ProductSnapshot(productId, 1, contentHash, capturedAt, true,
+                body.length, full.length, full);
+
+        if (latest.isPresent()) {
+            List<ProductSnapshot> chain = snapshotRepository.findChain(productId, latest.get().getVersion());
+            snapshot.setVersion(latest.get().getVersion() + 1);
+            int sinceKeyframe = snapshot.getVersion() - chain.get(0).getVersion();
+            if (sinceKeyframe < properties.getSnapshot().getKeyframeInterval()) {
+                byte[] delta = SnapshotCodec.compress(SnapshotCodec.encodeDelta(rebuild(chain), body));
+                if (delta.length < full.length) {
+                    snapshot.setKeyframe(false);
+                    snapshot.setPayload(delta);
+                    snapshot.setStoredLength(delta.length);
+                }
+            }
+        }
+
+        snapshotRepository.insert(snapshot);
+        log.debug("Stored snapshot v{} of product {} ({} -> {} bytes, keyframe={})", snapshot.getVersion(),
+                productId, body.length, snapshot.getStoredLength(), snapshot.isKeyframe());
+        return true;
+    }
+
+    /**
+     * Lần thay đổi gần nhất, kèm nội dung đầy đủ nếu includeContent
+     */
+    public Optional<ProductSnapshotDto> lastChange(Integer productId, boolean includeContent) {
+        return snapshotRepository.findLatest(productId).map(snapshot -> {
+            String content = null;
+            if (includeContent) {
+                byte[] body = rebuild(snapshotRepository.findChain(productId, snapshot.getVersion()));
+                content = new String(body, StandardCharsets.UTF_8);
+            }
+            return toDto(snapshot, content);
+        });
+    }
+
+    /**
+     * Các lần thay đổi sau thời điểm since (chỉ metadata)
+     */
+    public List<ProductSnapshotDto> changesSince(Integer productId, LocalDateTime since) {
+        return snapshotRepository.findSince(productId, since, MAX_CHANGES).stream()
+                .map(snapshot -> toDto(snapshot, null))
+                .toList();
+    }
+
+    private static byte[] rebuild(List<ProductSnapshot> chain) {
+        if (chain.isEmpty() || !chain.get(0).isKeyframe()) {
+            throw new IllegalStateException("Chuỗi snapshot không bắt đầu bằng keyframe");
+        }
+        byte[] body = SnapshotCodec.decompress(chain.get(0).getPayload());
+        for (ProductSnapshot snapshot : chain.subList(1, chain.size())) {
+            byte[] payload = SnapshotCodec.decompress(snapshot.getPayload());
+            body = snapshot.isKeyframe() ? payload : SnapshotCodec.applyDelta(body, payload);
+        }
+        return body;
+    }
+
+    private static ProductSnapshotDto toDto(ProductSnapshot snapshot, String content) {
+        return new ProductSnapshotDto(snapshot.getProductId(), snapshot.getVersion(), snapshot.getContentHash(),
+                snapshot.getCapturedAt(), snapshot.getContentLength(), snapshot.getStoredLength(), content);
+    }
+}
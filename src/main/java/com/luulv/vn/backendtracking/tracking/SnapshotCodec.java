@@ -0,0 +1,79 @@
+package com.luulv.vn.backendtracking.tracking;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Mã hóa snapshot nội dung trang.
+ * Delta chỉ giữ phần khác nhau ở giữa: [độ dài tiền tố chung][độ dài hậu tố chung][phần giữa mới],
+ * đủ tốt với trang sản phẩm vì thường chỉ giá / tồn kho thay đổi. Payload luôn được nén Deflate.
+ */
+public final class SnapshotCodec {
+
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    private SnapshotCodec() {
+    }
+
+    public static byte[] encodeDelta(byte[] previous, byte[] current) {
+        int max = Math.min(previous.length, current.length);
+        int prefix = Arrays.mismatch(previous, current);
+        if (prefix < 0) {
+            prefix = max;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && previous[previous.length - 1 - suffix] == current[current.length - 1 - suffix]) {
+            suffix++;
+        }
+        int middle = current.length - prefix - suffix;
+        return ByteBuffer.allocate(HEADER_BYTES + middle)
+                .putInt(prefix)
+                .putInt(suffix)
+                .put(current, prefix, middle)
+                .array();
+    }
+
+    public static byte[] applyDelta(byte[] previous, byte[] delta) {
+        ByteBuffer buffer = ByteBuffer.wrap(delta);
+        int prefix = buffer.getInt();
+        int suffix = buffer.getInt();
+        if (prefix + suffix > previous.length) {
+            throw new IllegalArgumentException("Delta không khớp với phiên bản trước");
+        }
+        int middle = buffer.remaining();
+        byte[] result = new byte[prefix + middle + suffix];
+        System.arraycopy(previous, 0, result, 0, prefix);
+        buffer.get(result, prefix, middle);
+        System.arraycopy(previous, previous.length - suffix, result, prefix + middle, suffix);
+        return result;
+    }
+
+    public static byte[] compress(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+            deflate.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] decompress(byte[] data) {
+        try (InflaterInputStream inflate = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            return inflate.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.luulv.vn.backendtracking.tracking;
+
+import com.luulv.vn.backendtracking.config.TrackingProperties;
+import com.luulv.vn.backendtracking.dto.TrackingCycleReportDto;
+import com.luulv.vn.backendtracking.repository.ProductCheckStateRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Định kỳ tải lại URL của các sản phẩm bật thông báo (is_notify = 1).
+ * URL được gom theo host, mỗi host có tối đa maxConcurrentPerHost virtual thread lần lượt lấy URL của host đó;
+ * mỗi request chờ HostThrottle của host trước rồi mới lấy permit trong tổng số request đồng thời,
+ * nên host chậm hoặc bị giới hạn tốc độ không giữ permit làm các host khác phải chờ.
+ * Trạng thái được ghi xuống DB theo batch.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TrackingEngine {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final TrackingProperties properties;
+
+    private final ProductCheckStateRepository stateRepository;
+
+    private final UrlFetcher urlFetcher;
+
+    private final HostThrottle hostThrottle;
+
+    private final ProductSnapshotStore snapshotStore;
+
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile TrackingCycleReportDto lastReport;
+
+    @Scheduled(fixedDelayString = "${tracking.engine.interval:PT1M}",
+            initialDelayString = "${tracking.engine.initial-delay:PT30S}")
+    public void scheduledCycle() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            runCycle();
+        } catch (IllegalStateException e) {
+            log.warn("Skipping tracking cycle: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("Tracking cycle failed: ", e);
+        }
+    }
+
+    /**
+     * Chạy một chu kỳ kiểm tra toàn bộ sản phẩm, trả về thống kê của chu kỳ
+     */
+    public TrackingCycleReportDto runCycle() throws InterruptedException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Chu kỳ tracking trước vẫn đang chạy");
+        }
+        try {
+            return doRunCycle();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public TrackingCycleReportDto getLastReport() {
+        return lastReport;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private TrackingCycleReportDto doRunCycle() throws InterruptedException {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        List<ProductCheckState> targets = stateRepository.findTrackedProducts();
+        log.info("Tracking cycle started for {} products", targets.size());
+
+        CycleCounters counters = new CycleCounters();
+        Queue<ProductCheckState> pending = new ConcurrentLinkedQueue<>();
+        AtomicInteger pendingCount = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(properties.getMaxConcurrent());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Queue<ProductCheckState> hostQueue : groupByHost(targets).values()) {
+                int workers = Math.min(properties.getMaxConcurrentPerHost(), hostQueue.size());
+                for (int i = 0; i < workers; i++) {
+                    executor.submit(() -> {
+                        ProductCheckState state;
+                        while ((state = hostQueue.poll()) != null) {
+                            check(state, inFlight, counters);
+                            pending.add(state);
+                            if (pendingCount.incrementAndGet() >= properties.getStateBatchSize()) {
+                                flush(pending, pendingCount);
+                            }
+                        }
+                    });
+                }
+            }
+        }
+        flush(pending, pendingCount);
+
+        TrackingCycleReportDto report = new TrackingCycleReportDto(startedAt,
+                Duration.ofNanos(System.nanoTime() - start).toMillis(), targets.size(),
+                counters.checked.sum(), counters.changed.sum(), counters.notModified.sum(), counters.failed.sum(),
+                hostThrottle.hostCount());
+        lastReport = report;
+        recordMetrics(report);
+        log.info("Tracking cycle finished: {}", report);
+        return report;
+    }
+
+    private void recordMetrics(TrackingCycleReportDto report) {
+        meterRegistry.timer("tracking.engine.cycle").record(Duration.ofMillis(report.getDurationMillis()));
+        meterRegistry.counter("tracking.engine.checks", "result", "changed").increment(report.getChanged());
+        meterRegistry.counter("tracking.engine.checks", "result", "not_modified").increment(report.getNotModified());
+        meterRegistry.counter("tracking.engine.checks", "result", "failed").increment(report.getFailed());
+        meterRegistry.counter("tracking.engine.checks", "result", "all").increment(report.getChecked());
+    }
+
+    private void check(ProductCheckState state, Semaphore inFlight, CycleCounters counters) {
+        counters.checked.increment();
+        try {
+            URI uri = URI.create(state.getUrl().trim());
+            if (uri.getHost() == null) {
+                throw new IllegalArgumentException("URL không có host");
+            }
+            FetchResult result;
+            try (HostThrottle.Permit ignored = hostThrottle.acquire(uri.getHost())) {
+                inFlight.acquire();
+                try {
+                    result = urlFetcher.fetch(uri, state.getEtag(), state.getLastModified());
+                } finally {
+                    inFlight.release();
+                }
+            }
+            apply(state, result, counters);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(state, "Bị ngắt khi đang kiểm tra", counters);
+        } catch (Exception e) {
+            fail(state, e.getClass().getSimpleName() + ": " + e.getMessage(), counters);
+        }
+    }
+
+    private void apply(ProductCheckState state, FetchResult result, CycleCounters counters) {
+        LocalDateTime now = LocalDateTime.now();
+        state.setLastCheckedAt(now);
+        state.setLastStatus(result.getStatusCode());
+
+        if (result.isNotModified()) {
+            counters.notModified.increment();
+            state.setConsecutiveFailures(0);
+            state.setLastError(null);
+            return;
+        }
+        if (!result.isSuccess()) {
+            fail(state, "HTTP " + result.getStatusCode(), counters);
+            return;
+        }
+
+        String hash = sha256(result.getBody());
+        if (!Objects.equals(hash, state.getContentHash())) {
+            // Lần tải đầu tiên chỉ lấy mốc, không tính là thay đổi
+            if (state.getContentHash() != null) {
+                counters.changed.increment();
+            }
+            state.setContentHash(hash);
+            state.setLastChangedAt(now);
+            storeSnapshot(state.getProductId(), hash, result.getBody(), now);
+        }
+        state.setEtag(result.getEtag());
+        state.setLastModified(result.getLastModified());
+        state.setConsecutiveFailures(0);
+        state.setLastError(null);
+    }
+
+    private void storeSnapshot(Integer productId, String hash, byte[] body, LocalDateTime capturedAt) {
+        if (!properties.getSnapshot().isEnabled()) {
+            return;
+        }
+        try {
+            snapshotStore.record(productId, hash, body == null ? new byte[0] : body, capturedAt);
+        } catch (Exception e) {
+            // Lần thay đổi sau sẽ tính delta từ snapshot đã lưu gần nhất nên không mất tính đúng đắn
+            log.warn("Could not store snapshot for product {}: {}", productId, e.getMessage());
+        }
+    }
+
+    private void fail(ProductCheckState state, String error, CycleCounters counters) {
+        counters.failed.increment();
+        state.setLastCheckedAt(LocalDateTime.now());
+        state.setConsecutiveFailures(state.getConsecutiveFailures() + 1);
+        state.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+    }
+
+    private void flush(Queue<ProductCheckState> pending, AtomicInteger pendingCount) {
+        List<ProductCheckState> batch = new ArrayList<>();
+        ProductCheckState state;
+        while ((state = pending.poll()) != null) {
+            batch.add(state);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        pendingCount.addAndGet(-batch.size());
+        try {
+            stateRepository.saveAll(batch);
+        } catch (Exception e) {
+            log.error("Could not persist {} tracking states: ", batch.size(), e);
+        }
+    }
+
+    // URL không hợp lệ được gom chung một nhóm, check() sẽ báo lỗi cho từng URL
+    private static Map<String, Queue<ProductCheckState>> groupByHost(List<ProductCheckState> targets) {
+        Map<String, Queue<ProductCheckState>> queues = new LinkedHashMap<>();
+        for (ProductCheckState state : targets) {
+            queues.computeIfAbsent(hostOf(state), key -> new ConcurrentLinkedQueue<>()).add(state);
+        }
+        return queues;
+    }
+
+    private static String hostOf(ProductCheckState state) {
+        try {
+            String host = URI.create(state.getUrl().trim()).getHost();
+            return host == null ? "" : host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return "";
+        }
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(body == null ? new byte[0] : body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class CycleCounters {
+        private final LongAdder checked = new LongAdder();
+        private final LongAdder changed = new LongAdder();
+        private final LongAdder notModified = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+    }
+}
@@ -0,0 +1,68 @@
+package com.luulv.vn.backendtracking.tracking;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * Gửi GET có điều kiện (If-None-Match / If-Modified-Since) tới URL sản phẩm.
+ * Dùng chung một HttpClient để tái sử dụng connection (keep-alive, HTTP/2 multiplexing).
+ */
+public class UrlFetcher {
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final String userAgent;
+    private final int maxBodyBytes;
+
+    public UrlFetcher(Duration connectTimeout, Duration requestTimeout, String userAgent, int maxBodyBytes) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(connectTimeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.requestTimeout = requestTimeout;
+        this.userAgent = userAgent;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * Tải URL, gửi kèm validator của lần trước nếu có
+     */
+    public FetchResult fetch(URI uri, String etag, String lastModified) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("User-Agent", userAgent)
+                .GET();
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            request.header("If-Modified-Since", lastModified);
+        }
+
+        long start = System.nanoTime();
+        HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        byte[] body = null;
+        boolean truncated = false;
+        try (InputStream in = response.body()) {
+            if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                body = in.readNBytes(maxBodyBytes);
+                truncated = in.read() != -1;
+            }
+            // Đóng stream khi còn dữ liệu chưa đọc sẽ bỏ connection; chấp nhận với trang quá lớn
+        }
+        long durationMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        return new FetchResult(response.statusCode(),
+                response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null),
+                body, truncated, durationMillis);
+    }
+}
@@ -0,0 +1,203 @@
+package db.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Thêm cột product.url_hash (SHA-256 của URL đã chuẩn hóa) và điền cho các dòng cũ; cột url giữ nguyên.
+ * Viết bằng Java vì phải chuẩn hóa URL, không làm được bằng SQL thuần. Quy tắc chuẩn hóa được chép cố định vào đây
+ * (bản của UrlNormalizer lúc viết migration): sửa UrlNormalizer sau này không làm đổi kết quả của migration.
+ * <p>
+ * Chạy ngoài transaction, mỗi lô id được commit riêng: không giữ khóa trên cả bảng suốt quá trình điền.
+ * Chạy lại an toàn vì chỉ điền dòng còn url_hash NULL. Unique index được tạo CONCURRENTLY ở V4_1; các dòng cũ
+ * trùng nhau sau chuẩn hóa không được sửa tự động mà làm migration dừng với danh sách cụ thể để xử lý tay.
+ */
+@Slf4j
+public class V4__Product_url_hash extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private static final int MAX_REPORTED_DUPLICATES = 50;
+
+    private static final Set<String> TRACKING_PARAMS = Set.of(
+            "fbclid", "gclid", "gclsrc", "dclid", "msclkid", "yclid", "igshid",
+            "mc_cid", "mc_eid", "_ga", "_gl", "spm", "sp_atk", "xptdk");
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE product ADD COLUMN IF NOT EXISTS url_hash BYTEA");
+            commit(connection);
+        }
+
+        long minId;
+        long maxId;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MIN(id), 0), COALESCE(MAX(id), -1) FROM product")) {
+            rs.next();
+            minId = rs.getLong(1);
+            maxId = rs.getLong(2);
+        }
+
+        long updated = 0;
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, url FROM product WHERE id >= ? AND id < ? AND url_hash IS NULL");
+             PreparedStatement update = connection.prepareStatement("UPDATE product SET url_hash = ? WHERE id = ?")) {
+            for (long from = minId; from <= maxId; from += BATCH_SIZE) {
+                select.setLong(1, from);
+                select.setLong(2, from + BATCH_SIZE);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        update.setBytes(1, hash(normalize(rs.getString(2))));
+                        update.setLong(2, rs.getLong(1));
+                        update.addBatch();
+                        updated++;
+                    }
+                }
+                update.executeBatch();
+                commit(connection);
+            }
+        }
+        log.info("Backfilled url_hash for {} products", updated);
+
+        reportDuplicates(connection);
+
+        // CHECK NOT VALID + VALIDATE quét bảng mà không chặn ghi; SET NOT NULL sau đó dựa vào ràng buộc đã validate
+        // thay vì tự quét lại dưới khóa ACCESS EXCLUSIVE
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE product DROP CONSTRAINT IF EXISTS chk_product_url_hash_not_null");
+            statement.execute("ALTER TABLE product ADD CONSTRAINT chk_product_url_hash_not_null " +
+                    "CHECK (url_hash IS NOT NULL) NOT VALID");
+            commit(connection);
+            statement.execute("ALTER TABLE product VALIDATE CONSTRAINT chk_product_url_hash_not_null");
+            commit(connection);
+            statement.execute("ALTER TABLE product ALTER COLUMN url_hash SET NOT NULL");
+            statement.execute("ALTER TABLE product DROP CONSTRAINT chk_product_url_hash_not_null");
+            commit(connection);
+        }
+    }
+
+    // Giống kiểm tra username trùng ở V3: dừng với danh sách cụ thể thay vì lỗi unique index chung chung ở V4_1
+    private static void reportDuplicates(Connection connection) throws SQLException {
+        List<String> groups = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT string_agg(id::text, ',' ORDER BY id), MIN(url) "
+                     + "FROM product GROUP BY url_hash HAVING COUNT(*) > 1 ORDER BY MIN(id) LIMIT "
+                     + MAX_REPORTED_DUPLICATES)) {
+            while (rs.next()) {
+                groups.add("[" + rs.getString(1) + "] " + rs.getString(2));
+            }
+        }
+        if (!groups.isEmpty()) {
+            throw new FlywayException("Không tạo được uq_product_url_hash: các sản phẩm sau trùng URL sau khi "
+                    + "chuẩn hóa (id và một URL mỗi nhóm, tối đa " + MAX_REPORTED_DUPLICATES + " nhóm): "
+                    + String.join("; ", groups) + ". Gộp hoặc xóa các dòng trùng "
+                    + "(SELECT url_hash FROM product GROUP BY url_hash HAVING COUNT(*) > 1), "
+                    + "chạy flyway repair rồi khởi động lại ứng dụng.");
+        }
+    }
+
+    // Bản cố định của UrlNormalizer.normalize
+    static String normalize(String url) {
+        if (url == null) {
+            return null;
+        }
+        String rest = url.trim();
+
+        int fragment = rest.indexOf('#');
+        if (fragment >= 0) {
+            rest = rest.substring(0, fragment);
+        }
+
+        String scheme = "";
+        int schemeEnd = rest.indexOf("://");
+        if (schemeEnd > 0) {
+            scheme = rest.substring(0, schemeEnd).toLowerCase(Locale.ROOT);
+            rest = rest.substring(schemeEnd + 3);
+        }
+
+        String query = "";
+        int queryStart = rest.indexOf('?');
+        if (queryStart >= 0) {
+            query = rest.substring(queryStart + 1);
+            rest = rest.substring(0, queryStart);
+        }
+
+        String authority = rest;
+        String path = "";
+        int pathStart = rest.indexOf('/');
+        if (pathStart >= 0) {
+            authority = rest.substring(0, pathStart);
+            path = rest.substring(pathStart);
+        }
+
+        int userInfoEnd = authority.lastIndexOf('@');
+        String host = authority.substring(userInfoEnd + 1).toLowerCase(Locale.ROOT);
+        if (("http".equals(scheme) && host.endsWith(":80")) || ("https".equals(scheme) && host.endsWith(":443"))) {
+            host = host.substring(0, host.lastIndexOf(':'));
+        }
+        authority = authority.substring(0, userInfoEnd + 1) + host;
+
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+
+        StringBuilder normalized = new StringBuilder(url.length());
+        if (!scheme.isEmpty()) {
+            normalized.append(scheme).append("://");
+        }
+        normalized.append(authority).append(path);
+        StringJoiner kept = new StringJoiner("&");
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String key = (eq >= 0 ? pair.substring(0, eq) : pair).toLowerCase(Locale.ROOT);
+            if (!key.startsWith("utm_") && !TRACKING_PARAMS.contains(key)) {
+                kept.add(pair);
+            }
+        }
+        if (kept.length() > 0) {
+            normalized.append('?').append(kept);
+        }
+        return normalized.toString();
+    }
+
+    static byte[] hash(String normalizedUrl) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(normalizedUrl.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 không khả dụng", e);
+        }
+    }
+
+    // Flyway chạy migration ngoài transaction ở chế độ autocommit; commit tay nếu connection không như vậy
+    private static void commit(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package db.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Điền product.type_id cho các dòng có từ trước V5; dòng ghi sau V5 đã được trigger trg_product_type_id điền.
+ * Chạy ngoài transaction, mỗi lô id là một câu UPDATE tự commit: không giữ khóa trên cả bảng suốt quá trình điền.
+ * Chạy lại an toàn vì chỉ cập nhật dòng còn type_id NULL.
+ */
+@Slf4j
+public class V6__Product_type_id_backfill extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO product_type (name) " +
+                    "SELECT DISTINCT type FROM product WHERE type IS NOT NULL AND type_id IS NULL " +
+                    "ON CONFLICT (name) DO NOTHING");
+            commit(connection);
+        }
+
+        long minId;
+        long maxId;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MIN(id), 0), COALESCE(MAX(id), -1) FROM product")) {
+            rs.next();
+            minId = rs.getLong(1);
+            maxId = rs.getLong(2);
+        }
+
+        long updated = 0;
+        try (PreparedStatement update = connection.prepareStatement("UPDATE product p SET type_id = t.id " +
+                "FROM product_type t WHERE p.id >= ? AND p.id < ? AND p.type_id IS NULL AND t.name = p.type")) {
+            for (long from = minId; from <= maxId; from += BATCH_SIZE) {
+                update.setLong(1, from);
+                update.setLong(2, from + BATCH_SIZE);
+                updated += update.executeUpdate();
+                commit(connection);
+            }
+        }
+        log.info("Backfilled type_id for {} products", updated);
+
+        // Chỉ quét kiểm tra, không chặn ghi (SHARE UPDATE EXCLUSIVE)
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE product VALIDATE CONSTRAINT fk_product_type_id");
+            commit(connection);
+        }
+    }
+
+    // Flyway chạy migration ngoài transaction ở chế độ autocommit; commit tay nếu connection không như vậy
+    private static void commit(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+}
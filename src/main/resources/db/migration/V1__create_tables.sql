@@ -0,0 +1,48 @@
+-- Schema gốc (trước đây tạo tay ngoài repo), khớp với entity để Hibernate validate.
+-- IF NOT EXISTS: DB cũ được baseline ở version 0 nên V1 vẫn chạy và không đụng tới bảng đã có.
+
+CREATE TABLE IF NOT EXISTS product (
+    id         SERIAL PRIMARY KEY,
+    url        VARCHAR(255) NOT NULL,
+    type       VARCHAR(255),
+    is_notify  INTEGER      NOT NULL DEFAULT 1,
+    created_at DATE,
+    updated_at DATE
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id            SERIAL PRIMARY KEY,
+    username      VARCHAR(255),
+    full_name     VARCHAR(255),
+    register_date DATE,
+    expired_date  DATE,
+    status        INTEGER,
+    created_at    DATE,
+    updated_at    DATE
+);
+
+-- Trạng thái kiểm tra URL của tracking engine, một dòng cho mỗi sản phẩm
+CREATE TABLE IF NOT EXISTS product_check_state (
+    product_id           INTEGER PRIMARY KEY REFERENCES product (id) ON DELETE CASCADE,
+    etag                 VARCHAR(512),
+    last_modified        VARCHAR(64),
+    content_hash         CHAR(64),
+    last_status          INTEGER,
+    last_checked_at      TIMESTAMP,
+    last_changed_at      TIMESTAMP,
+    consecutive_failures INTEGER NOT NULL DEFAULT 0,
+    last_error           VARCHAR(500)
+);
+
+-- Lịch sử nội dung trang: chỉ ghi khi hash đổi, payload là keyframe hoặc delta đã nén
+CREATE TABLE IF NOT EXISTS product_snapshot (
+    product_id     INTEGER     NOT NULL REFERENCES product (id) ON DELETE CASCADE,
+    version        INTEGER     NOT NULL,
+    content_hash   CHAR(64)    NOT NULL,
+    captured_at    TIMESTAMP   NOT NULL,
+    keyframe       BOOLEAN     NOT NULL,
+    content_length INTEGER     NOT NULL,
+    payload        BYTEA       NOT NULL,
+    PRIMARY KEY (product_id, version)
+);
+CREATE INDEX IF NOT EXISTS idx_product_snapshot_captured ON product_snapshot (product_id, captured_at);
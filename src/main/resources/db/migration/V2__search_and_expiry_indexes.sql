@@ -0,0 +1,27 @@
+-- Index trước đây nằm trong schema.sql
+-- Chạy ngoài transaction (V2__search_and_expiry_indexes.sql.conf) để tạo index CONCURRENTLY, không khóa ghi bảng.
+
+-- CREATE INDEX CONCURRENTLY bị ngắt giữa chừng để lại index INVALID mà IF NOT EXISTS sẽ bỏ qua khi chạy lại
+DO $$
+DECLARE
+    leftover record;
+BEGIN
+    FOR leftover IN
+        SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+        WHERE NOT i.indisvalid AND c.relname IN ('idx_product_url_trgm', 'idx_users_active_expired_date',
+                                                 'idx_users_register_date_id', 'idx_users_expired_date_id')
+    LOOP
+        EXECUTE format('DROP INDEX %I', leftover.relname);
+    END LOOP;
+END $$;
+
+-- Tìm kiếm URL: GIN trigram index trên lower(url) phục vụ LIKE '%kw%', regex và similarity()
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_product_url_trgm ON product USING gin (LOWER(CAST(url AS TEXT)) gin_trgm_ops);
+
+-- Hết hạn user: job UserExpiryService và API "sắp hết hạn" chỉ quét user ACTIVE (status = 1)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_active_expired_date ON users (expired_date) WHERE status = 1;
+
+-- Search user theo trang: sắp xếp theo register_date/expired_date kèm id làm tiebreaker (SEARCH_SORT_KEYS)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_register_date_id ON users (register_date, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_expired_date_id ON users (expired_date, id);
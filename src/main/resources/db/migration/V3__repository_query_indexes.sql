@@ -0,0 +1,58 @@
+-- Index theo từng truy vấn của ProductRepository / UserRepository, được kiểm tra bởi QueryPlanTest
+-- Chạy ngoài transaction (V3__repository_query_indexes.sql.conf) để tạo index CONCURRENTLY, không khóa ghi bảng.
+
+-- CREATE INDEX CONCURRENTLY bị ngắt giữa chừng để lại index INVALID mà IF NOT EXISTS sẽ bỏ qua khi chạy lại
+DO $$
+DECLARE
+    leftover record;
+BEGIN
+    FOR leftover IN
+        SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+        WHERE NOT i.indisvalid AND c.relname IN ('idx_product_url', 'idx_product_type_notify_created',
+                                                 'idx_product_created_at_id', 'idx_product_updated_at_id',
+                                                 'uq_users_username', 'idx_users_username_trgm',
+                                                 'idx_users_full_name_trgm', 'idx_users_status_id',
+                                                 'idx_users_created_at_id')
+    LOOP
+        EXECUTE format('DROP INDEX %I', leftover.relname);
+    END LOOP;
+END $$;
+
+-- findByUrl, existsByUrl (kiểm tra trùng khi tạo sản phẩm)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_product_url ON product (url);
+
+-- findWithFilters, findByType, findByTypeAndIsNotify, countByType, findDistinctTypes:
+-- lọc theo type (+ is_notify), sắp xếp mặc định theo created_at
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_product_type_notify_created ON product (type, is_notify, created_at);
+
+-- findByCreatedAtBetween, streamAllOrderByCreatedAtDesc, phân trang cursor theo createdAt/updatedAt (kèm id)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_product_created_at_id ON product (created_at, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_product_updated_at_id ON product (updated_at, id);
+
+-- findByUsername, existsByUsername: username là duy nhất (UserService đã kiểm tra trước khi ghi).
+-- DB cũ không có ràng buộc nên có thể đã có username trùng: dừng với danh sách cụ thể thay vì lỗi index chung chung.
+DO $$
+DECLARE
+    duplicates text;
+BEGIN
+    SELECT string_agg(format('%s (%s dòng)', username, total), ', ' ORDER BY username) INTO duplicates
+    FROM (SELECT username, COUNT(*) AS total FROM users
+          WHERE username IS NOT NULL GROUP BY username HAVING COUNT(*) > 1
+          ORDER BY username LIMIT 50) d;
+    IF duplicates IS NOT NULL THEN
+        RAISE EXCEPTION 'Không tạo được uq_users_username: bảng users có username trùng: %', duplicates
+            USING HINT = 'Gộp hoặc đổi tên các user trùng (SELECT username FROM users GROUP BY username HAVING COUNT(*) > 1), '
+                         'chạy flyway repair rồi khởi động lại ứng dụng.';
+    END IF;
+END $$;
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_users_username ON users (username);
+
+-- UserSpecifications: LIKE '%kw%' trên lower(username) / lower(full_name)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_username_trgm ON users USING gin (LOWER(username) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_full_name_trgm ON users USING gin (LOWER(full_name) gin_trgm_ops);
+
+-- findByStatus, search theo status sắp xếp theo id
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_status_id ON users (status, id);
+
+-- Phân trang cursor theo createdAt (kèm id)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_created_at_id ON users (created_at, id);
@@ -0,0 +1,22 @@
+-- Tra cứu/so trùng sản phẩm theo URL đã chuẩn hóa đi qua url_hash (V4).
+-- Chạy ngoài transaction (V4_1__product_url_hash_index.sql.conf) để tạo/xóa index CONCURRENTLY, không khóa ghi bảng.
+
+-- CREATE INDEX CONCURRENTLY bị ngắt giữa chừng (hoặc lỗi vì dòng trùng ghi sau V4) để lại index INVALID
+-- mà IF NOT EXISTS sẽ bỏ qua khi chạy lại
+DO $$
+DECLARE
+    leftover record;
+BEGIN
+    FOR leftover IN
+        SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+        WHERE NOT i.indisvalid AND c.relname IN ('uq_product_url_hash')
+    LOOP
+        EXECUTE format('DROP INDEX %I', leftover.relname);
+    END LOOP;
+END $$;
+
+-- findByUrl, existsByUrl, upsert ON CONFLICT (url_hash), bulk import
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_product_url_hash ON product (url_hash);
+
+-- Không còn truy vấn nào so khớp trực tiếp trên url
+DROP INDEX CONCURRENTLY IF EXISTS idx_product_url;
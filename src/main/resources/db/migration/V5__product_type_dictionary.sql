@@ -0,0 +1,41 @@
+-- Từ điển type sản phẩm: mỗi type (chuỗi tự do) một mã số nguyên, product.type_id tham chiếu tới mã đó.
+-- Lọc theo type so sánh số nguyên trên index (type_id, is_notify, created_at) thay vì chuỗi VARCHAR(255).
+-- Migration này chỉ đổi schema (khóa bảng product trong chốc lát); điền mã cho dòng cũ ở V6, index ở V7.
+
+CREATE TABLE IF NOT EXISTS product_type (
+    id   SERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+ALTER TABLE product ADD COLUMN IF NOT EXISTS type_id INTEGER;
+
+-- NOT VALID: không quét bảng khi thêm ràng buộc, V6 validate sau khi điền xong
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fk_product_type_id') THEN
+        ALTER TABLE product ADD CONSTRAINT fk_product_type_id
+            FOREIGN KEY (type_id) REFERENCES product_type (id) NOT VALID;
+    END IF;
+END $$;
+
+-- type_id luôn suy ra từ type trong DB, kể cả với node chạy bản cũ chưa biết cột này (rolling deploy)
+-- và ghi bằng JDBC (bulk import, upsert). Type mới được thêm vào từ điển ngay khi ghi.
+CREATE OR REPLACE FUNCTION product_set_type_id() RETURNS trigger AS $$
+BEGIN
+    IF NEW.type IS NULL THEN
+        NEW.type_id := NULL;
+        RETURN NEW;
+    END IF;
+    SELECT id INTO NEW.type_id FROM product_type WHERE name = NEW.type;
+    IF NEW.type_id IS NULL THEN
+        -- Transaction khác thêm cùng type đồng thời: ON CONFLICT chờ nó commit, câu SELECT sau thấy dòng đó
+        INSERT INTO product_type (name) VALUES (NEW.type) ON CONFLICT (name) DO NOTHING;
+        SELECT id INTO NEW.type_id FROM product_type WHERE name = NEW.type;
+    END IF;
+    RETURN NEW;
+END $$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_product_type_id ON product;
+CREATE TRIGGER trg_product_type_id
+    BEFORE INSERT OR UPDATE OF type ON product
+    FOR EACH ROW EXECUTE FUNCTION product_set_type_id();
@@ -0,0 +1,22 @@
+-- Lọc theo type dùng type_id (V5, V6): thay index trên chuỗi type bằng index trên mã số nguyên.
+-- Chạy ngoài transaction (V7__product_type_id_index.sql.conf) để tạo/xóa index CONCURRENTLY, không khóa ghi bảng.
+
+-- CREATE INDEX CONCURRENTLY bị ngắt giữa chừng để lại index INVALID mà IF NOT EXISTS sẽ bỏ qua khi chạy lại
+DO $$
+DECLARE
+    leftover record;
+BEGIN
+    FOR leftover IN
+        SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+        WHERE NOT i.indisvalid AND c.relname IN ('idx_product_type_id_notify_created')
+    LOOP
+        EXECUTE format('DROP INDEX %I', leftover.relname);
+    END LOOP;
+END $$;
+
+-- findWithFilters, search, findByTypeId, findByTypeIdAndIsNotify, countByTypeId:
+-- lọc theo type_id (+ is_notify), sắp xếp mặc định theo created_at
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_product_type_id_notify_created ON product (type_id, is_notify, created_at);
+
+-- Không còn truy vấn nào lọc theo chuỗi type
+DROP INDEX CONCURRENTLY IF EXISTS idx_product_type_notify_created;
@@ -0,0 +1,10 @@
+-- Phiên bản dữ liệu của từng bảng (TableVersionTracker): dùng làm ETag chung cho mọi node.
+-- Mỗi transaction ghi vào bảng tương ứng tăng version ngay trước commit.
+
+CREATE TABLE IF NOT EXISTS table_version (
+    table_name VARCHAR(63) PRIMARY KEY,
+    version    BIGINT      NOT NULL DEFAULT 0
+);
+
+INSERT INTO table_version (table_name) VALUES ('product'), ('users')
+ON CONFLICT (table_name) DO NOTHING;
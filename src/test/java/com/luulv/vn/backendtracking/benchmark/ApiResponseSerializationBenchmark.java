@@ -0,0 +1,53 @@
+package com.luulv.vn.backendtracking.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luulv.vn.backendtracking.dto.ApiResponse;
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí serialize envelope ApiResponse<Page<ProductResponseDto>> ra JSON theo kích thước trang.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiResponseSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<Page<ProductResponseDto>> response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        Page<ProductResponseDto> page = new PageImpl<>(
+                BenchmarkFixtures.productDtos(pageSize), PageRequest.of(3, pageSize), 100_000);
+        response = ApiResponse.success(page);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
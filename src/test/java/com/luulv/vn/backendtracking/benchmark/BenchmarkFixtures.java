@@ -0,0 +1,72 @@
+package com.luulv.vn.backendtracking.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import com.luulv.vn.backendtracking.entity.Product;
+import com.luulv.vn.backendtracking.entity.User;
+import com.luulv.vn.backendtracking.mapper.ProductMapper;
+import org.mapstruct.factory.Mappers;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dữ liệu giả lập dùng chung cho các benchmark, cố định seed để các lần chạy so sánh được với nhau.
+ */
+final class BenchmarkFixtures {
+
+    static final String[] TYPES = {"shopee", "lazada", "tiki", "sendo", "amazon", "ebay", "other"};
+
+    private BenchmarkFixtures() {
+    }
+
+    // Cấu hình giống ObjectMapper của Spring Boot (ngày dạng ISO thay vì mảng số)
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    static List<Product> products(int count) {
+        List<Product> products = new ArrayList<>(count);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (int i = 1; i <= count; i++) {
+            String type = TYPES[i % TYPES.length];
+            Product product = new Product("https://www." + type + ".vn/product/item-" + i + "?ref=home&utm_source=ads", type);
+            product.setId(i);
+            // Cùng mã với InMemoryRepositories.productTypes(TYPES)
+            product.setTypeId(i % TYPES.length + 1);
+            product.setIsNotify(i % 3 == 0 ? 0 : 1);
+            product.setCreatedAt(start.plusDays(i % 365));
+            product.setUpdatedAt(start.plusDays(i % 365 + 1));
+            products.add(product);
+        }
+        return products;
+    }
+
+    static List<ProductResponseDto> productDtos(int count) {
+        return products(count).stream().map(Mappers.getMapper(ProductMapper.class)::toDto).toList();
+    }
+
+    static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (int i = 1; i <= count; i++) {
+            LocalDate registerDate = start.plusDays(i % 400);
+            users.add(User.builder()
+                    .id(i)
+                    .username("user" + i)
+                    .fullName("Nguyen Van " + i)
+                    .registerDate(registerDate)
+                    .expiredDate(registerDate.plusMonths(1))
+                    .status(i % 10 == 0 ? 0 : 1)
+                    .createdAt(registerDate)
+                    .updatedAt(registerDate)
+                    .build());
+        }
+        return users;
+    }
+}
@@ -0,0 +1,78 @@
+package com.luulv.vn.backendtracking.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * So sánh hai file kết quả JMH (JSON) trong benchmarks/results.
+ * Dùng: java -cp <test classpath> ...BenchmarkResultComparator baseline.json current.json [ngưỡng %]
+ * Thoát với mã 1 nếu có benchmark chậm hơn hoặc cấp phát nhiều hơn ngưỡng (mặc định 10%).
+ */
+public final class BenchmarkResultComparator {
+
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    private BenchmarkResultComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkResultComparator <baseline.json> <current.json> [threshold%]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+        Map<String, double[]> baseline = load(new File(args[0]));
+        Map<String, double[]> current = load(new File(args[1]));
+
+        boolean regressed = false;
+        System.out.printf("%-80s %12s %12s %8s %12s %12s %8s%n",
+                "benchmark", "base", "current", "delta%", "base B/op", "curr B/op", "delta%");
+        for (Map.Entry<String, double[]> entry : current.entrySet()) {
+            double[] before = baseline.get(entry.getKey());
+            if (before == null) {
+                continue;
+            }
+            double[] after = entry.getValue();
+            double scoreDelta = percent(before[0], after[0]);
+            double allocDelta = percent(before[1], after[1]);
+            System.out.printf("%-80s %12.3f %12.3f %8.1f %12.1f %12.1f %8.1f%n",
+                    entry.getKey(), before[0], after[0], scoreDelta, before[1], after[1], allocDelta);
+            if (scoreDelta > threshold || allocDelta > threshold) {
+                regressed = true;
+            }
+        }
+
+        if (regressed) {
+            System.out.println("Regression above " + threshold + "% detected");
+            System.exit(1);
+        }
+    }
+
+    // Khóa = tên benchmark + params, giá trị = [score, byte cấp phát mỗi op]
+    private static Map<String, double[]> load(File file) throws IOException {
+        Map<String, double[]> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            run.path("params").fields().forEachRemaining(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            double score = run.path("primaryMetric").path("score").asDouble();
+            double alloc = run.path("secondaryMetrics").path(ALLOC_METRIC).path("score").asDouble(Double.NaN);
+            results.put(key.toString(), new double[]{score, alloc});
+        }
+        return results;
+    }
+
+    // Score của các benchmark ở đây là thời gian trung bình, nên tăng là chậm hơn
+    private static double percent(double before, double after) {
+        if (Double.isNaN(before) || Double.isNaN(after) || before == 0) {
+            return 0;
+        }
+        return (after - before) / before * 100;
+    }
+}
@@ -0,0 +1,53 @@
+package com.luulv.vn.backendtracking.benchmark;
+
+import com.luulv.vn.backendtracking.cache.NearCache;
+import com.luulv.vn.backendtracking.cache.ProductTypeDictionary;
+import com.luulv.vn.backendtracking.mapper.ProductMapper;
+import com.luulv.vn.backendtracking.mapper.UserMapper;
+import com.luulv.vn.backendtracking.repository.ProductRepository;
+import com.luulv.vn.backendtracking.repository.UserRepository;
+import com.luulv.vn.backendtracking.search.UrlSearchService;
+import com.luulv.vn.backendtracking.service.ProductService;
+import com.luulv.vn.backendtracking.service.UserService;
+import com.luulv.vn.backendtracking.statistics.ProductStatisticsEngine;
+import org.mapstruct.factory.Mappers;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+/**
+ * Dựng service thật (không có Spring context) trên repository giả lập trong bộ nhớ.
+ * Khi constructor/field của service thay đổi thì chỉ cần sửa ở đây.
+ */
+final class BenchmarkServices {
+
+    private BenchmarkServices() {
+    }
+
+    static ProductService productService(ProductRepository repository) {
+        ProductMapper productMapper = Mappers.getMapper(ProductMapper.class);
+        ProductStatisticsEngine statisticsEngine = new ProductStatisticsEngine(repository, null);
+        return new ProductService(
+                repository,
+                null,
+                productMapper,
+                null,
+                new UrlSearchService(repository, productMapper),
+                statisticsEngine,
+                event -> { },
+                new NearCache<>("product", 10_000, Duration.ofMinutes(5), Duration.ofSeconds(30)),
+                new ProductTypeDictionary(statisticsEngine, InMemoryRepositories.productTypes(BenchmarkFixtures.TYPES)),
+                null);
+    }
+
+    static UserService userService(UserRepository repository) {
+        UserService service = new UserService();
+        ReflectionTestUtils.setField(service, "userRepository", repository);
+        ReflectionTestUtils.setField(service, "userMapper", Mappers.getMapper(UserMapper.class));
+        ReflectionTestUtils.setField(service, "userCache",
+                new NearCache<>("user", 10_000, Duration.ofMinutes(5), Duration.ofSeconds(30)));
+        ReflectionTestUtils.setField(service, "eventPublisher", (ApplicationEventPublisher) event -> { });
+        return service;
+    }
+}
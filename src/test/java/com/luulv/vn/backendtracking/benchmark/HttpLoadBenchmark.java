@@ -0,0 +1,121 @@
+package com.luulv.vn.backendtracking.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bắn tải HTTP vào một instance đang chạy để so sánh chế độ platform thread và virtual thread.
+ * Chạy app hai lần (mặc định và SPRING_PROFILES_ACTIVE=vthreads), mỗi lần chạy:
+ * java -cp <test classpath> ...HttpLoadBenchmark http://localhost:8080/api/products/1 [concurrency] [giây] [warmup giây]
+ * In ra throughput, p50/p99/max và số lỗi (status >= 500 hoặc exception).
+ */
+public final class HttpLoadBenchmark {
+
+    private HttpLoadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: HttpLoadBenchmark <url> [concurrency=2000] [seconds=30] [warmupSeconds=10]");
+            System.exit(2);
+        }
+        URI uri = URI.create(args[0]);
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+
+        if (warmupSeconds > 0) {
+            run(client, request, concurrency, warmupSeconds);
+        }
+        Result result = run(client, request, concurrency, seconds);
+
+        long[] latencies = result.latenciesMicros();
+        Arrays.sort(latencies);
+        System.out.printf("url=%s concurrency=%d duration=%ds%n", uri, concurrency, seconds);
+        System.out.printf("requests=%d errors=%d throughput=%.1f req/s%n",
+                latencies.length, result.errors(), latencies.length / (double) seconds);
+        System.out.printf("p50=%.1fms p99=%.1fms max=%.1fms%n",
+                percentile(latencies, 0.50) / 1000.0, percentile(latencies, 0.99) / 1000.0,
+                latencies.length == 0 ? 0.0 : latencies[latencies.length - 1] / 1000.0);
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, int seconds)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong errors = new AtomicLong();
+        List<long[]> perWorker = new ArrayList<>(concurrency);
+        List<int[]> counts = new ArrayList<>(concurrency);
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                long[][] buffer = {new long[1024]};
+                int[] count = {0};
+                counts.add(count);
+                perWorker.add(null);
+                int slot = i;
+                workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 500) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count[0] == buffer[0].length) {
+                            buffer[0] = Arrays.copyOf(buffer[0], count[0] * 2);
+                        }
+                        buffer[0][count[0]++] = (System.nanoTime() - start) / 1000;
+                    }
+                    synchronized (perWorker) {
+                        perWorker.set(slot, buffer[0]);
+                    }
+                });
+            }
+        }
+
+        int total = counts.stream().mapToInt(count -> count[0]).sum();
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (int i = 0; i < concurrency; i++) {
+            long[] buffer = perWorker.get(i);
+            int count = counts.get(i)[0];
+            if (buffer != null) {
+                System.arraycopy(buffer, 0, latencies, offset, count);
+                offset += count;
+            }
+        }
+        return new Result(Arrays.copyOf(latencies, offset), errors.get());
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private record Result(long[] latenciesMicros, long errors) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.luulv.vn.backendtracking.benchmark;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * Chạy Specification trên list trong bộ nhớ, chỉ hỗ trợ các phép mà UserSpecifications dùng
+ * (get, lower, like '%kw%', equal, so sánh, and/or) để benchmark đi đúng code sinh điều kiện của service.
+ */
+final class InMemoryCriteria {
+
+    private InMemoryCriteria() {
+    }
+
+    static <T> java.util.function.Predicate<T> filter(Specification<T> spec) {
+        Predicate predicate = spec.toPredicate(root(), null, builder());
+        return predicate == null ? entity -> true : entity -> Boolean.TRUE.equals(eval(predicate, entity));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Root<T> root() {
+        return (Root<T>) Proxy.newProxyInstance(Root.class.getClassLoader(), new Class<?>[]{Root.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "get" -> node(property((String) args[0]));
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "Root(in-memory)";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static CriteriaBuilder builder() {
+        return (CriteriaBuilder) Proxy.newProxyInstance(CriteriaBuilder.class.getClassLoader(),
+                new Class<?>[]{CriteriaBuilder.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "lower" -> node(e -> {
+                        Object value = eval(args[0], e);
+                        return value == null ? null : value.toString().toLowerCase(Locale.ROOT);
+                    });
+                    case "like" -> node(e -> {
+                        Object value = eval(args[0], e);
+                        String keyword = ((String) eval(args[1], e)).replace("%", "");
+                        return value != null && value.toString().contains(keyword);
+                    });
+                    case "equal" -> node(e -> Objects.equals(eval(args[0], e), eval(args[1], e)));
+                    case "greaterThanOrEqualTo", "ge" -> compare(args, c -> c >= 0);
+                    case "greaterThan", "gt" -> compare(args, c -> c > 0);
+                    case "lessThanOrEqualTo", "le" -> compare(args, c -> c <= 0);
+                    case "lessThan", "lt" -> compare(args, c -> c < 0);
+                    case "and" -> node(e -> {
+                        for (Object part : operands(args)) {
+                            if (!Boolean.TRUE.equals(eval(part, e))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    });
+                    case "or" -> node(e -> {
+                        for (Object part : operands(args)) {
+                            if (Boolean.TRUE.equals(eval(part, e))) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    });
+                    case "conjunction" -> node(e -> true);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "CriteriaBuilder(in-memory)";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static Object[] operands(Object[] args) {
+        return args.length == 1 && args[0] instanceof Object[] array ? array : args;
+    }
+
+    // Giống SQL: so sánh với NULL luôn là false
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object compare(Object[] args, IntPredicate test) {
+        return node(e -> {
+            Comparable left = (Comparable) eval(args[0], e);
+            Object right = eval(args[1], e);
+            return left != null && right != null && test.test(left.compareTo(right));
+        });
+    }
+
+    // Đọc property qua getter, resolve Method một lần cho mỗi class
+    private static Function<Object, Object> property(String name) {
+        Method[] getter = new Method[1];
+        return entity -> {
+            if (getter[0] == null) {
+                getter[0] = BeanUtils.getPropertyDescriptor(entity.getClass(), name).getReadMethod();
+            }
+            try {
+                return getter[0].invoke(entity);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    // Mỗi node vừa là Path vừa là Predicate, giá trị được tính theo entity đang xét
+    private static Object node(Function<Object, Object> evaluator) {
+        return Proxy.newProxyInstance(Path.class.getClassLoader(), new Class<?>[]{Path.class, Predicate.class},
+                new Node(evaluator));
+    }
+
+    private static Object eval(Object operand, Object entity) {
+        if (operand instanceof Expression<?> && Proxy.isProxyClass(operand.getClass())
+                && Proxy.getInvocationHandler(operand) instanceof Node node) {
+            return node.evaluator.apply(entity);
+        }
+        return operand;
+    }
+
+    private record Node(Function<Object, Object> evaluator) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            return switch (method.getName()) {
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> "Node(in-memory)";
+                default -> throw new UnsupportedOperationException(method.getName());
+            };
+        }
+    }
+}
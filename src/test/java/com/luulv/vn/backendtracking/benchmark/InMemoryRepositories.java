@@ -0,0 +1,148 @@
+package com.luulv.vn.backendtracking.benchmark;
+
+import com.luulv.vn.backendtracking.entity.Product;
+import com.luulv.vn.backendtracking.entity.ProductType;
+import com.luulv.vn.backendtracking.entity.User;
+import com.luulv.vn.backendtracking.repository.ProductCountView;
+import com.luulv.vn.backendtracking.repository.ProductRepository;
+import com.luulv.vn.backendtracking.repository.ProductTypeRepository;
+import com.luulv.vn.backendtracking.repository.UserRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Repository giả lập trong bộ nhớ cho benchmark tầng service, chỉ cài các method mà benchmark gọi tới.
+ * Benchmark đo chi phí của service (mapping, phân trang, cache...), không phải của DB.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    static ProductRepository products(List<Product> data) {
+        Map<Integer, Product> byId = data.stream().collect(Collectors.toMap(Product::getId, Function.identity()));
+        return proxy(ProductRepository.class, (method, args) -> switch (method) {
+            case "findById" -> Optional.ofNullable(byId.get((Integer) args[0]));
+            case "findWithFilters" -> page(data, productFilter((Integer) args[0], null, (Integer) args[1]),
+                    (Pageable) args[2], InMemoryRepositories::productComparator);
+            case "search" -> page(data, productFilter((Integer) args[0], (String) args[1], (Integer) args[2]),
+                    (Pageable) args[3], InMemoryRepositories::productComparator);
+            case "countGroupByTypeAndIsNotify" -> countByTypeAndIsNotify(data);
+            case "count" -> (long) data.size();
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    static UserRepository users(List<User> data) {
+        Map<Integer, User> byId = data.stream().collect(Collectors.toMap(User::getId, Function.identity()));
+        return proxy(UserRepository.class, (method, args) -> switch (method) {
+            case "findById" -> Optional.ofNullable(byId.get((Integer) args[0]));
+            case "findAll" -> page(data, InMemoryCriteria.filter((Specification<User>) args[0]), (Pageable) args[1],
+                    InMemoryRepositories::userComparator);
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    static ProductTypeRepository productTypes(String... names) {
+        List<ProductType> types = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            types.add(new ProductType(i + 1, names[i]));
+        }
+        return proxy(ProductTypeRepository.class, (method, args) -> switch (method) {
+            case "findAll" -> types;
+            case "findByName" -> types.stream().filter(type -> type.getName().equals(args[0])).findFirst();
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private static Predicate<Product> productFilter(Integer typeId, String url, Integer isNotify) {
+        String keyword = url == null ? null : url.toLowerCase(Locale.ROOT);
+        return product -> (typeId == null || typeId.equals(product.getTypeId()))
+                && (keyword == null || product.getUrl().toLowerCase(Locale.ROOT).contains(keyword))
+                && (isNotify == null || isNotify.equals(product.getIsNotify()));
+    }
+
+    private static List<ProductCountView> countByTypeAndIsNotify(List<Product> data) {
+        Map<List<Object>, Long> counts = new HashMap<>();
+        for (Product product : data) {
+            counts.merge(List.of(product.getType(), product.getIsNotify()), 1L, Long::sum);
+        }
+        return counts.entrySet().stream()
+                .map(entry -> (ProductCountView) new ProductCountView() {
+                    public String getType() { return (String) entry.getKey().get(0); }
+                    public Integer getIsNotify() { return (Integer) entry.getKey().get(1); }
+                    public Long getTotal() { return entry.getValue(); }
+                    public String getSnapshot() { return null; }
+                })
+                .toList();
+    }
+
+    private static <T> Page<T> page(List<T> data, Predicate<T> filter, Pageable pageable,
+                                    Function<Sort.Order, Comparator<T>> comparators) {
+        List<T> matched = data.stream().filter(filter).toList();
+        Comparator<T> comparator = null;
+        for (Sort.Order order : pageable.getSort()) {
+            Comparator<T> next = comparators.apply(order);
+            next = order.isAscending() ? next : next.reversed();
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        if (comparator != null) {
+            matched = matched.stream().sorted(comparator).toList();
+        }
+        int from = (int) Math.min(pageable.getOffset(), matched.size());
+        int to = Math.min(from + pageable.getPageSize(), matched.size());
+        return new PageImpl<>(matched.subList(from, to), pageable, matched.size());
+    }
+
+    private static Comparator<Product> productComparator(Sort.Order order) {
+        return switch (order.getProperty()) {
+            case "createdAt" -> Comparator.comparing(Product::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()));
+            case "url" -> Comparator.comparing(Product::getUrl);
+            default -> Comparator.comparing(Product::getId);
+        };
+    }
+
+    private static Comparator<User> userComparator(Sort.Order order) {
+        return switch (order.getProperty()) {
+            case "registerDate" -> Comparator.comparing(User::getRegisterDate, Comparator.nullsLast(Comparator.naturalOrder()));
+            case "expiredDate" -> Comparator.comparing(User::getExpiredDate, Comparator.nullsLast(Comparator.naturalOrder()));
+            case "username" -> Comparator.comparing(User::getUsername);
+            default -> Comparator.comparing(User::getId);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> R proxy(Class<R> type, Handler handler) {
+        return (R) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> type.getSimpleName() + "(in-memory)";
+                };
+            }
+            return handler.handle(method.getName(), args == null ? new Object[0] : args);
+        });
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(String method, Object[] args);
+    }
+}
@@ -0,0 +1,92 @@
+package com.luulv.vn.backendtracking.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import com.luulv.vn.backendtracking.dto.UserResponseDTO;
+import com.luulv.vn.backendtracking.entity.Product;
+import com.luulv.vn.backendtracking.entity.User;
+import com.luulv.vn.backendtracking.mapper.ProductMapper;
+import com.luulv.vn.backendtracking.mapper.UserMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh mapping entity -> DTO cho một trang dữ liệu:
+ * ObjectMapper.convertValue (cách cũ) với mapper MapStruct.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"1000"})
+    private int rows;
+
+    private List<Product> products;
+    private List<User> users;
+    private ObjectMapper objectMapper;
+    private ProductMapper productMapper;
+    private UserMapper userMapper;
+
+    @Setup
+    public void setUp() {
+        products = BenchmarkFixtures.products(rows);
+        users = BenchmarkFixtures.users(rows);
+        objectMapper = BenchmarkFixtures.objectMapper();
+        productMapper = Mappers.getMapper(ProductMapper.class);
+        userMapper = Mappers.getMapper(UserMapper.class);
+    }
+
+    @Benchmark
+    public List<ProductResponseDto> productConvertValue() {
+        List<ProductResponseDto> result = new ArrayList<>(rows);
+        for (Product product : products) {
+            result.add(objectMapper.convertValue(product, ProductResponseDto.class));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<ProductResponseDto> productMapStruct() {
+        List<ProductResponseDto> result = new ArrayList<>(rows);
+        for (Product product : products) {
+            result.add(productMapper.toDto(product));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<UserResponseDTO> userConvertValue() {
+        List<UserResponseDTO> result = new ArrayList<>(rows);
+        for (User user : users) {
+            result.add(objectMapper.convertValue(user, UserResponseDTO.class));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<UserResponseDTO> userMapStruct() {
+        List<UserResponseDTO> result = new ArrayList<>(rows);
+        for (User user : users) {
+            result.add(userMapper.toDto(user));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,93 @@
+package com.luulv.vn.backendtracking.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.luulv.vn.backendtracking.dto.ApiResponse;
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * So sánh JSON / Smile / CBOR cho response danh sách lớn (ApiResponse<List<ProductResponseDto>>):
+ * thời gian serialize, có và không có gzip, kèm kích thước payload (cột payloadBytes trong kết quả).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"10000"})
+    private int rows;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<List<ProductResponseDto>> response;
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper = switch (format) {
+            case "smile" -> builder.factory(new SmileFactory()).build();
+            case "cbor" -> builder.factory(new CBORFactory()).build();
+            default -> builder.build();
+        };
+        response = ApiResponse.success(BenchmarkFixtures.productDtos(rows));
+    }
+
+    @Benchmark
+    public byte[] serialize(PayloadSize size) throws IOException {
+        byte[] payload = objectMapper.writeValueAsBytes(response);
+        size.payloadBytes = payload.length;
+        return payload;
+    }
+
+    @Benchmark
+    public byte[] serializeGzip(PayloadSize size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            objectMapper.writeValue(gzip, response);
+        }
+        byte[] payload = out.toByteArray();
+        size.payloadBytes = payload.length;
+        return payload;
+    }
+
+    // Kích thước payload của lần serialize cuối, JMH in ra như một metric phụ
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public long payloadBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            payloadBytes = 0;
+        }
+    }
+}
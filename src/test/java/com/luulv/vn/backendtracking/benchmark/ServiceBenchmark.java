@@ -0,0 +1,82 @@
+package com.luulv.vn.backendtracking.benchmark;
+
+import com.luulv.vn.backendtracking.dto.CountMode;
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import com.luulv.vn.backendtracking.dto.ProductSearchRequestDto;
+import com.luulv.vn.backendtracking.dto.UserResponseDTO;
+import com.luulv.vn.backendtracking.dto.UserSearchRequest;
+import com.luulv.vn.backendtracking.service.ProductService;
+import com.luulv.vn.backendtracking.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Slice;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đường đi search/pagination của ProductService và UserService trên repository giả lập trong bộ nhớ.
+ * Con số đo được là chi phí phía ứng dụng (filter, sort, mapping, cache), không gồm DB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Param({"100"})
+    private int pageSize;
+
+    private ProductService productService;
+    private UserService userService;
+    private ProductSearchRequestDto productSearch;
+    private UserSearchRequest userSearch;
+
+    @Setup
+    public void setUp() {
+        productService = BenchmarkServices.productService(
+                InMemoryRepositories.products(BenchmarkFixtures.products(20_000)));
+        userService = BenchmarkServices.userService(
+                InMemoryRepositories.users(BenchmarkFixtures.users(20_000)));
+
+        productSearch = new ProductSearchRequestDto();
+        productSearch.setType("tiki");
+        productSearch.setUrl("item-1");
+        productSearch.setSize(pageSize);
+
+        userSearch = new UserSearchRequest();
+        userSearch.setUsername("user1");
+        userSearch.setStatus(1);
+        userSearch.setSize(pageSize);
+    }
+
+    @Benchmark
+    public Slice<ProductResponseDto> productPagination() {
+        return productService.getProductsWithPagination("shopee", 1, 5, pageSize, "createdAt", "desc", CountMode.EXACT);
+    }
+
+    @Benchmark
+    public Slice<ProductResponseDto> productSearch() {
+        return productService.search(productSearch);
+    }
+
+    @Benchmark
+    public ProductResponseDto productByIdCached() {
+        return productService.getProductById(42);
+    }
+
+    @Benchmark
+    public Slice<UserResponseDTO> userSearch() {
+        return userService.searchUsers(userSearch);
+    }
+}
@@ -0,0 +1,214 @@
+package com.luulv.vn.backendtracking.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh câu search user "catch-all" cũ (mọi filter dạng :param IS NULL OR ...) với câu chỉ chứa
+ * predicate được truyền vào (cách UserSpecifications sinh SQL), theo từng tổ hợp filter.
+ * <p>
+ * Cần PostgreSQL thật: -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/postgres
+ * (-Dbenchmark.db.user, -Dbenchmark.db.password, mặc định postgres/postgres).
+ * Dữ liệu nằm trong bảng tạm cùng cột và index với users nên không đụng tới dữ liệu thật.
+ * PreparedStatement được dùng lại để driver chuyển sang server-side prepare, từ đó lộ ra plan chung (generic plan)
+ * mà Postgres chọn cho câu catch-all sau vài lần thực thi.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserSearchBenchmark {
+
+    private static final int ROWS = 200_000;
+    private static final int PAGE_SIZE = 20;
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private static final String CATCH_ALL_SQL = """
+            SELECT * FROM bench_users u
+            WHERE (? IS NULL OR LOWER(u.username) LIKE LOWER(CONCAT('%', ?, '%')))
+              AND (? IS NULL OR LOWER(u.full_name) LIKE LOWER(CONCAT('%', ?, '%')))
+              AND (COALESCE(?, NULL::date) IS NULL OR u.register_date >= ?)
+              AND (COALESCE(?, NULL::date) IS NULL OR u.register_date <= ?)
+              AND (COALESCE(?, NULL::date) IS NULL OR u.expired_date >= ?)
+              AND (COALESCE(?, NULL::date) IS NULL OR u.expired_date <= ?)
+              AND (CAST(? AS INTEGER) IS NULL OR u.status = ?)
+            ORDER BY u.id LIMIT ? OFFSET 0
+            """;
+
+    // Tổ hợp filter: username, status, khoảng expired_date, khoảng register_date + status, đủ cả
+    @Param({"none", "username", "status", "expired", "register_status", "all"})
+    private String filters;
+
+    private Connection connection;
+    private PreparedStatement catchAll;
+    private PreparedStatement dynamic;
+    private Filter filter;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.db.url", "jdbc:postgresql://localhost:5432/postgres"),
+                System.getProperty("benchmark.db.user", "postgres"),
+                System.getProperty("benchmark.db.password", "postgres"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TEMP TABLE bench_users (
+                        id            INTEGER PRIMARY KEY,
+                        username      VARCHAR(255),
+                        full_name     VARCHAR(255),
+                        register_date DATE,
+                        expired_date  DATE,
+                        status        INTEGER
+                    )""");
+            statement.execute("""
+                    INSERT INTO bench_users
+                    SELECT g, 'user' || g, 'Nguyen Van ' || g,
+                           DATE '2024-01-01' + (g % 700), DATE '2024-01-01' + (g % 700) + 30,
+                           CASE WHEN g % 10 = 0 THEN 0 WHEN g % 7 = 0 THEN 2 ELSE 1 END
+                    FROM generate_series(1, %d) g""".formatted(ROWS));
+            statement.execute("CREATE INDEX ON bench_users (register_date, id)");
+            statement.execute("CREATE INDEX ON bench_users (expired_date, id)");
+            statement.execute("CREATE INDEX ON bench_users (expired_date) WHERE status = 1");
+            statement.execute("ANALYZE bench_users");
+        }
+
+        filter = Filter.of(filters);
+        catchAll = connection.prepareStatement(CATCH_ALL_SQL);
+        dynamic = connection.prepareStatement(filter.dynamicSql());
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public int catchAllQuery() throws SQLException {
+        int i = 1;
+        i = bindTwice(catchAll, i, filter.username, Types.VARCHAR);
+        i = bindTwice(catchAll, i, null, Types.VARCHAR);
+        i = bindTwice(catchAll, i, date(filter.registerFrom), Types.DATE);
+        i = bindTwice(catchAll, i, null, Types.DATE);
+        i = bindTwice(catchAll, i, date(filter.expiredFrom), Types.DATE);
+        i = bindTwice(catchAll, i, date(filter.expiredTo), Types.DATE);
+        i = bindTwice(catchAll, i, filter.status, Types.INTEGER);
+        catchAll.setInt(i, PAGE_SIZE);
+        return drain(catchAll);
+    }
+
+    @Benchmark
+    public int specificationShapedQuery() throws SQLException {
+        List<Object> params = filter.dynamicParams();
+        for (int i = 0; i < params.size(); i++) {
+            dynamic.setObject(i + 1, params.get(i));
+        }
+        dynamic.setInt(params.size() + 1, PAGE_SIZE);
+        return drain(dynamic);
+    }
+
+    private static int bindTwice(PreparedStatement statement, int index, Object value, int sqlType) throws SQLException {
+        statement.setObject(index, value, sqlType);
+        statement.setObject(index + 1, value, sqlType);
+        return index + 2;
+    }
+
+    private static int drain(PreparedStatement statement) throws SQLException {
+        int rows = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static Date date(LocalDate value) {
+        return value == null ? null : Date.valueOf(value);
+    }
+
+    private record Filter(String username, LocalDate registerFrom, LocalDate expiredFrom, LocalDate expiredTo,
+                          Integer status) {
+
+        static Filter of(String name) {
+            return switch (name) {
+                case "none" -> new Filter(null, null, null, null, null);
+                case "username" -> new Filter("user1234", null, null, null, null);
+                case "status" -> new Filter(null, null, null, null, 2);
+                case "expired" -> new Filter(null, null, START.plusDays(100), START.plusDays(107), null);
+                case "register_status" -> new Filter(null, START.plusDays(600), null, null, 1);
+                case "all" -> new Filter("user1", START.plusDays(10), START.plusDays(40), START.plusDays(200), 1);
+                default -> throw new IllegalArgumentException("Không có tổ hợp filter: " + name);
+            };
+        }
+
+        // Cùng thứ tự và dạng predicate với UserSpecifications.withFilters
+        String dynamicSql() {
+            List<String> where = new ArrayList<>();
+            if (username != null) {
+                where.add("LOWER(u.username) LIKE ?");
+            }
+            if (registerFrom != null) {
+                where.add("u.register_date >= ?");
+            }
+            if (expiredFrom != null) {
+                where.add("u.expired_date >= ?");
+            }
+            if (expiredTo != null) {
+                where.add("u.expired_date <= ?");
+            }
+            if (status != null) {
+                where.add("u.status = ?");
+            }
+            return "SELECT * FROM bench_users u"
+                    + (where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where))
+                    + " ORDER BY u.id LIMIT ? OFFSET 0";
+        }
+
+        List<Object> dynamicParams() {
+            List<Object> params = new ArrayList<>();
+            if (username != null) {
+                params.add("%" + username.toLowerCase() + "%");
+            }
+            if (registerFrom != null) {
+                params.add(date(registerFrom));
+            }
+            if (expiredFrom != null) {
+                params.add(date(expiredFrom));
+            }
+            if (expiredTo != null) {
+                params.add(date(expiredTo));
+            }
+            if (status != null) {
+                params.add(status);
+            }
+            return params;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.luulv.vn.backendtracking.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvalidationMessageTest {
+
+	@Test
+	void roundTripsIdsAndVersionFromTheNotifyPayload() {
+		String payload = InvalidationMessage.prefix("product", new LinkedHashSet<>(List.of(7, 42))) + "981234";
+
+		InvalidationMessage message = InvalidationMessage.parse(payload);
+
+		assertEquals("product", message.table());
+		assertEquals(Set.of(7, 42), message.ids());
+		assertEquals(981234L, message.version());
+		assertTrue(message.isLocal());
+	}
+
+	@Test
+	void wholeTableAndMalformedPayloads() {
+		InvalidationMessage all = InvalidationMessage.parse("users:*:othernode:12");
+
+		assertTrue(all.isAll());
+		assertEquals("othernode", all.node());
+		assertNull(InvalidationMessage.parse("users:1,x:node:12"));
+		assertNull(InvalidationMessage.parse("users:1"));
+	}
+}
@@ -0,0 +1,36 @@
+package com.luulv.vn.backendtracking.controller;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bảng table_version giả lập cho TableVersionTracker trong test controller không có DB:
+ * trả lời câu đọc và câu tăng phiên bản của tracker, dùng chung được giữa nhiều tracker như nhiều node.
+ */
+final class InMemoryTableVersions extends JdbcTemplate {
+
+	private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+	// Ghi đã commit trên một node khác
+	long bump(String table) {
+		return versions.merge(table, 1L, Long::sum);
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+	}
+
+	@Override
+	public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+		String table = (String) args[0];
+		if (sql.startsWith("SELECT")) {
+			return requiredType.cast(versions.getOrDefault(table, 0L));
+		}
+		if (sql.startsWith("INSERT")) {
+			return requiredType.cast(bump(table));
+		}
+		throw new IllegalArgumentException("Unexpected SQL: " + sql);
+	}
+}
@@ -0,0 +1,112 @@
+package com.luulv.vn.backendtracking.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luulv.vn.backendtracking.cache.TableVersionTracker;
+import com.luulv.vn.backendtracking.config.ProductEventProperties;
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import com.luulv.vn.backendtracking.event.ProductEventBroadcaster;
+import com.luulv.vn.backendtracking.service.ProductBulkImportService;
+import com.luulv.vn.backendtracking.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chạy Tomcat thật với cấu hình server.compression trong application.yml (không cần DB):
+ * response danh sách lớn có ETag vẫn phải được nén gzip, và ETag đó vẫn dùng được cho request có điều kiện.
+ */
+@SpringBootTest(classes = ProductControllerCompressionTest.WebOnly.class,
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ProductControllerCompressionTest {
+
+	private static final int PRODUCTS = 200;
+
+	@LocalServerPort
+	private int port;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@Test
+	void largeListWithEtagIsGzipped() throws Exception {
+		HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(uri())
+				.header("Accept-Encoding", "gzip")
+				.build(), HttpResponse.BodyHandlers.ofByteArray());
+
+		assertEquals(200, response.statusCode());
+		String etag = response.headers().firstValue("ETag").orElseThrow();
+		assertTrue(etag.startsWith("W/\""), etag);
+		assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+		try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+			String json = new String(body.readAllBytes());
+			assertTrue(json.contains("https://shop.example.com/item-" + (PRODUCTS - 1)), "body was not the product list");
+		}
+
+		HttpResponse<Void> conditional = client.send(HttpRequest.newBuilder(uri())
+				.header("Accept-Encoding", "gzip")
+				.header("If-None-Match", etag)
+				.build(), HttpResponse.BodyHandlers.discarding());
+		assertEquals(304, conditional.statusCode());
+	}
+
+	private URI uri() {
+		return URI.create("http://localhost:" + port + "/api/products");
+	}
+
+	@SpringBootConfiguration
+	@ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+			WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class})
+	@Import({ProductController.class, TableVersionTracker.class})
+	static class WebOnly {
+
+		@Bean
+		InMemoryTableVersions tableVersionStore() {
+			return new InMemoryTableVersions();
+		}
+
+		@Bean
+		ProductService productService() {
+			List<ProductResponseDto> products = IntStream.range(0, PRODUCTS)
+					.mapToObj(i -> new ProductResponseDto(i, "https://shop.example.com/item-" + i, "electronics", 1,
+							LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 1)))
+					.toList();
+			return new ProductService(null, null, null, null, null, null, null, null, null, null) {
+				@Override
+				public List<ProductResponseDto> getAllProducts() {
+					return products;
+				}
+			};
+		}
+
+		@Bean
+		ProductBulkImportService bulkImportService() {
+			return new ProductBulkImportService(null, null);
+		}
+
+		@Bean
+		ProductEventBroadcaster productEventBroadcaster(ObjectMapper objectMapper) {
+			return new ProductEventBroadcaster(new ProductEventProperties(), objectMapper);
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package com.luulv.vn.backendtracking.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luulv.vn.backendtracking.cache.TableVersionTracker;
+import com.luulv.vn.backendtracking.config.MessageFormatConfig;
+import com.luulv.vn.backendtracking.config.ProductEventProperties;
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import com.luulv.vn.backendtracking.event.ChangeType;
+import com.luulv.vn.backendtracking.event.ProductChangeEvent;
+import com.luulv.vn.backendtracking.event.ProductEventBroadcaster;
+import com.luulv.vn.backendtracking.service.ProductBulkImportService;
+import com.luulv.vn.backendtracking.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Request có điều kiện (If-None-Match) trên controller thật với TableVersionTracker thật,
+ * bảng table_version giả lập trong bộ nhớ (InMemoryTableVersions) đóng vai DB dùng chung giữa các node.
+ * Các định dạng chọn qua Accept (MessageFormatConfig) có ETag riêng và response có Vary: Accept.
+ */
+@SpringBootTest(classes = ProductControllerETagTest.WebOnly.class,
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ProductControllerETagTest {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private InMemoryTableVersions tableVersionStore;
+
+	@Autowired
+	private TableVersionTracker tableVersions;
+
+	@Autowired
+	private CountingProductService productService;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@Test
+	void matchingIfNoneMatchReturnsNotModifiedWithoutLoading() throws Exception {
+		String etag = get(null).headers().firstValue("ETag").orElseThrow();
+		int loads = productService.loads.get();
+
+		HttpResponse<String> conditional = get(etag);
+
+		assertEquals(304, conditional.statusCode());
+		assertEquals(etag, conditional.headers().firstValue("ETag").orElse(null));
+		assertEquals(loads, productService.loads.get());
+	}
+
+	@Test
+	void etagIsTheSameOnEveryNode() throws Exception {
+		String etag = get(null).headers().firstValue("ETag").orElseThrow();
+
+		// Node khác (hoặc node này sau khi restart) đọc cùng bảng table_version
+		TableVersionTracker otherNode = new TableVersionTracker(tableVersionStore);
+
+		assertEquals(etag, otherNode.etag(TableVersionTracker.PRODUCT, "json"));
+	}
+
+	@Test
+	void writeOnAnotherNodeChangesTheEtag() throws Exception {
+		String etag = get(null).headers().firstValue("ETag").orElseThrow();
+
+		// InvalidationListener đọc lại phiên bản sau tin NOTIFY của node đã ghi
+		tableVersions.advance(TableVersionTracker.PRODUCT, tableVersionStore.bump(TableVersionTracker.PRODUCT));
+		HttpResponse<String> response = get(etag);
+
+		assertEquals(200, response.statusCode());
+		assertNotEquals(etag, response.headers().firstValue("ETag").orElseThrow());
+	}
+
+	@Test
+	void localWriteChangesTheEtag() throws Exception {
+		String etag = get(null).headers().firstValue("ETag").orElseThrow();
+
+		tableVersions.onProductChanged(new ProductChangeEvent(ChangeType.UPDATED, 1, null, null));
+		HttpResponse<String> response = get(etag);
+
+		assertEquals(200, response.statusCode());
+		String changed = response.headers().firstValue("ETag").orElseThrow();
+		assertNotEquals(etag, changed);
+		assertEquals(changed, new TableVersionTracker(tableVersionStore).etag(TableVersionTracker.PRODUCT, "json"));
+	}
+
+	@Test
+	void eachNegotiatedFormatHasItsOwnEtag() throws Exception {
+		HttpResponse<String> json = get(null);
+		HttpResponse<String> cbor = get(null, "application/cbor");
+		HttpResponse<String> smile = get(null, "application/json;q=0.5, application/x-jackson-smile");
+
+		assertEquals("application/cbor", cbor.headers().firstValue("Content-Type").orElseThrow());
+		assertEquals(3, Set.of(etag(json), etag(cbor), etag(smile)).size());
+		// Bản JSON client đang giữ không dùng được khi client đòi CBOR
+		assertEquals(200, get(etag(json), "application/cbor").statusCode());
+		assertEquals(304, get(etag(cbor), "application/cbor").statusCode());
+	}
+
+	@Test
+	void negotiatedResponsesVaryOnAccept() throws Exception {
+		HttpResponse<String> response = get(null);
+		HttpResponse<String> notModified = get(etag(response));
+
+		assertEquals(304, notModified.statusCode());
+		assertTrue(varies(response), response.headers().allValues("Vary").toString());
+		assertTrue(varies(notModified), notModified.headers().allValues("Vary").toString());
+		assertTrue(varies(get(null, "application/x-ndjson")));
+	}
+
+	private static String etag(HttpResponse<?> response) {
+		return response.headers().firstValue("ETag").orElseThrow();
+	}
+
+	private static boolean varies(HttpResponse<?> response) {
+		return response.headers().allValues("Vary").stream()
+				.flatMap(value -> Arrays.stream(value.split(",")))
+				.anyMatch(value -> value.trim().equalsIgnoreCase("Accept"));
+	}
+
+	private HttpResponse<String> get(String ifNoneMatch) throws Exception {
+		return get(ifNoneMatch, null);
+	}
+
+	private HttpResponse<String> get(String ifNoneMatch, String accept) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products"));
+		if (ifNoneMatch != null) {
+			request.header("If-None-Match", ifNoneMatch);
+		}
+		if (accept != null) {
+			request.header("Accept", accept);
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	static class CountingProductService extends ProductService {
+
+		private final AtomicInteger loads = new AtomicInteger();
+
+		CountingProductService() {
+			super(null, null, null, null, null, null, null, null, null, null);
+		}
+
+		@Override
+		public List<ProductResponseDto> getAllProducts() {
+			loads.incrementAndGet();
+			return List.of(product());
+		}
+
+		@Override
+		public long streamAllProducts(Consumer<ProductResponseDto> consumer) {
+			loads.incrementAndGet();
+			consumer.accept(product());
+			return 1;
+		}
+
+		private static ProductResponseDto product() {
+			return new ProductResponseDto(1, "https://shop.example.com/item-1", "electronics", 1,
+					LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 1));
+		}
+	}
+
+	@SpringBootConfiguration
+	@ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+			WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class})
+	@Import({ProductController.class, TableVersionTracker.class, MessageFormatConfig.class})
+	static class WebOnly {
+
+		@Bean
+		InMemoryTableVersions tableVersionStore() {
+			return new InMemoryTableVersions();
+		}
+
+		@Bean
+		CountingProductService productService() {
+			return new CountingProductService();
+		}
+
+		@Bean
+		ProductBulkImportService bulkImportService() {
+			return new ProductBulkImportService(null, null);
+		}
+
+		@Bean
+		ProductEventBroadcaster productEventBroadcaster(ObjectMapper objectMapper) {
+			return new ProductEventBroadcaster(new ProductEventProperties(), objectMapper);
+		}
+	}
+}
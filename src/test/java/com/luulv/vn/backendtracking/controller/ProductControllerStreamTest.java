@@ -0,0 +1,172 @@
+package com.luulv.vn.backendtracking.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luulv.vn.backendtracking.cache.TableVersionTracker;
+import com.luulv.vn.backendtracking.config.ProductEventProperties;
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import com.luulv.vn.backendtracking.event.ProductEventBroadcaster;
+import com.luulv.vn.backendtracking.service.ProductBulkImportService;
+import com.luulv.vn.backendtracking.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chạy Tomcat thật (không cần DB): /api/products/stream trả NDJSON mỗi dòng một sản phẩm,
+ * và client ngắt giữa chừng thì việc đọc sản phẩm dừng lại thay vì chạy hết bảng.
+ */
+@SpringBootTest(classes = ProductControllerStreamTest.WebOnly.class,
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ProductControllerStreamTest {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private StubProductService productService;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void streamsOneJsonObjectPerLine() throws Exception {
+		productService.reset(3);
+
+		HttpResponse<String> response = HttpClient.newHttpClient().send(
+				HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products/stream")).build(),
+				HttpResponse.BodyHandlers.ofString());
+
+		assertEquals(200, response.statusCode());
+		assertEquals("application/x-ndjson", response.headers().firstValue("Content-Type").orElseThrow());
+		assertTrue(response.body().endsWith("}\n"), response.body());
+		List<String> lines = response.body().lines().toList();
+		assertEquals(3, lines.size());
+		for (int i = 0; i < lines.size(); i++) {
+			assertEquals("https://shop.example.com/item-" + i, objectMapper.readTree(lines.get(i)).get("url").asText());
+		}
+	}
+
+	@Test
+	void emptyTableStreamsNothing() throws Exception {
+		productService.reset(0);
+
+		HttpResponse<String> response = HttpClient.newHttpClient().send(
+				HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products/stream")).build(),
+				HttpResponse.BodyHandlers.ofString());
+
+		assertEquals(200, response.statusCode());
+		assertEquals("", response.body());
+	}
+
+	@Test
+	void clientAbortStopsTheStream() throws Exception {
+		long rows = 5_000_000;
+		productService.reset(rows);
+
+		try (Socket socket = new Socket("localhost", port)) {
+			OutputStream out = socket.getOutputStream();
+			out.write(("GET /api/products/stream HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+			out.flush();
+			InputStream in = socket.getInputStream();
+			// Đọc tới khi đã có dữ liệu sản phẩm rồi đóng kết nối
+			byte[] buffer = new byte[8192];
+			int read = 0;
+			while (read < 64 * 1024) {
+				int n = in.read(buffer);
+				assertTrue(n > 0, "stream ended before the client aborted");
+				read += n;
+			}
+		}
+
+		assertTrue(productService.finished.await(10, TimeUnit.SECONDS), "product stream was not closed after the client aborted");
+		assertTrue(productService.emitted.get() < rows, "streamed all " + rows + " rows to a closed connection");
+	}
+
+	/**
+	 * Giả lập con trỏ DB: sinh sản phẩm tới khi consumer ném lỗi (client ngắt), finished đánh dấu con trỏ đã đóng
+	 */
+	static class StubProductService extends ProductService {
+
+		private volatile long rows;
+		private final AtomicLong emitted = new AtomicLong();
+		private volatile CountDownLatch finished = new CountDownLatch(1);
+
+		StubProductService() {
+			super(null, null, null, null, null, null, null, null, null, null);
+		}
+
+		void reset(long rows) {
+			this.rows = rows;
+			emitted.set(0);
+			finished = new CountDownLatch(1);
+		}
+
+		@Override
+		public long streamAllProducts(Consumer<ProductResponseDto> consumer) {
+			try {
+				for (int i = 0; i < rows; i++) {
+					consumer.accept(new ProductResponseDto(i, "https://shop.example.com/item-" + i, "electronics", 1,
+							LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 1)));
+					emitted.incrementAndGet();
+				}
+				return emitted.get();
+			} finally {
+				finished.countDown();
+			}
+		}
+	}
+
+	@SpringBootConfiguration
+	@ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+			WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class})
+	@Import({ProductController.class, TableVersionTracker.class})
+	static class WebOnly {
+
+		@Bean
+		InMemoryTableVersions tableVersionStore() {
+			return new InMemoryTableVersions();
+		}
+
+		@Bean
+		StubProductService productService() {
+			return new StubProductService();
+		}
+
+		@Bean
+		ProductBulkImportService bulkImportService() {
+			return new ProductBulkImportService(null, null);
+		}
+
+		@Bean
+		ProductEventBroadcaster productEventBroadcaster(ObjectMapper objectMapper) {
+			return new ProductEventBroadcaster(new ProductEventProperties(), objectMapper);
+		}
+	}
+}
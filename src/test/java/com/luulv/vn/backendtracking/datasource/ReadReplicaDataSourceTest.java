@@ -0,0 +1,115 @@
+package com.luulv.vn.backendtracking.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReadReplicaDataSourceTest {
+
+	private final StubDataSource primary = new StubDataSource("primary");
+	private final StubDataSource first = new StubDataSource("first");
+	private final StubDataSource second = new StubDataSource("second");
+	private final ReplicaSet replicas = new ReplicaSet(
+			List.of(new ReplicaSet.Replica("first", first), new ReplicaSet.Replica("second", second)),
+			Duration.ofSeconds(10), Duration.ofSeconds(1));
+	private final ReadYourWritesTracker tracker = new ReadYourWritesTracker(100, Duration.ofMinutes(1));
+	private volatile boolean recentlyChanged;
+	private final ReadReplicaDataSource dataSource =
+			new ReadReplicaDataSource(primary, replicas, tracker, () -> recentlyChanged);
+
+	@AfterEach
+	void clearClient() {
+		VersionedReads.close();
+		ReadYourWritesTracker.clear();
+	}
+
+	@Test
+	void spreadsReadsOverReplicasAndSkipsOneThatFails() throws SQLException {
+		assertEquals("first", dataSource.getConnection().toString());
+		assertEquals("second", dataSource.getConnection().toString());
+
+		first.down = true;
+		assertEquals("second", dataSource.getConnection().toString());
+		first.down = false;
+		// Vẫn bị coi là down cho tới lần kiểm tra sức khỏe tiếp theo
+		assertEquals("second", dataSource.getConnection().toString());
+		assertEquals(1, replicas.getHealthyCount());
+
+		second.down = true;
+		assertEquals("primary", dataSource.getConnection().toString());
+		assertEquals(1, replicas.getFallbackReads());
+	}
+
+	@Test
+	void clientThatJustWroteReadsFromPrimary() throws SQLException {
+		ReadYourWritesTracker.bind("client-a");
+		try (Connection connection = new WriteTrackingDataSource(primary, tracker).getConnection()) {
+			connection.commit();
+		}
+		assertEquals("primary", dataSource.getConnection().toString());
+
+		ReadYourWritesTracker.bind("client-b");
+		assertEquals("first", dataSource.getConnection().toString());
+		assertEquals(1, replicas.getStickyReads());
+	}
+
+	@Test
+	void versionedReadsGoToPrimaryOnlyWhileReplicasMayLag() throws SQLException {
+		VersionedReads.open();
+		recentlyChanged = true;
+		assertEquals("first", dataSource.getConnection().toString());
+
+		// ETag đã được tính cho request: dữ liệu trả về phải mới ít nhất bằng phiên bản đó
+		VersionedReads.markRequest();
+		assertEquals("primary", dataSource.getConnection().toString());
+		recentlyChanged = false;
+		assertEquals("second", dataSource.getConnection().toString());
+
+		// Loader của cache, kể cả ngoài request
+		VersionedReads.close();
+		recentlyChanged = true;
+		assertEquals("primary", VersionedReads.call(() -> connectionName()));
+		assertEquals("first", dataSource.getConnection().toString());
+		assertEquals(2, replicas.getVersionedReads());
+	}
+
+	private String connectionName() {
+		try {
+			return dataSource.getConnection().toString();
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static final class StubDataSource extends AbstractDataSource {
+
+		private final String name;
+		private volatile boolean down;
+
+		private StubDataSource(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			if (down) {
+				throw new SQLException(name + " is down");
+			}
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+					(proxy, method, args) -> "toString".equals(method.getName()) ? name : null);
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return getConnection();
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.luulv.vn.backendtracking.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetCursorTest {
+
+	@Test
+	void roundTripsValueAndId() {
+		KeysetCursor cursor = new KeysetCursor("createdAt", Sort.Direction.DESC, "2024-05-01", 42);
+
+		KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+		assertEquals(cursor, decoded);
+	}
+
+	@Test
+	void distinguishesNullFromEmptyValue() {
+		KeysetCursor nullValue = KeysetCursor.decode(new KeysetCursor("type", Sort.Direction.ASC, null, 7).encode());
+		KeysetCursor emptyValue = KeysetCursor.decode(new KeysetCursor("type", Sort.Direction.ASC, "", 7).encode());
+
+		assertNull(nullValue.getValue());
+		assertEquals("", emptyValue.getValue());
+	}
+
+	@Test
+	void rejectsGarbageToken() {
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not-a-cursor"));
+	}
+
+}
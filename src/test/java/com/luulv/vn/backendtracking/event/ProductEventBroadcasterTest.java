@@ -0,0 +1,149 @@
+package com.luulv.vn.backendtracking.event;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.luulv.vn.backendtracking.config.ProductEventProperties;
+import com.luulv.vn.backendtracking.dto.ProductResponseDto;
+import com.luulv.vn.backendtracking.event.ProductEventBroadcaster.Filter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductEventBroadcasterTest {
+
+	private ProductEventProperties properties;
+
+	private ProductEventBroadcaster broadcaster;
+
+	@BeforeEach
+	void setUp() {
+		properties = new ProductEventProperties();
+		properties.setReplaySize(5);
+		properties.setQueueSize(4);
+		broadcaster = new ProductEventBroadcaster(properties, JsonMapper.builder().findAndAddModules().build());
+	}
+
+	@AfterEach
+	void tearDown() {
+		broadcaster.shutdown();
+	}
+
+	@Test
+	void filterMatchesWhenEitherSideOfTheWriteMatches() {
+		Filter filter = new Filter("shopee", 1);
+
+		assertTrue(filter.matches(null, product(1, "shopee", 1)));
+		assertTrue(filter.matches(product(1, "shopee", 1), product(1, "shopee", 0)));
+		assertTrue(filter.matches(product(1, "tiki", 1), product(1, "shopee", 1)));
+		assertFalse(filter.matches(product(1, "tiki", 1), product(1, "tiki", 1)));
+		assertFalse(filter.matches(product(1, "shopee", 0), null));
+	}
+
+	@Test
+	void emptyFilterAndIdOnlyRemoteEventsMatchEverything() {
+		assertTrue(new Filter(null, null).matches(product(1, "tiki", 0), null));
+		assertTrue(new Filter("shopee", 1).matches(null, null));
+	}
+
+	@Test
+	void replaysOnlyEventsAfterTheLastEventId() {
+		publish(1, "shopee");
+		publish(2, "tiki");
+		publish(3, "shopee");
+
+		List<String> missed = ids(broadcaster.missedSince(new Filter(null, null), broadcaster.eventId(1)));
+
+		assertEquals(List.of(broadcaster.eventId(2), broadcaster.eventId(3)), missed);
+		assertEquals(List.of(), ids(broadcaster.missedSince(new Filter(null, null), broadcaster.eventId(3))));
+	}
+
+	@Test
+	void replayAppliesTheSubscriberFilter() {
+		properties.setQueueSize(16);
+		publish(1, "shopee");
+		publish(2, "tiki");
+		publish(3, "shopee");
+		broadcaster.publish(new ProductChangeEvent(ChangeType.UPDATED, 4, null, null));
+
+		List<String> missed = ids(broadcaster.missedSince(new Filter("shopee", null), broadcaster.eventId(0)));
+
+		assertEquals(List.of(broadcaster.eventId(1), broadcaster.eventId(3), broadcaster.eventId(4)), missed);
+	}
+
+	@Test
+	void unknownOrFutureIdsGetAReset() {
+		publish(1, "shopee");
+
+		assertReset(broadcaster.missedSince(new Filter(null, null), "otherepoch.1"));
+		assertReset(broadcaster.missedSince(new Filter(null, null), "garbage"));
+		assertReset(broadcaster.missedSince(new Filter(null, null), broadcaster.eventId(2)));
+	}
+
+	@Test
+	void gapsOlderThanTheReplayBufferGetAReset() {
+		for (int id = 1; id <= 7; id++) {
+			publish(id, "tiki");
+		}
+
+		// Bộ đệm giữ 3..7: tiếp tục từ 2 vẫn đủ, từ 1 thì đã mất sự kiện 2
+		assertReset(broadcaster.missedSince(new Filter("shopee", null), broadcaster.eventId(1)));
+		assertEquals(List.of(), broadcaster.missedSince(new Filter("shopee", null), broadcaster.eventId(2)));
+	}
+
+	@Test
+	void moreMissedEventsThanTheQueueHoldsGetAReset() {
+		for (int id = 1; id <= 4; id++) {
+			publish(id, "tiki");
+		}
+
+		assertEquals(2, broadcaster.missedSince(new Filter(null, null), broadcaster.eventId(2)).size());
+		assertReset(broadcaster.missedSince(new Filter(null, null), broadcaster.eventId(1)));
+	}
+
+	@Test
+	void resetClearsTheReplayBuffer() {
+		publish(1, "tiki");
+		publish(2, "tiki");
+		broadcaster.publishReset();
+
+		assertReset(broadcaster.missedSince(new Filter(null, null), broadcaster.eventId(1)));
+		assertEquals(List.of(), broadcaster.missedSince(new Filter(null, null), broadcaster.eventId(3)));
+	}
+
+	private void publish(int id, String type) {
+		broadcaster.publish(new ProductChangeEvent(ChangeType.CREATED, id, null, product(id, type, 1)));
+	}
+
+	private static ProductResponseDto product(int id, String type, int isNotify) {
+		ProductResponseDto product = new ProductResponseDto();
+		product.setId(id);
+		product.setType(type);
+		product.setIsNotify(isNotify);
+		return product;
+	}
+
+	private static void assertReset(List<Set<DataWithMediaType>> missed) {
+		assertEquals(1, missed.size());
+		assertTrue(text(missed.get(0)).contains("event:reset\n"), text(missed.get(0)));
+	}
+
+	// Giá trị dòng "id:" của từng sự kiện
+	private static List<String> ids(List<Set<DataWithMediaType>> events) {
+		return events.stream()
+				.map(ProductEventBroadcasterTest::text)
+				.map(text -> text.lines().filter(line -> line.startsWith("id:")).findFirst().orElseThrow().substring(3))
+				.toList();
+	}
+
+	private static String text(Set<DataWithMediaType> event) {
+		return event.stream().map(data -> data.getData().toString()).collect(Collectors.joining());
+	}
+}
@@ -0,0 +1,62 @@
+package com.luulv.vn.backendtracking.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SamplingTurboFilterTest {
+
+	private final LoggerContext context = new LoggerContext();
+
+	@Test
+	void keepsOneInNAndNeverDropsWarnings() {
+		SamplingTurboFilter filter = filter(5, 0);
+		Logger logger = context.getLogger("com.luulv.vn.backendtracking.service.ProductService");
+
+		int kept = 0;
+		for (int i = 0; i < 100; i++) {
+			if (filter.decide(null, logger, Level.INFO, "Fetching product with ID: {}", new Object[]{i}, null) == FilterReply.NEUTRAL) {
+				kept++;
+			}
+		}
+
+		assertEquals(20, kept);
+		assertEquals(80, filter.getDropped());
+		assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.WARN, "slow", null, null));
+	}
+
+	@Test
+	void capsPerSecondAndIgnoresOtherLoggers() {
+		SamplingTurboFilter filter = filter(1, 10);
+		Logger logger = context.getLogger("com.luulv.vn.backendtracking.controller.ProductController");
+		Logger other = context.getLogger("com.luulv.vn.backendtracking.tracking.TrackingEngine");
+
+		int kept = 0;
+		for (int i = 0; i < 50; i++) {
+			if (filter.decide(null, logger, Level.INFO, "Received request", null, null) == FilterReply.NEUTRAL) {
+				kept++;
+			}
+			assertEquals(FilterReply.NEUTRAL, filter.decide(null, other, Level.INFO, "cycle", null, null));
+		}
+
+		// Có thể rơi vào ranh giới giây nên cho phép tối đa hai cửa sổ
+		assertTrue(kept >= 10 && kept <= 20, "kept " + kept);
+	}
+
+	private SamplingTurboFilter filter(int sampleEvery, int maxPerSecond) {
+		SamplingTurboFilter filter = new SamplingTurboFilter();
+		filter.setContext(context);
+		filter.addLogger("com.luulv.vn.backendtracking.controller");
+		filter.addLogger("com.luulv.vn.backendtracking.service");
+		filter.setSampleEvery(sampleEvery);
+		filter.setMaxPerSecond(maxPerSecond);
+		filter.start();
+		return filter;
+	}
+
+}
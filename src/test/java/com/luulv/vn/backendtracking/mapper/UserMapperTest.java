@@ -0,0 +1,66 @@
+package com.luulv.vn.backendtracking.mapper;
+
+import com.luulv.vn.backendtracking.dto.UserResponseDTO;
+import com.luulv.vn.backendtracking.entity.User;
+import com.luulv.vn.backendtracking.entity.UserStatus;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserMapperTest {
+
+	private final UserMapper mapper = Mappers.getMapper(UserMapper.class);
+
+	private static final LocalDate TODAY = LocalDate.of(2024, 6, 2);
+
+	@Test
+	void trustsPersistedStatus() {
+		User active = User.builder().id(5).username("alice").expiredDate(LocalDate.of(2024, 7, 1)).status(1).build();
+		User expired = User.builder().id(6).username("bob").expiredDate(LocalDate.of(2024, 7, 1)).status(2).build();
+
+		UserResponseDTO activeDto = mapper.toDto(active, TODAY);
+		UserResponseDTO expiredDto = mapper.toDto(expired, TODAY);
+
+		assertEquals(5L, activeDto.getId());
+		assertFalse(activeDto.isExpired());
+		assertEquals("Đang hoạt động", activeDto.getStatusDescription());
+		assertTrue(expiredDto.isExpired());
+		assertEquals("Hết hạn", expiredDto.getStatusDescription());
+	}
+
+	@Test
+	void fallsBackToExpiredDateWhenStatusIsNotUpdatedYet() {
+		// Quá hạn từ hôm qua nhưng UserExpiryService chưa chạy
+		User overdue = User.builder().id(7).expiredDate(LocalDate.of(2024, 6, 1)).status(1).build();
+		User dueToday = User.builder().id(8).expiredDate(TODAY).status(1).build();
+
+		UserResponseDTO overdueDto = mapper.toDto(overdue, TODAY);
+
+		assertTrue(overdueDto.isExpired());
+		assertEquals("Hết hạn", overdueDto.getStatusDescription());
+		assertFalse(mapper.toDto(dueToday, TODAY).isExpired());
+	}
+
+	@Test
+	void toleratesMissingExpiredDate() {
+		User user = User.builder().id(1).status(0).build();
+
+		UserResponseDTO dto = mapper.toDto(user, TODAY);
+
+		assertFalse(dto.isExpired());
+		assertEquals("Ngừng hoạt động", dto.getStatusDescription());
+	}
+
+	@Test
+	void resolvesStatusOnWrite() {
+		assertEquals(UserStatus.EXPIRED, UserStatus.resolve(UserStatus.ACTIVE, LocalDate.of(2024, 6, 1), TODAY));
+		assertEquals(UserStatus.ACTIVE, UserStatus.resolve(UserStatus.EXPIRED, LocalDate.of(2024, 7, 1), TODAY));
+		assertEquals(UserStatus.INACTIVE, UserStatus.resolve(UserStatus.INACTIVE, LocalDate.of(2024, 6, 1), TODAY));
+	}
+
+}
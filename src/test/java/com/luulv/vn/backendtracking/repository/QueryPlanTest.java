@@ -0,0 +1,183 @@
+package com.luulv.vn.backendtracking.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra plan của các truy vấn nóng trên PostgreSQL thật: tạo database plan_check, chạy migration Flyway,
+ * nạp dữ liệu mẫu, ANALYZE rồi EXPLAIN từng câu và fail nếu có Seq Scan trên product/users.
+ * <p>
+ * Chỉ chạy khi có -Dplan-check.url=jdbc:postgresql://localhost:5432/postgres
+ * (-Dplan-check.user, -Dplan-check.password, mặc định postgres/postgres).
+ * Không kiểm tra các truy vấn đọc gần hết bảng, vì Seq Scan là plan đúng cho chúng:
+ * findByTypeId, findByIsNotify, countGroupByTypeAndIsNotify, streamAllOrderByCreatedAtDesc,
+ * findDistinctTypes (đọc từ bộ đếm thống kê) và ProductCheckStateRepository.findTrackedProducts.
+ * searchByUsername cũng không được kiểm tra vì không còn nơi nào gọi.
+ */
+@EnabledIfSystemProperty(named = "plan-check.url", matches = ".+")
+class QueryPlanTest {
+
+	private static final String DATABASE = "plan_check";
+	private static final Set<String> LARGE_TABLES = Set.of("product", "users");
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	// Mã type như ProductTypeDictionary.idOf("tiki") truyền vào truy vấn
+	private static final String TIKI_TYPE_ID = "(SELECT id FROM product_type WHERE name = 'tiki')";
+
+	private static Connection connection;
+
+	@BeforeAll
+	static void migrateAndSeed() throws SQLException {
+		String serverUrl = System.getProperty("plan-check.url");
+		String user = System.getProperty("plan-check.user", "postgres");
+		String password = System.getProperty("plan-check.password", "postgres");
+
+		try (Connection admin = DriverManager.getConnection(serverUrl, user, password);
+			 Statement statement = admin.createStatement()) {
+			statement.execute("DROP DATABASE IF EXISTS " + DATABASE);
+			statement.execute("CREATE DATABASE " + DATABASE);
+		}
+
+		String url = serverUrl.substring(0, serverUrl.lastIndexOf('/') + 1) + DATABASE;
+		// Giống spring.flyway.postgresql.transactional-lock=false: V2/V3 tạo index CONCURRENTLY
+		Flyway.configure().dataSource(url, user, password).locations("classpath:db/migration")
+				.configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+				.load().migrate();
+
+		connection = DriverManager.getConnection(url, user, password);
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("""
+					INSERT INTO product (url, url_hash, type, is_notify, created_at, updated_at)
+					SELECT u.url,
+					       sha256(convert_to(u.url, 'UTF8')),
+					       t.type,
+					       CASE WHEN g % 3 = 0 THEN 0 ELSE 1 END,
+					       current_date - (g % 730),
+					       current_date - (g % 365)
+					FROM generate_series(1, 200000) g
+					CROSS JOIN LATERAL (SELECT (ARRAY['shopee', 'lazada', 'tiki', 'sendo', 'amazon', 'ebay', 'other'])[g % 7 + 1] AS type) t
+					CROSS JOIN LATERAL (SELECT 'https://www.' || t.type || '.vn/product/item-' || g || '?ref=home' AS url) u""");
+			// Như production: user quá hạn đã được UserExpiryService chuyển sang EXPIRED (2)
+			statement.execute("""
+					INSERT INTO users (username, full_name, register_date, expired_date, status, created_at, updated_at)
+					SELECT 'user' || g, 'Nguyen Van ' || g, d, d + 30,
+					       CASE WHEN g % 10 = 0 THEN 0 WHEN d + 30 < current_date THEN 2 ELSE 1 END,
+					       d, d
+					FROM generate_series(1, 200000) g
+					CROSS JOIN LATERAL (SELECT current_date - (g % 730) AS d) r""");
+			statement.execute("VACUUM ANALYZE product");
+			statement.execute("VACUUM ANALYZE users");
+		}
+	}
+
+	@AfterAll
+	static void close() throws SQLException {
+		if (connection != null) {
+			connection.close();
+		}
+	}
+
+	static Stream<Arguments> hotQueries() {
+		return Stream.of(
+				Arguments.of("ProductRepository.findByUrl",
+						"SELECT * FROM product p WHERE p.url_hash = "
+								+ "sha256(convert_to('https://www.tiki.vn/product/item-4242?ref=home', 'UTF8'))"),
+				Arguments.of("ProductRepository.existsByUrl",
+						"SELECT p.id FROM product p WHERE p.url_hash = "
+								+ "sha256(convert_to('https://www.tiki.vn/product/item-4242?ref=home', 'UTF8')) LIMIT 1"),
+				Arguments.of("ProductRepository.findByCreatedAtBetween",
+						"SELECT * FROM product p WHERE p.created_at BETWEEN current_date - 3 AND current_date"),
+				Arguments.of("ProductRepository.findWithFilters(typeId, isNotify)",
+						"SELECT * FROM product p WHERE p.type_id = " + TIKI_TYPE_ID + " AND p.is_notify = 1 "
+								+ "ORDER BY p.created_at DESC LIMIT 10 OFFSET 20"),
+				Arguments.of("ProductRepository.findWithFilters(isNotify)",
+						"SELECT * FROM product p WHERE p.is_notify = 0 ORDER BY p.created_at DESC LIMIT 10"),
+				Arguments.of("ProductRepository.countByTypeId",
+						"SELECT COUNT(p.id) FROM product p WHERE p.type_id = " + TIKI_TYPE_ID),
+				Arguments.of("ProductRepository.search(url)",
+						"SELECT * FROM product p WHERE p.type_id = " + TIKI_TYPE_ID + " "
+								+ "AND LOWER(CAST(p.url AS TEXT)) LIKE '%item-4242%' AND p.is_notify = 1 LIMIT 10"),
+				Arguments.of("ProductRepository.findUrlCandidatesByPattern",
+						"SELECT * FROM product p WHERE LOWER(CAST(p.url AS TEXT)) LIKE '%item-4242%' ESCAPE '\\' "
+								+ "ORDER BY similarity(LOWER(CAST(p.url AS TEXT)), 'item-4242') DESC, p.id LIMIT 20"),
+				Arguments.of("ProductRepository.findUrlCandidatesByRegex",
+						"SELECT * FROM product p WHERE LOWER(CAST(p.url AS TEXT)) ~ '(^|[^a-z0-9])item\\-4242' "
+								+ "ORDER BY similarity(LOWER(CAST(p.url AS TEXT)), 'item-4242') DESC, p.id LIMIT 20"),
+				Arguments.of("ProductRepository.findByUrlLike",
+						"SELECT * FROM product p WHERE LOWER(CAST(p.url AS TEXT)) LIKE LOWER('%utm\\_source%') ESCAPE '\\' "
+								+ "AND p.url LIKE '%utm\\_source%' ESCAPE '\\' ORDER BY p.id"),
+				Arguments.of("ProductService.getProductsWithCursor(createdAt desc)",
+						"SELECT * FROM product p WHERE p.created_at < current_date - 100 "
+								+ "OR (p.created_at = current_date - 100 AND p.id < 5000) "
+								+ "ORDER BY p.created_at DESC, p.id DESC LIMIT 11"),
+				Arguments.of("ProductCheckStateRepository.findByProductId",
+						"SELECT p.id, p.url, s.etag FROM product p LEFT JOIN product_check_state s "
+								+ "ON s.product_id = p.id WHERE p.id = 42"),
+				Arguments.of("UserRepository.findByUsername",
+						"SELECT * FROM users u WHERE u.username = 'user4242'"),
+				Arguments.of("UserRepository.existsByUsername",
+						"SELECT u.id FROM users u WHERE u.username = 'user4242' LIMIT 1"),
+				Arguments.of("UserRepository.findActiveByExpiredDateBetween",
+						"SELECT * FROM users u WHERE u.status = 1 AND u.expired_date BETWEEN current_date AND current_date + 7 "
+								+ "ORDER BY u.expired_date, u.id LIMIT 20"),
+				Arguments.of("UserService.searchUsers(username)",
+						"SELECT * FROM users u WHERE LOWER(u.username) LIKE '%user4242%' ORDER BY u.id LIMIT 10"),
+				Arguments.of("UserService.searchUsers(fullName)",
+						"SELECT * FROM users u WHERE LOWER(u.full_name) LIKE '%van 4242%' ORDER BY u.id LIMIT 10"),
+				Arguments.of("UserService.searchUsers(status)",
+						"SELECT * FROM users u WHERE u.status = 0 ORDER BY u.id LIMIT 10"),
+				Arguments.of("UserService.searchUsers(registerDate, status) sort registerDate desc",
+						"SELECT * FROM users u WHERE u.register_date >= current_date - 30 AND u.status = 0 "
+								+ "ORDER BY u.register_date DESC, u.id DESC LIMIT 10"),
+				Arguments.of("UserService.searchUsers(expiredDate) sort expiredDate",
+						"SELECT * FROM users u WHERE u.expired_date BETWEEN current_date AND current_date + 7 "
+								+ "ORDER BY u.expired_date, u.id LIMIT 10"),
+				Arguments.of("UserExpiryService.expireChunk",
+						"SELECT id FROM users WHERE status = 1 AND expired_date < current_date ORDER BY id LIMIT 1000")
+		);
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("hotQueries")
+	void hotQueryDoesNotScanLargeTable(String query, String sql) throws Exception {
+		JsonNode plan;
+		try (Statement statement = connection.createStatement();
+			 ResultSet rs = statement.executeQuery("EXPLAIN (FORMAT JSON) " + sql)) {
+			rs.next();
+			plan = MAPPER.readTree(rs.getString(1)).get(0).get("Plan");
+		}
+
+		List<String> scanned = new ArrayList<>();
+		collectSeqScans(plan, scanned);
+		assertTrue(scanned.isEmpty(), () -> query + " quét tuần tự bảng " + scanned + "\n" + plan.toPrettyString());
+	}
+
+	private static void collectSeqScans(JsonNode node, List<String> scanned) {
+		if ("Seq Scan".equals(node.path("Node Type").asText())
+				&& LARGE_TABLES.contains(node.path("Relation Name").asText())) {
+			scanned.add(node.path("Relation Name").asText());
+		}
+		for (JsonNode child : node.path("Plans")) {
+			collectSeqScans(child, scanned);
+		}
+	}
+}
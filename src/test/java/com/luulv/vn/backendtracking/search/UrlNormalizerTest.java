@@ -0,0 +1,37 @@
+package com.luulv.vn.backendtracking.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UrlNormalizerTest {
+
+	@Test
+	void lowercasesSchemeAndHostButKeepsPathCase() {
+		assertEquals("https://shopee.vn/Product/ABC-123",
+				UrlNormalizer.normalize("  HTTPS://Shopee.VN:443/Product/ABC-123/#reviews "));
+	}
+
+	@Test
+	void dropsTrackingParamsAndKeepsTheRestInOrder() {
+		assertEquals("https://tiki.vn/p/1?id=12&color=red",
+				UrlNormalizer.normalize("https://tiki.vn/p/1/?utm_source=ads&id=12&fbclid=x&UTM_Campaign=y&color=red&"));
+		assertEquals("https://tiki.vn", UrlNormalizer.normalize("https://tiki.vn/?gclid=abc"));
+	}
+
+	@Test
+	void keepsNonDefaultPortAndUrlWithoutScheme() {
+		assertEquals("http://shop.vn:8080/sale", UrlNormalizer.normalize("http://Shop.vn:8080/sale/"));
+		assertEquals("shop.vn/sale", UrlNormalizer.normalize("Shop.VN/sale"));
+	}
+
+	@Test
+	void equivalentUrlsHashTheSame() {
+		byte[] left = UrlNormalizer.hash(UrlNormalizer.normalize("https://www.Lazada.vn/item-9/?spm=a2o4n"));
+		byte[] right = UrlNormalizer.hash(UrlNormalizer.normalize("https://www.lazada.vn/item-9"));
+
+		assertEquals(32, left.length);
+		assertArrayEquals(left, right);
+	}
+}
@@ -0,0 +1,35 @@
+package com.luulv.vn.backendtracking.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UrlTokenizerTest {
+
+	@Test
+	void splitsHostPathAndQueryKeys() {
+		UrlTokens tokens = UrlTokenizer.tokenize("HTTPS://user@www.Shop.example.com:8443/Category/phones/?utm_source=x&id=12#top");
+
+		assertEquals("shop.example.com", tokens.getHost());
+		assertEquals(List.of("category", "phones"), tokens.getPathSegments());
+		assertEquals(List.of("utm_source", "id"), tokens.getQueryKeys());
+	}
+
+	@Test
+	void acceptsUrlWithoutScheme() {
+		UrlTokens tokens = UrlTokenizer.tokenize("shop.vn/sale");
+
+		assertEquals("shop.vn", tokens.getHost());
+		assertEquals(List.of("sale"), tokens.getPathSegments());
+		assertEquals(List.of(), tokens.getQueryKeys());
+	}
+
+	@Test
+	void escapesLikeAndRegexMetacharacters() {
+		assertEquals("50\\%\\_off", UrlSearchService.escapeLike("50%_off"));
+		assertEquals("(^|[^a-z0-9])a\\.b", UrlSearchService.tokenPrefixRegex("a.b"));
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.luulv.vn.backendtracking.service;
+
+import com.luulv.vn.backendtracking.dto.ApproximatePage;
+import com.luulv.vn.backendtracking.dto.CountMode;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffsetPaginatorTest {
+
+	private static final List<Integer> ROWS = IntStream.rangeClosed(1, 25).boxed().toList();
+
+	private final AtomicInteger counts = new AtomicInteger();
+
+	@Test
+	void noneModeNeverCounts() {
+		Slice<Integer> slice = fetch(CountMode.NONE, PageRequest.of(0, 10), 999);
+
+		assertFalse(slice instanceof Page);
+		assertTrue(slice.hasNext());
+		assertEquals(0, counts.get());
+	}
+
+	@Test
+	void approximateModeKeepsTotalConsistentWithRowsRead() {
+		Slice<Integer> slice = fetch(CountMode.APPROXIMATE, PageRequest.of(1, 10), 5);
+
+		ApproximatePage<Integer> page = assertInstanceOf(ApproximatePage.class, slice);
+		assertEquals(21, page.getTotalElements());
+		assertEquals(1, counts.get());
+	}
+
+	@Test
+	void approximateModeOnLastPageUsesExactTotal() {
+		Slice<Integer> slice = fetch(CountMode.APPROXIMATE, PageRequest.of(2, 10), 999);
+
+		Page<Integer> page = assertInstanceOf(PageImpl.class, slice);
+		assertFalse(page instanceof ApproximatePage);
+		assertEquals(25, page.getTotalElements());
+		assertEquals(0, counts.get());
+	}
+
+	private Slice<Integer> fetch(CountMode mode, Pageable pageable, long approximateTotal) {
+		return OffsetPaginator.fetch(mode, pageable,
+				p -> new PageImpl<>(rows(p), p, ROWS.size()),
+				p -> new SliceImpl<>(rows(p), p, p.getOffset() + p.getPageSize() < ROWS.size()),
+				() -> {
+					counts.incrementAndGet();
+					return approximateTotal;
+				},
+				Function.identity());
+	}
+
+	private static List<Integer> rows(Pageable pageable) {
+		int from = (int) Math.min(pageable.getOffset(), ROWS.size());
+		return ROWS.subList(from, Math.min(from + pageable.getPageSize(), ROWS.size()));
+	}
+}
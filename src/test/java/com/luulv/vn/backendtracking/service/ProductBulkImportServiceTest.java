@@ -0,0 +1,239 @@
+package com.luulv.vn.backendtracking.service;
+
+import com.luulv.vn.backendtracking.dto.BulkImportResultDto;
+import com.luulv.vn.backendtracking.dto.BulkImportRowResult;
+import com.luulv.vn.backendtracking.dto.ProductRequestDto;
+import com.luulv.vn.backendtracking.event.ProductsImportedEvent;
+import com.luulv.vn.backendtracking.search.UrlNormalizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chạy ProductBulkImportService với bảng product giả lập trong bộ nhớ (FakeProductTable mô phỏng hai câu SQL
+ * của service: tìm url_hash đã có và INSERT ... ON CONFLICT (url_hash) DO NOTHING RETURNING).
+ */
+class ProductBulkImportServiceTest {
+
+	private final FakeProductTable table = new FakeProductTable();
+
+	private final List<Object> events = new ArrayList<>();
+
+	private ProductBulkImportService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new ProductBulkImportService(table, events::add);
+		ReflectionTestUtils.setField(service, "maxRows", 100);
+		ReflectionTestUtils.setField(service, "chunkSize", 2);
+	}
+
+	@Test
+	void duplicatesWithinTheRequestAreComparedAfterNormalization() {
+		BulkImportResultDto result = service.importProducts(List.of(
+				request("https://Shop.vn/a/"),
+				request("https://shop.vn/a?utm_source=ads"),
+				request("https://shop.vn/b")));
+
+		assertEquals(2, result.getCreated());
+		assertEquals(1, result.getDuplicates());
+		BulkImportRowResult duplicate = result.getRows().get(1);
+		assertEquals(BulkImportRowResult.Status.DUPLICATE, duplicate.getStatus());
+		assertEquals("URL bị trùng với dòng 0", duplicate.getMessage());
+		assertEquals(2, table.rows.size());
+	}
+
+	@Test
+	void urlsAlreadyInTheTableAreDuplicates() {
+		table.insert("https://shop.vn/a");
+
+		BulkImportResultDto result = service.importProducts(List.of(
+				request("https://shop.vn/a/#reviews"),
+				request("https://shop.vn/b")));
+
+		assertEquals(BulkImportRowResult.Status.DUPLICATE, result.getRows().get(0).getStatus());
+		assertEquals("URL đã tồn tại trong hệ thống", result.getRows().get(0).getMessage());
+		assertEquals(BulkImportRowResult.Status.CREATED, result.getRows().get(1).getStatus());
+	}
+
+	@Test
+	void rowsCreatedConcurrentlyBetweenCheckAndInsertAreDuplicates() {
+		// Request khác tạo cùng URL sau câu kiểm tra, trước câu INSERT: ON CONFLICT bỏ qua dòng đó
+		table.beforeInsert = () -> table.insert("https://shop.vn/b");
+
+		BulkImportResultDto result = service.importProducts(List.of(
+				request("https://shop.vn/a"),
+				request("https://shop.vn/b")));
+
+		assertEquals(BulkImportRowResult.Status.CREATED, result.getRows().get(0).getStatus());
+		BulkImportRowResult raced = result.getRows().get(1);
+		assertEquals(BulkImportRowResult.Status.DUPLICATE, raced.getStatus());
+		assertNull(raced.getId());
+		ProductsImportedEvent event = (ProductsImportedEvent) events.get(0);
+		assertEquals(List.of(result.getRows().get(0).getId()),
+				event.getProducts().stream().map(product -> product.getId()).toList());
+	}
+
+	@Test
+	void invalidRowsAreRejectedWithoutTouchingTheTable() {
+		List<ProductRequestDto> requests = new ArrayList<>();
+		requests.add(null);
+		requests.add(request("   "));
+		// Chỉ có fragment: chuẩn hóa thành URL rỗng
+		requests.add(request("#x"));
+		requests.add(request("https://shop.vn/" + "a".repeat(250)));
+		ProductRequestDto badNotify = request("https://shop.vn/c");
+		badNotify.setIsNotify(2);
+		requests.add(badNotify);
+		ProductRequestDto longType = request("https://shop.vn/d");
+		longType.setType("t".repeat(256));
+		requests.add(longType);
+
+		BulkImportResultDto result = service.importProducts(requests);
+
+		assertEquals(6, result.getInvalid());
+		assertTrue(result.getRows().stream().allMatch(row -> row.getStatus() == BulkImportRowResult.Status.INVALID));
+		assertEquals(0, table.statements);
+		assertTrue(events.isEmpty());
+	}
+
+	@Test
+	void publishesOneEventPerChunk() {
+		List<ProductRequestDto> requests = IntStream.range(0, 5)
+				.mapToObj(i -> request("https://shop.vn/item-" + i))
+				.toList();
+
+		BulkImportResultDto result = service.importProducts(requests);
+
+		assertEquals(5, result.getCreated());
+		assertEquals(List.of(2, 2, 1), events.stream()
+				.map(event -> ((ProductsImportedEvent) event).getProducts().size())
+				.toList());
+	}
+
+	@Test
+	void rejectsRequestsOverTheRowLimit() {
+		List<ProductRequestDto> requests = IntStream.range(0, 101)
+				.mapToObj(i -> request("https://shop.vn/item-" + i))
+				.toList();
+
+		assertThrows(IllegalArgumentException.class, () -> service.importProducts(requests));
+		assertEquals(0, table.statements);
+	}
+
+	private static ProductRequestDto request(String url) {
+		ProductRequestDto request = new ProductRequestDto();
+		request.setUrl(url);
+		request.setType("electronics");
+		return request;
+	}
+
+	/**
+	 * Bảng product giả lập: url_hash (hex) là khóa unique như unique index thật
+	 */
+	private static final class FakeProductTable extends JdbcTemplate {
+
+		private final Map<String, String> rows = new HashMap<>();
+		private final Map<String, Integer> ids = new HashMap<>();
+		private Runnable beforeInsert = () -> { };
+		private int statements;
+
+		void insert(String url) {
+			String normalized = UrlNormalizer.normalize(url);
+			String hash = HexFormat.of().formatHex(UrlNormalizer.hash(normalized));
+			rows.put(hash, normalized);
+			ids.put(hash, ids.size() + 1);
+		}
+
+		@Override
+		public void query(String sql, PreparedStatementSetter setter, RowCallbackHandler handler) {
+			statements++;
+			Map<Integer, Object> params = bind(setter);
+			try {
+				if (sql.startsWith("SELECT")) {
+					for (Object hash : (Object[]) params.get(1)) {
+						if (rows.containsKey((String) hash)) {
+							handler.processRow(row(Map.of(1, hash)));
+						}
+					}
+				} else if (sql.startsWith("INSERT")) {
+					beforeInsert.run();
+					Object[] urls = (Object[]) params.get(3);
+					Object[] hashes = (Object[]) params.get(4);
+					for (int i = 0; i < urls.length; i++) {
+						String hash = (String) hashes[i];
+						if (rows.containsKey(hash)) {
+							continue;
+						}
+						rows.put(hash, (String) urls[i]);
+						ids.put(hash, ids.size() + 1);
+						handler.processRow(row(Map.of("id", ids.get(hash), "url_hash", hash)));
+					}
+				} else {
+					throw new IllegalArgumentException("Unexpected SQL: " + sql);
+				}
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		// Ghi lại tham số mà service gán cho câu lệnh, mảng SQL được trả về dạng Object[]
+		private static Map<Integer, Object> bind(PreparedStatementSetter setter) {
+			Map<Integer, Object> params = new HashMap<>();
+			Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+						if (method.getName().equals("createArrayOf")) {
+							Object[] elements = Arrays.copyOf((Object[]) args[1], ((Object[]) args[1]).length, Object[].class);
+							return Proxy.newProxyInstance(Array.class.getClassLoader(), new Class<?>[]{Array.class},
+									(arrayProxy, arrayMethod, arrayArgs) -> elements);
+						}
+						throw new UnsupportedOperationException(method.getName());
+					});
+			PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(
+					PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+					(proxy, method, args) -> switch (method.getName()) {
+						case "getConnection" -> connection;
+						case "setArray" -> params.put((Integer) args[0], ((Array) args[1]).getArray());
+						case "setDate" -> params.put((Integer) args[0], args[1]);
+						default -> throw new UnsupportedOperationException(method.getName());
+					});
+			try {
+				setter.setValues(statement);
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+			return params;
+		}
+
+		private static ResultSet row(Map<Object, Object> columns) {
+			return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+					(proxy, method, args) -> switch (method.getName()) {
+						case "getString" -> (String) columns.get(args[0]);
+						case "getInt" -> (Integer) columns.get(args[0]);
+						default -> throw new UnsupportedOperationException(method.getName());
+					});
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package com.luulv.vn.backendtracking.service;
+
+import com.luulv.vn.backendtracking.entity.UserStatus;
+import com.luulv.vn.backendtracking.event.UserChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chạy UserExpiryService với bảng users giả lập trong bộ nhớ (FakeUserTable mô phỏng câu UPDATE theo chunk
+ * ... FOR UPDATE SKIP LOCKED) và transaction manager đếm số transaction.
+ */
+class UserExpiryServiceTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2024, 6, 2);
+
+	private final FakeUserTable table = new FakeUserTable();
+
+	private final CountingTransactionManager transactionManager = new CountingTransactionManager();
+
+	private final List<Object> events = new ArrayList<>();
+
+	private UserExpiryService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new UserExpiryService(table, new TransactionTemplate(transactionManager), events::add);
+		ReflectionTestUtils.setField(service, "chunkSize", 2);
+	}
+
+	@Test
+	void expiresOverdueActiveUsersChunkByChunk() {
+		for (int id = 1; id <= 5; id++) {
+			table.add(id, UserStatus.ACTIVE, TODAY.minusDays(id));
+		}
+		table.add(6, UserStatus.ACTIVE, TODAY);
+		table.add(7, UserStatus.INACTIVE, TODAY.minusDays(1));
+
+		int expired = service.expireUsers(TODAY);
+
+		assertEquals(5, expired);
+		assertEquals(List.of(2, 2, 1), table.chunks);
+		assertEquals(3, transactionManager.commits);
+		for (int id = 1; id <= 5; id++) {
+			assertEquals(UserStatus.EXPIRED, table.status(id));
+		}
+		assertEquals(UserStatus.ACTIVE, table.status(6));
+		assertEquals(UserStatus.INACTIVE, table.status(7));
+		assertEquals(1, events.size());
+		assertNull(((UserChangeEvent) events.get(0)).getUserId());
+	}
+
+	@Test
+	void fullLastChunkIsFollowedByAnEmptyOne() {
+		for (int id = 1; id <= 4; id++) {
+			table.add(id, UserStatus.ACTIVE, TODAY.minusDays(1));
+		}
+
+		assertEquals(4, service.expireUsers(TODAY));
+		assertEquals(List.of(2, 2, 0), table.chunks);
+	}
+
+	@Test
+	void rowsLockedByAnotherTransactionAreSkipped() {
+		for (int id = 1; id <= 3; id++) {
+			table.add(id, UserStatus.ACTIVE, TODAY.minusDays(1));
+		}
+		table.locked.add(2);
+
+		assertEquals(2, service.expireUsers(TODAY));
+		assertEquals(UserStatus.ACTIVE, table.status(2));
+		assertEquals(UserStatus.EXPIRED, table.status(3));
+	}
+
+	@Test
+	void nothingToExpirePublishesNoEvent() {
+		table.add(1, UserStatus.ACTIVE, TODAY.plusDays(1));
+
+		assertEquals(0, service.expireUsers(TODAY));
+		assertEquals(List.of(0), table.chunks);
+		assertTrue(events.isEmpty());
+	}
+
+	@Test
+	void overlappingRunIsSkipped() {
+		table.add(1, UserStatus.ACTIVE, TODAY.minusDays(1));
+		int[] nested = {-1};
+		table.beforeUpdate = () -> {
+			table.beforeUpdate = () -> { };
+			nested[0] = service.expireUsers(TODAY);
+		};
+
+		assertEquals(1, service.expireUsers(TODAY));
+		assertEquals(0, nested[0]);
+	}
+
+	@Test
+	void startupRunExpiresUsersOverdueAsOfToday() {
+		table.add(1, UserStatus.ACTIVE, LocalDate.now().minusDays(1));
+		table.add(2, UserStatus.ACTIVE, LocalDate.now());
+
+		service.expireOnStartup();
+
+		assertEquals(UserStatus.EXPIRED, table.status(1));
+		assertEquals(UserStatus.ACTIVE, table.status(2));
+	}
+
+	@Test
+	void failedScheduledRunIsLoggedAndTheNextRunProceeds() {
+		table.add(1, UserStatus.ACTIVE, LocalDate.now().minusDays(1));
+		table.beforeUpdate = () -> {
+			throw new IllegalStateException("connection lost");
+		};
+
+		service.scheduledExpire();
+		assertEquals(1, transactionManager.rollbacks);
+		assertEquals(UserStatus.ACTIVE, table.status(1));
+
+		table.beforeUpdate = () -> { };
+		service.scheduledExpire();
+		assertEquals(UserStatus.EXPIRED, table.status(1));
+	}
+
+	@Test
+	void runsOnStartupAndOnTheConfiguredInterval() throws NoSuchMethodException {
+		EventListener startup = UserExpiryService.class.getMethod("expireOnStartup").getAnnotation(EventListener.class);
+		Scheduled scheduled = UserExpiryService.class.getMethod("scheduledExpire").getAnnotation(Scheduled.class);
+
+		assertArrayEquals(new Class<?>[]{ApplicationReadyEvent.class}, startup.value());
+		assertEquals("${tracking.user-expiry.interval:PT15M}", scheduled.fixedDelayString());
+		assertEquals("${tracking.user-expiry.interval:PT15M}", scheduled.initialDelayString());
+	}
+
+	/**
+	 * Bảng users giả lập: id -> {status, expired_date}; id trong locked là dòng transaction khác đang giữ
+	 */
+	private static final class FakeUserTable extends JdbcTemplate {
+
+		private final Map<Integer, Object[]> rows = new TreeMap<>();
+		private final Set<Integer> locked = new HashSet<>();
+		private final List<Integer> chunks = new ArrayList<>();
+		private Runnable beforeUpdate = () -> { };
+
+		void add(int id, int status, LocalDate expiredDate) {
+			rows.put(id, new Object[]{status, expiredDate});
+		}
+
+		int status(int id) {
+			return (Integer) rows.get(id)[0];
+		}
+
+		// UPDATE users SET status = ?, updated_at = ? WHERE id IN (SELECT id FROM users WHERE status = ?
+		// AND expired_date < ? ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)
+		@Override
+		public int update(String sql, Object... args) {
+			assertTrue(sql.contains("FOR UPDATE SKIP LOCKED"), sql);
+			beforeUpdate.run();
+			int newStatus = (Integer) args[0];
+			int currentStatus = (Integer) args[2];
+			LocalDate before = ((Date) args[3]).toLocalDate();
+			int limit = (Integer) args[4];
+			List<Integer> ids = rows.entrySet().stream()
+					.filter(row -> !locked.contains(row.getKey()))
+					.filter(row -> (Integer) row.getValue()[0] == currentStatus)
+					.filter(row -> ((LocalDate) row.getValue()[1]).isBefore(before))
+					.map(Map.Entry::getKey)
+					.limit(limit)
+					.toList();
+			ids.forEach(id -> rows.get(id)[0] = newStatus);
+			chunks.add(ids.size());
+			return ids.size();
+		}
+	}
+
+	private static final class CountingTransactionManager extends AbstractPlatformTransactionManager {
+
+		private int commits;
+		private int rollbacks;
+
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+			commits++;
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+			rollbacks++;
+		}
+	}
+}
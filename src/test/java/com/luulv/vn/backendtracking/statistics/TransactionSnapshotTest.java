@@ -0,0 +1,31 @@
+package com.luulv.vn.backendtracking.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionSnapshotTest {
+
+	@Test
+	void transactionsRunningOrStartedAfterTheSnapshotAreNotVisible() {
+		TransactionSnapshot snapshot = TransactionSnapshot.parse("100:110:107,100,103");
+
+		assertTrue(snapshot.isVisible(99));
+		assertFalse(snapshot.isVisible(100));
+		assertTrue(snapshot.isVisible(105));
+		assertFalse(snapshot.isVisible(103));
+		assertFalse(snapshot.isVisible(107));
+		assertFalse(snapshot.isVisible(110));
+		assertFalse(snapshot.isVisible(200));
+	}
+
+	@Test
+	void unknownSnapshotOrTransactionIsNeverVisible() {
+		assertTrue(TransactionSnapshot.parse("100:100:").isVisible(99));
+		assertFalse(TransactionSnapshot.parse(null).isVisible(1));
+		assertFalse(TransactionSnapshot.parse("100:100:").isVisible(-1));
+		assertThrows(IllegalArgumentException.class, () -> TransactionSnapshot.parse("100:100"));
+	}
+}
@@ -0,0 +1,62 @@
+package com.luulv.vn.backendtracking.trace;
+
+import com.luulv.vn.backendtracking.config.TraceProperties;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TraceIdFilterTest {
+
+	private final TraceIdFilter filter = new TraceIdFilter(new TraceProperties());
+
+	@Test
+	void reusesValidIncomingTraceIdAndCountsStatements() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/products/1");
+		request.addHeader("X-Trace-Id", "abc-123");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AtomicReference<String> mdcInChain = new AtomicReference<>();
+		AtomicReference<RequestTrace> traceInChain = new AtomicReference<>();
+
+		filter.doFilter(request, response, new MockFilterChain() {
+			@Override
+			public void doFilter(ServletRequest req, ServletResponse res) {
+				mdcInChain.set(MDC.get(TraceIdFilter.MDC_KEY));
+				RequestTrace trace = RequestTrace.current();
+				trace.recordStatement("select * from product where id=?", 2, 1);
+				trace.recordStatement("select count(*) from product where url=?", 3, 1);
+				traceInChain.set(trace);
+			}
+		});
+
+		assertEquals("abc-123", mdcInChain.get());
+		assertEquals("abc-123", response.getHeader("X-Trace-Id"));
+		assertEquals(2, traceInChain.get().getStatementCount());
+		assertEquals(5, traceInChain.get().getDbMillis());
+		assertNull(MDC.get(TraceIdFilter.MDC_KEY));
+		assertNull(RequestTrace.current());
+	}
+
+	@Test
+	void generatesTraceIdWhenHeaderMissingOrInvalid() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+		request.addHeader("X-Trace-Id", "bad id\nwith newline");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, new MockFilterChain());
+
+		String traceId = response.getHeader("X-Trace-Id");
+		assertEquals(16, traceId.length());
+		assertNotEquals("bad id\nwith newline", traceId);
+	}
+
+}
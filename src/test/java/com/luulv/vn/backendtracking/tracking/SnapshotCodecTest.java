@@ -0,0 +1,50 @@
+package com.luulv.vn.backendtracking.tracking;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotCodecTest {
+
+	@Test
+	void deltaRoundTripsAndKeepsOnlyChangedMiddle() {
+		byte[] previous = page("1.990.000");
+		byte[] current = page("1.790.000");
+
+		byte[] delta = SnapshotCodec.encodeDelta(previous, current);
+
+		assertArrayEquals(current, SnapshotCodec.applyDelta(previous, delta));
+		assertTrue(delta.length < 16, "delta length " + delta.length);
+	}
+
+	@Test
+	void deltaHandlesInsertionsAndEmptyBodies() {
+		byte[] previous = "abcdef".getBytes(StandardCharsets.UTF_8);
+		byte[] current = "abcXYZdef".getBytes(StandardCharsets.UTF_8);
+
+		assertArrayEquals(current, SnapshotCodec.applyDelta(previous, SnapshotCodec.encodeDelta(previous, current)));
+		assertArrayEquals(new byte[0], SnapshotCodec.applyDelta(current, SnapshotCodec.encodeDelta(current, new byte[0])));
+		assertArrayEquals(current, SnapshotCodec.applyDelta(new byte[0], SnapshotCodec.encodeDelta(new byte[0], current)));
+		assertArrayEquals(current, SnapshotCodec.applyDelta(current, SnapshotCodec.encodeDelta(current, current)));
+	}
+
+	@Test
+	void compressionRoundTrips() {
+		byte[] body = page("1.990.000");
+
+		byte[] compressed = SnapshotCodec.compress(body);
+
+		assertArrayEquals(body, SnapshotCodec.decompress(compressed));
+		assertTrue(compressed.length < body.length / 5);
+	}
+
+	private static byte[] page(String price) {
+		String filler = "<div class=\"item\">Điện thoại</div>\n".repeat(500);
+		return ("<html><body>" + filler + "<span class=\"price\">" + price + "</span>" + filler + "</body></html>")
+				.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,109 @@
+package com.luulv.vn.backendtracking.tracking;
+
+import com.luulv.vn.backendtracking.config.TrackingProperties;
+import com.luulv.vn.backendtracking.dto.TrackingCycleReportDto;
+import com.luulv.vn.backendtracking.repository.ProductCheckStateRepository;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class TrackingEngineTest {
+
+	private static final int PER_HOST = 3;
+
+	private HttpServer server;
+	private final CountDownLatch fastHostDone = new CountDownLatch(PER_HOST);
+	private final List<Boolean> slowHostSawFastHost = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void startStub() throws Exception {
+		server = HttpServer.create(new InetSocketAddress(0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		// "localhost" là host chậm: chỉ trả lời sau khi host "127.0.0.1" đã được kiểm tra xong (hoặc hết 5 giây)
+		server.createContext("/", exchange -> {
+			try {
+				if (exchange.getRequestHeaders().getFirst("Host").startsWith("localhost")) {
+					slowHostSawFastHost.add(fastHostDone.await(5, TimeUnit.SECONDS));
+				} else {
+					fastHostDone.countDown();
+				}
+				exchange.sendResponseHeaders(200, -1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				exchange.close();
+			}
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void stopStub() {
+		server.stop(0);
+	}
+
+	@Test
+	void slowHostDoesNotHoldGlobalPermitsAwayFromOtherHosts() throws Exception {
+		TrackingProperties properties = new TrackingProperties();
+		properties.setMaxConcurrent(2);
+		properties.setMaxConcurrentPerHost(1);
+		properties.getSnapshot().setEnabled(false);
+
+		int port = server.getAddress().getPort();
+		List<ProductCheckState> targets = new ArrayList<>();
+		for (int i = 0; i < PER_HOST; i++) {
+			targets.add(state(i, "http://localhost:" + port + "/slow/" + i));
+		}
+		for (int i = 0; i < PER_HOST; i++) {
+			targets.add(state(PER_HOST + i, "http://127.0.0.1:" + port + "/fast/" + i));
+		}
+
+		TrackingEngine engine = new TrackingEngine(properties, new StubStateRepository(targets),
+				new UrlFetcher(Duration.ofSeconds(2), Duration.ofSeconds(10), "test", 1024),
+				new HostThrottle(properties.getMaxConcurrentPerHost(), 0), null, new SimpleMeterRegistry());
+
+		TrackingCycleReportDto report = engine.runCycle();
+
+		assertEquals(2 * PER_HOST, report.getChecked());
+		assertEquals(0, report.getFailed());
+		assertEquals(PER_HOST, slowHostSawFastHost.size());
+		assertFalse(slowHostSawFastHost.contains(false), "fast host was blocked behind the slow host");
+	}
+
+	private static ProductCheckState state(int productId, String url) {
+		return new ProductCheckState(productId, url, null, null, null, null, null, null, 0, null);
+	}
+
+	private static final class StubStateRepository extends ProductCheckStateRepository {
+
+		private final List<ProductCheckState> targets;
+
+		StubStateRepository(List<ProductCheckState> targets) {
+			super(null);
+			this.targets = targets;
+		}
+
+		@Override
+		public List<ProductCheckState> findTrackedProducts() {
+			return targets;
+		}
+
+		@Override
+		public void saveAll(List<ProductCheckState> states) {
+		}
+	}
+}
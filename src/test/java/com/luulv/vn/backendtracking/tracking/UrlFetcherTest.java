@@ -0,0 +1,92 @@
+package com.luulv.vn.backendtracking.tracking;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UrlFetcherTest {
+
+	private static final byte[] PAGE = "<html>gia 100.000</html>".getBytes(StandardCharsets.UTF_8);
+
+	private HttpServer server;
+	private final AtomicInteger requests = new AtomicInteger();
+
+	@BeforeEach
+	void startStub() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/product", exchange -> {
+			requests.incrementAndGet();
+			if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				exchange.sendResponseHeaders(304, -1);
+			} else {
+				exchange.getResponseHeaders().add("ETag", "\"v1\"");
+				exchange.getResponseHeaders().add("Last-Modified", "Sat, 17 Oct 2026 10:00:00 GMT");
+				exchange.sendResponseHeaders(200, PAGE.length);
+				exchange.getResponseBody().write(PAGE);
+			}
+			exchange.close();
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void stopStub() {
+		server.stop(0);
+	}
+
+	@Test
+	void sendsConditionalRequestWithStoredValidators() throws Exception {
+		UrlFetcher fetcher = new UrlFetcher(Duration.ofSeconds(2), Duration.ofSeconds(5), "test", 1024);
+		URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/product");
+
+		FetchResult first = fetcher.fetch(uri, null, null);
+		assertEquals(200, first.getStatusCode());
+		assertEquals("\"v1\"", first.getEtag());
+		assertArrayEquals(PAGE, first.getBody());
+
+		FetchResult second = fetcher.fetch(uri, first.getEtag(), first.getLastModified());
+		assertTrue(second.isNotModified());
+		assertNull(second.getBody());
+		assertEquals(2, requests.get());
+	}
+
+	@Test
+	void truncatesBodyLargerThanLimit() throws Exception {
+		UrlFetcher fetcher = new UrlFetcher(Duration.ofSeconds(2), Duration.ofSeconds(5), "test", 4);
+		URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/product");
+
+		FetchResult result = fetcher.fetch(uri, null, null);
+
+		assertEquals(4, result.getBody().length);
+		assertTrue(result.isTruncated());
+	}
+
+	@Test
+	void throttleSpacesRequestsToSameHost() throws Exception {
+		HostThrottle throttle = new HostThrottle(1, 20);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 3; i++) {
+			try (HostThrottle.Permit ignored = throttle.acquire("shop.vn")) {
+				// không làm gì, chỉ đo khoảng cách giữa các lượt
+			}
+		}
+		long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+		// 3 request ở 20 req/s: lượt đầu chạy ngay, hai lượt sau cách nhau 50ms
+		assertTrue(elapsedMillis >= 90, "elapsed " + elapsedMillis);
+	}
+
+}